@@ -97,12 +97,27 @@ public class CryptoWalletClient implements Client {
                 2) list-offerings
                 3) buy [offering_code] [amount_to_pay]
                 4) sell [offering_code]
-                5) get-wallet-summary
-                6) get-wallet-overall-summary
-                7) logout
-                8) help [command_name]
-                9) quit
-                10*) save-users (Admin command for manual testing)
+                5) buy-limit [offering_code] [limit_price] [amount_to_pay]
+                6) sell-limit [offering_code] [limit_price]
+                7) list-orders
+                8) cancel-order [order_id]
+                9) schedule-buy [offering_code] [amount_to_pay] [interval]
+                10) list-schedules
+                11) cancel-schedule [schedule_id]
+                12) get-wallet-summary
+                13) get-wallet-overall-summary
+                14) unrealized-pnl
+                15) price-history [offering_code] [interval]
+                16) leaderboard [count]
+                17) get-transactions [page]
+                18) logout
+                19) help [command_name]
+                20) quit
+                21*) save-users (Admin command for manual testing)
+                22*) cache-stats (Admin command for manual testing)
+                23*) api-budget (Admin command for manual testing)
+                24*) partition-stats (Admin command for manual testing)
+                25*) market-exposure (Admin command for manual testing)
                 """);
     }
 
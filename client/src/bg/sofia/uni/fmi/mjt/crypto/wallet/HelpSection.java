@@ -64,6 +64,64 @@ public class HelpSection {
             is reached will be unsuccessful.
             """;
 
+    public static final String BUY_LIMIT_INFORMATION = """
+            buy-limit [offering_code] [limit_price] [amount_to_pay] - Places an order that invests the money
+            specified by the user into a cryptocurrency once its price falls to the limit price or lower. The
+            order is checked every time the server receives a new price for the cryptocurrency.
+                        
+            This command has three arguments:
+            1) offering_code - The unique ID of the cryptocurrency.
+            2) limit_price - The highest price in USD the user is willing to pay for the cryptocurrency.
+            3) amount_to_pay - The amount of USD that the user will invest. If the user's balance is too low
+            when the order is triggered, the order fails and "list-orders" shows the reason.
+            """;
+
+    public static final String SELL_LIMIT_INFORMATION = """
+            sell-limit [offering_code] [limit_price] - Places an order that sells the entirety of a
+            cryptocurrency once its price rises to the limit price or higher. The order is checked every time
+            the server receives a new price for the cryptocurrency.
+                        
+            This command has two arguments:
+            1) offering_code - The unique ID of the cryptocurrency. The user may only place sell orders for
+            cryptocurrencies he has invested in.
+            2) limit_price - The lowest price in USD the user is willing to sell the cryptocurrency for.
+            """;
+
+    public static final String LIST_ORDERS_INFORMATION = """
+            list-orders - Displays the limit orders of the user that have not been triggered yet, as well as
+            triggered orders that could not be executed together with the reason.
+            """;
+
+    public static final String CANCEL_ORDER_INFORMATION = """
+            cancel-order [order_id] - Cancels an open limit order of the user, or dismisses a failed one.
+                        
+            This command has a single argument:
+            1) order_id - The ID of the limit order, as shown by "list-orders".
+            """;
+
+    public static final String SCHEDULE_BUY_INFORMATION = """
+            schedule-buy [offering_code] [amount_to_pay] [interval] - Invests the money specified by the user
+            into a cryptocurrency repeatedly, once per interval. The first purchase is made one interval after
+            the command. Purchases that cannot be paid for are skipped, but the schedule continues.
+                        
+            This command has three arguments:
+            1) offering_code - The unique ID of the cryptocurrency.
+            2) amount_to_pay - The amount of USD that the user will invest on each purchase.
+            3) interval - The time between purchases: a positive number followed by s, m, h or d (e.g. 1d).
+            The interval must be at least one minute.
+            """;
+
+    public static final String LIST_SCHEDULES_INFORMATION = """
+            list-schedules - Displays the recurring purchases of the user and when each of them runs next.
+            """;
+
+    public static final String CANCEL_SCHEDULE_INFORMATION = """
+            cancel-schedule [schedule_id] - Stops a recurring purchase of the user.
+                        
+            This command has a single argument:
+            1) schedule_id - The ID of the recurring purchase, as shown by "list-schedules".
+            """;
+
     public static final String WALLET_SUMMARY_INFORMATION = """
             get-wallet-summary - Displays a list of the user's portfolio. The information contained within 
             includes:
@@ -89,6 +147,39 @@ public class HelpSection {
             with command "list-offerings".
             """;
 
+    public static final String UNREALIZED_PNL_INFORMATION = """
+            unrealized-pnl - Displays how much the user's investments have gained or lost in total, comparing
+            the money invested with their value at the most recently observed prices. Investments without an
+            observed price are counted at the money invested in them.
+            """;
+
+    public static final String PRICE_HISTORY_INFORMATION = """
+            price-history [offering_code] [interval] - Displays the open, high, low and close prices of a
+            cryptocurrency for each interval, built from the prices the server has observed so far. Only the
+            most recent 24 intervals are shown.
+                        
+            This command has two arguments:
+            1) offering_code - The unique ID of the cryptocurrency.
+            2) interval - The length of each interval: a positive number followed by s, m, h or d (e.g. 15m).
+            """;
+
+    public static final String LEADERBOARD_INFORMATION = """
+            leaderboard [count] - Displays the users with the most valuable portfolios, ranked by their balance
+            plus the value of their cryptocurrencies at the most recently observed prices.
+                        
+            This command has an optional argument:
+            1) count - The number of users to display, between 1 and 100. Defaults to 10.
+            """;
+
+    public static final String GET_TRANSACTIONS_INFORMATION = """
+            get-transactions [page] - Displays the user's deposits, purchases and sales, newest first, ten at
+            a time. When there are older transactions, the response ends with the command that shows the next
+            page.
+                        
+            This command has an optional argument:
+            1) page - The page number given at the end of the previous page. Defaults to the newest page.
+            """;
+
     public static final String LOGOUT_INFORMATION = """
             logout - Logs the user out of the system. The user will retain his connection to the server as
             a guest.
@@ -147,12 +238,45 @@ public class HelpSection {
             case "sell" -> {
                 return SELL_INFORMATION;
             }
+            case "buy-limit" -> {
+                return BUY_LIMIT_INFORMATION;
+            }
+            case "sell-limit" -> {
+                return SELL_LIMIT_INFORMATION;
+            }
+            case "list-orders" -> {
+                return LIST_ORDERS_INFORMATION;
+            }
+            case "cancel-order" -> {
+                return CANCEL_ORDER_INFORMATION;
+            }
+            case "schedule-buy" -> {
+                return SCHEDULE_BUY_INFORMATION;
+            }
+            case "list-schedules" -> {
+                return LIST_SCHEDULES_INFORMATION;
+            }
+            case "cancel-schedule" -> {
+                return CANCEL_SCHEDULE_INFORMATION;
+            }
             case "get-wallet-summary" -> {
                 return WALLET_SUMMARY_INFORMATION;
             }
             case "get-wallet-overall-summary" -> {
                 return FULL_WALLET_SUMMARY_INFORMATION;
             }
+            case "unrealized-pnl" -> {
+                return UNREALIZED_PNL_INFORMATION;
+            }
+            case "price-history" -> {
+                return PRICE_HISTORY_INFORMATION;
+            }
+            case "leaderboard" -> {
+                return LEADERBOARD_INFORMATION;
+            }
+            case "get-transactions" -> {
+                return GET_TRANSACTIONS_INFORMATION;
+            }
             case "logout" -> {
                 return LOGOUT_INFORMATION;
             }
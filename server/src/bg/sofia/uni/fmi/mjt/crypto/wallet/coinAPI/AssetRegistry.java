@@ -0,0 +1,62 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class AssetRegistry {
+    private static final VarHandle CODES = MethodHandles.arrayElementVarHandle(String[].class);
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int UNKNOWN_INDEX = -1;
+    private static final AssetRegistry SHARED_REGISTRY = new AssetRegistry();
+
+    private final Map<String, Integer> indexes;
+    private volatile String[] codes;
+    private int size;
+
+    private AssetRegistry() {
+        indexes = new ConcurrentHashMap<>();
+        codes = new String[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    public static AssetRegistry shared() {
+        return SHARED_REGISTRY;
+    }
+
+    public int indexOf(String code) {
+        Integer index = indexes.get(code);
+        return index == null ? UNKNOWN_INDEX : index;
+    }
+
+    public synchronized int intern(String code) {
+        Integer existingIndex = indexes.get(code);
+        if (existingIndex != null) {
+            return existingIndex;
+        }
+
+        String[] currentCodes = codes;
+        if (size == currentCodes.length) {
+            currentCodes = Arrays.copyOf(currentCodes, size * 2);
+        }
+
+        int index = size;
+        CODES.setRelease(currentCodes, index, code);
+        codes = currentCodes;
+        size++;
+        indexes.put(code, index);
+
+        return index;
+    }
+
+    public String getCode(int index) {
+        String[] currentCodes = codes;
+        return index >= 0 && index < currentCodes.length ? (String) CODES.getAcquire(currentCodes, index) : null;
+    }
+
+    public int size() {
+        return indexes.size();
+    }
+}
@@ -0,0 +1,54 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class CacheStatistics {
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private final LongAdder negativeHits;
+
+    public CacheStatistics() {
+        hits = new LongAdder();
+        misses = new LongAdder();
+        evictions = new LongAdder();
+        negativeHits = new LongAdder();
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    void recordNegativeHit() {
+        negativeHits.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getNegativeHits() {
+        return negativeHits.sum();
+    }
+
+    public double getHitRatio() {
+        long lookups = getHits() + getMisses();
+        return lookups == 0 ? 0 : (double) getHits() / lookups;
+    }
+}
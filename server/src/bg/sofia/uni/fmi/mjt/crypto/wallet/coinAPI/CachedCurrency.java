@@ -1,27 +1,28 @@
 package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
 
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-
 public class CachedCurrency {
-    private double currentPrice;
-    private LocalDateTime lastUpdate;
+    private final double currentPrice;
+    private final long lastUpdateMillis;
+    private transient volatile long lastAccess;
 
-    public CachedCurrency(double currentPrice) {
+    public CachedCurrency(double currentPrice, long lastUpdateMillis) {
         this.currentPrice = currentPrice;
-        lastUpdate = LocalDateTime.now();
+        this.lastUpdateMillis = lastUpdateMillis;
     }
 
     public double getCurrentPrice() {
         return currentPrice;
     }
 
-    public boolean isOutOfDate() {
-        return LocalDateTime.now().isAfter(lastUpdate.plus(30, ChronoUnit.MINUTES));
+    public long getLastUpdateMillis() {
+        return lastUpdateMillis;
+    }
+
+    long getLastAccess() {
+        return lastAccess;
     }
 
-    public void update(double updatedPrice) {
-        currentPrice = updatedPrice;
-        lastUpdate = LocalDateTime.now();
+    void recordAccess(long accessSequence) {
+        lastAccess = accessSequence;
     }
 }
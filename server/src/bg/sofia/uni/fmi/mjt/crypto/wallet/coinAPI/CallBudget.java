@@ -0,0 +1,111 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+
+public class CallBudget {
+    public static final int DEFAULT_DAILY_ALLOWANCE = 100;
+    public static final int DEFAULT_HOURLY_ALLOWANCE = 20;
+    private static final long DAY_MILLIS = Duration.ofDays(1).toMillis();
+    private static final long HOUR_MILLIS = Duration.ofHours(1).toMillis();
+
+    private final Clock clock;
+    private final int dailyAllowance;
+    private final int hourlyAllowance;
+    private final Deque<Long> dailyCalls;
+    private final Deque<Long> hourlyCalls;
+    private final long[] madeCalls;
+    private final long[] deferredCalls;
+
+    public CallBudget() {
+        this(DEFAULT_DAILY_ALLOWANCE, DEFAULT_HOURLY_ALLOWANCE);
+    }
+
+    public CallBudget(int dailyAllowance, int hourlyAllowance) {
+        this(dailyAllowance, hourlyAllowance, Clock.systemUTC());
+    }
+
+    public CallBudget(int dailyAllowance, int hourlyAllowance, Clock clock) {
+        if (dailyAllowance <= 0 || hourlyAllowance <= 0) {
+            throw new IllegalArgumentException("The call allowances must be positive");
+        }
+
+        this.clock = clock;
+        this.dailyAllowance = dailyAllowance;
+        this.hourlyAllowance = hourlyAllowance;
+        dailyCalls = new ArrayDeque<>();
+        hourlyCalls = new ArrayDeque<>();
+        madeCalls = new long[CallPriority.values().length];
+        deferredCalls = new long[CallPriority.values().length];
+    }
+
+    public synchronized boolean tryAcquire(CallPriority priority) {
+        long currentMillis = clock.millis();
+        discardExpiredCalls(currentMillis);
+
+        if (!priority.fitsIn(dailyAllowance - dailyCalls.size(), dailyAllowance)
+                || !priority.fitsIn(hourlyAllowance - hourlyCalls.size(), hourlyAllowance)) {
+            deferredCalls[priority.ordinal()]++;
+            return false;
+        }
+
+        dailyCalls.addLast(currentMillis);
+        hourlyCalls.addLast(currentMillis);
+        madeCalls[priority.ordinal()]++;
+        return true;
+    }
+
+    private void discardExpiredCalls(long currentMillis) {
+        discardOlderThan(dailyCalls, currentMillis - DAY_MILLIS);
+        discardOlderThan(hourlyCalls, currentMillis - HOUR_MILLIS);
+    }
+
+    private void discardOlderThan(Deque<Long> calls, long windowStartMillis) {
+        while (!calls.isEmpty() && calls.peekFirst() <= windowStartMillis) {
+            calls.removeFirst();
+        }
+    }
+
+    public synchronized int getRemainingDailyCalls() {
+        discardExpiredCalls(clock.millis());
+        return dailyAllowance - dailyCalls.size();
+    }
+
+    public synchronized int getRemainingHourlyCalls() {
+        discardExpiredCalls(clock.millis());
+        return hourlyAllowance - hourlyCalls.size();
+    }
+
+    public int getDailyAllowance() {
+        return dailyAllowance;
+    }
+
+    public int getHourlyAllowance() {
+        return hourlyAllowance;
+    }
+
+    public synchronized long getMadeCalls(CallPriority priority) {
+        return madeCalls[priority.ordinal()];
+    }
+
+    public synchronized long getDeferredCalls(CallPriority priority) {
+        return deferredCalls[priority.ordinal()];
+    }
+
+    public synchronized Optional<Instant> getProjectedExhaustion() {
+        long currentMillis = clock.millis();
+        discardExpiredCalls(currentMillis);
+
+        if (hourlyCalls.isEmpty()) {
+            return Optional.empty();
+        }
+
+        int remainingCalls = dailyAllowance - dailyCalls.size();
+        long millisUntilExhaustion = remainingCalls * HOUR_MILLIS / hourlyCalls.size();
+        return Optional.of(Instant.ofEpochMilli(currentMillis + millisUntilExhaustion));
+    }
+}
@@ -0,0 +1,17 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+public enum CallPriority {
+    TRADE(0),
+    LIST_REFRESH(0.2),
+    REFRESH_AHEAD(0.5);
+
+    private final double reservedShare;
+
+    CallPriority(double reservedShare) {
+        this.reservedShare = reservedShare;
+    }
+
+    boolean fitsIn(int remainingCalls, int allowance) {
+        return remainingCalls > allowance * reservedShare;
+    }
+}
@@ -1,38 +1,87 @@
 package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
 
-import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CoinAPIException;
-import com.google.gson.Gson;
-
-import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.util.Arrays;
-import java.util.Collections;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CallBudgetExhaustedException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CurrencyNotFoundException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.PriceSnapshotException;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.LinkedHashMap;
-import java.util.stream.Collectors;
 
 public class CoinAPI {
-    private static final String API_KEY = "REPLACE THIS TEXT WITH API KEY";
-    private static final String ASSET_REQUEST_URI = "https://rest.coinapi.io/v1/assets";
-    private static final String HTTP_REQUEST_ERROR = "Error occurred while executing HTTP request";
-    private static final String REQUEST_FAILED_MESSAGE =
-            String.format("Could not get list of crypto currencies at this time. Please try again later.%n");
+    private static final String CACHE_SNAPSHOT_LOCATION = String.format("%s%s%s",
+            "resources", FileSystems.getDefault().getSeparator(), "coin-cache.dat");
+    private static final int OFFERINGS_LIMIT = 50;
     private static final String CURRENCY_NOT_FOUND_ERROR =
             String.format("The currency you have entered could not be found. Please enter again.%n");
-
-    private final HttpClient coinAPIClient;
+    private static final String CALL_BUDGET_EXHAUSTED_ERROR =
+            String.format("The CoinAPI call budget is exhausted for now. Please try again later.%n");
+    private static final String NO_PRICE_HISTORY_ERROR =
+            String.format("No prices have been recorded for this currency yet.%n");
+    private static final int MAX_CANDLES = 24;
+    private static final DateTimeFormatter EXHAUSTION_TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm 'UTC'").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter CANDLE_TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    private final PriceSource priceSource;
     private final CoinCache cache;
-    private final Gson gson;
+    private final CoinCacheSnapshot cacheSnapshot;
+    private final CallBudget callBudget;
+    private final PriceHistory priceHistory;
+    private CoinCacheContents savedContents;
 
     public CoinAPI() {
-        coinAPIClient = HttpClient.newBuilder().build();
+        this(new HttpPriceSource(), Path.of(CACHE_SNAPSHOT_LOCATION));
+    }
+
+    public CoinAPI(PriceSource priceSource, Path cacheSnapshotPath) {
+        this(priceSource, cacheSnapshotPath, new CallBudget());
+    }
+
+    public CoinAPI(PriceSource priceSource, Path cacheSnapshotPath, CallBudget callBudget) {
+        this(priceSource, cacheSnapshotPath, callBudget, new PriceHistory());
+    }
+
+    public CoinAPI(PriceSource priceSource, Path cacheSnapshotPath, CallBudget callBudget,
+                   PriceHistory priceHistory) {
+        this.priceSource = priceSource;
+        this.callBudget = callBudget;
+        this.priceHistory = priceHistory;
         cache = new CoinCache();
-        gson = new Gson();
+        cacheSnapshot = new CoinCacheSnapshot(cacheSnapshotPath);
+
+        cache.addPriceUpdateListener(priceHistory);
+
+        loadCacheSnapshot();
+    }
+
+    private void loadCacheSnapshot() {
+        try {
+            cache.restore(cacheSnapshot.load());
+        } catch (PriceSnapshotException exception) {
+            System.out.println(exception.getMessage());
+        }
+    }
+
+    private synchronized void saveCacheSnapshot() {
+        CoinCacheContents contents = cache.getContents();
+        if (contents == savedContents) {
+            return;
+        }
+
+        try {
+            cacheSnapshot.save(contents);
+            savedContents = contents;
+        } catch (PriceSnapshotException exception) {
+            System.out.println(exception.getMessage());
+        }
     }
 
     public String getListOfCryptoCurrencies() {
@@ -42,119 +91,160 @@ public class CoinAPI {
     }
 
     private void validateCacheIsUpToDate() {
-        if (cache.isEmpty()) {
-            initialiseCache();
+        if (!cache.hasOfferings()) {
+            if (!callBudget.tryAcquire(CallPriority.LIST_REFRESH)) {
+                throw new CallBudgetExhaustedException(CALL_BUDGET_EXHAUSTED_ERROR);
+            }
+
+            refreshCache();
         } else if (cache.isOutOfDate()) {
+            if (callBudget.tryAcquire(CallPriority.LIST_REFRESH)) {
+                refreshCache();
+            }
+        } else if (cache.isDueForRefreshAhead() && callBudget.tryAcquire(CallPriority.REFRESH_AHEAD)) {
             refreshCache();
         }
     }
 
-    private void initialiseCache() {
-        List<CurrencyDTO> validCurrencies = getCurrenciesFromHTTPRequest();
+    private void refreshCache() {
+        List<CurrencyDTO> validCurrencies = priceSource.getOfferings(OFFERINGS_LIMIT);
+        cache.updateOfferings(validCurrencies);
+        saveCacheSnapshot();
+    }
 
-        if (validCurrencies == null) {
-            throw new CoinAPIException(REQUEST_FAILED_MESSAGE);
-        }
+    public double getCoinCurrentPrice(String offeringCode) {
+        double currentPrice = getUpToDateCurrency(offeringCode, CallPriority.TRADE).getCurrentPrice();
+        saveCacheSnapshot();
 
-        cache.addListOfCurrencies(validCurrencies);
+        return currentPrice;
     }
 
-    private void refreshCache() {
-        List<CurrencyDTO> validCurrencies = getCurrenciesFromHTTPRequest();
+    private CachedCurrency getUpToDateCurrency(String offeringCode, CallPriority priority) {
+        CachedCurrency currency = cache.getFreshCurrency(offeringCode);
+        if (currency != null) {
+            return currency;
+        }
 
-        if (validCurrencies == null) {
-            throw new CoinAPIException(REQUEST_FAILED_MESSAGE);
+        if (cache.isKnownNotFound(offeringCode)) {
+            throw new CurrencyNotFoundException(CURRENCY_NOT_FOUND_ERROR);
         }
 
-        cache.updateListOfCurrencies(validCurrencies);
-    }
+        if (!callBudget.tryAcquire(priority)) {
+            return getStaleCurrency(offeringCode, priority);
+        }
 
-    private List<CurrencyDTO> getCurrenciesFromHTTPRequest() {
-        HttpRequest request = createRequestFromURI(ASSET_REQUEST_URI);
-        String coinsJSON = getResponseFromAPI(request);
+        CurrencyDTO updatedCurrency = fetchCurrency(offeringCode);
+        cache.updateCurrency(offeringCode, updatedCurrency.getPriceUSD());
 
-        if (coinsJSON.startsWith("Error")) {
-            return null;
+        return cache.getCurrency(offeringCode);
+    }
+
+    private CachedCurrency getStaleCurrency(String offeringCode, CallPriority priority) {
+        CachedCurrency staleCurrency = cache.getCurrency(offeringCode);
+        if (priority == CallPriority.TRADE || staleCurrency == null) {
+            throw new CallBudgetExhaustedException(CALL_BUDGET_EXHAUSTED_ERROR);
         }
 
-        CurrencyDTO[] coinsFromResponse = gson.fromJson(coinsJSON, CurrencyDTO[].class);
-        return getCryptoCoins(coinsFromResponse);
+        return staleCurrency;
     }
 
-    private HttpRequest createRequestFromURI(String requestURI) {
-        return HttpRequest.newBuilder()
-                .uri(URI.create(requestURI))
-                .GET()
-                .header("X-CoinAPI-Key", API_KEY)
-                .build();
+    private CurrencyDTO fetchCurrency(String offeringCode) {
+        try {
+            return priceSource.getCurrency(offeringCode);
+        } catch (CurrencyNotFoundException exception) {
+            cache.markNotFound(offeringCode);
+            throw exception;
+        }
     }
 
-    private String getResponseFromAPI(HttpRequest request) {
-        try {
-            HttpResponse<String> response = coinAPIClient.send(request, HttpResponse.BodyHandlers.ofString());
+    public PriceTable getCurrentPrices(Set<String> offeringCodes) {
+        refreshStaleOfferingsTogether(offeringCodes);
 
-            if (response.statusCode() == 200) {
-                return response.body();
-            } else {
-                return "Error: Status code " + response.statusCode();
+        try {
+            for (String offeringCode : offeringCodes) {
+                getUpToDateCurrency(offeringCode, CallPriority.LIST_REFRESH);
             }
-        } catch (InterruptedException | IOException exception) {
-            throw new CoinAPIException(HTTP_REQUEST_ERROR, exception);
+        } finally {
+            saveCacheSnapshot();
         }
+
+        return cache.getPriceTable();
     }
 
-    private List<CurrencyDTO> getCryptoCoins(CurrencyDTO[] coins) {
-        return Arrays.stream(coins)
-                .filter(CurrencyDTO::isCrypto)
-                .filter(CurrencyDTO::hasValidPrice)
-                .limit(50)
-                .sorted(Collections.reverseOrder())
-                .collect(Collectors.toList());
+    private void refreshStaleOfferingsTogether(Set<String> offeringCodes) {
+        Set<String> listedCodes = new HashSet<>(cache.getContents().getOfferingCodes());
+        long staleListedCodes = offeringCodes.stream()
+                .filter(listedCodes::contains)
+                .map(cache::getCurrency)
+                .filter(currency -> currency == null || cache.isOutOfDate(currency))
+                .count();
+
+        if (staleListedCodes > 1 && callBudget.tryAcquire(CallPriority.LIST_REFRESH)) {
+            refreshCache();
+        }
     }
 
-    public double getCoinCurrentPrice(String offeringCode) {
-        validateCurrencyIsUpToDate(offeringCode);
+    public String getCacheStatistics() {
+        CacheStatistics statistics = cache.getStatistics();
 
-        CachedCurrency currency = cache.getCurrency(offeringCode);
-        return currency.getCurrentPrice();
+        return String.format("Coin cache statistics:%n") +
+                String.format("Cached currencies: %d/%d%n", cache.getSize(), cache.getCapacity()) +
+                String.format("Hits: %d, Misses: %d, Hit ratio: %.2f%%%n",
+                        statistics.getHits(), statistics.getMisses(), statistics.getHitRatio() * 100) +
+                String.format("Evictions: %d%n", statistics.getEvictions()) +
+                String.format("Requests for unknown currencies answered from cache: %d%n",
+                        statistics.getNegativeHits());
     }
 
-    private void validateCurrencyIsUpToDate(String offeringCode) {
-        if (!cache.containsCurrency(offeringCode)) {
-            CurrencyDTO currency = getCurrencyFromHTTPRequest(offeringCode);
-            cache.addCurrency(currency.getAssetId(), currency.getPriceUSD());
-        } else if (cache.getCurrency(offeringCode).isOutOfDate()) {
-            CurrencyDTO currency = getCurrencyFromHTTPRequest(offeringCode);
-            cache.updateCurrency(currency.getAssetId(), currency.getPriceUSD());
-        }
+    public PriceTable getPriceTable() {
+        return cache.getPriceTable();
     }
 
-    private CurrencyDTO getCurrencyFromHTTPRequest(String offeringCode) {
-        final String completeURI = String.format("%s/%s", ASSET_REQUEST_URI, offeringCode);
-        HttpRequest request = createRequestFromURI(completeURI);
-        String coinsJSON = getResponseFromAPI(request);
+    public AssetRegistry getAssetRegistry() {
+        return cache.getPriceTable().getRegistry();
+    }
+
+    public void addPriceUpdateListener(PriceUpdateListener listener) {
+        cache.addPriceUpdateListener(listener);
+    }
 
-        if (coinsJSON.startsWith("Error")) {
-            throw new CoinAPIException(REQUEST_FAILED_MESSAGE);
+    public String getPriceHistory(String offeringCode, Duration interval) {
+        int assetIndex = cache.getPriceTable().indexOf(offeringCode);
+        if (assetIndex < 0) {
+            throw new CurrencyNotFoundException(CURRENCY_NOT_FOUND_ERROR);
         }
 
-        CurrencyDTO[] resultArray = gson.fromJson(coinsJSON, CurrencyDTO[].class);
-        if (resultArray.length == 0) {
-            throw new CoinAPIException(CURRENCY_NOT_FOUND_ERROR);
+        List<PriceCandle> candles = priceHistory.getCandles(assetIndex, interval.toMillis(), MAX_CANDLES);
+        if (candles.isEmpty()) {
+            return NO_PRICE_HISTORY_ERROR;
         }
 
-        return resultArray[0];
-    }
+        StringBuilder builder = new StringBuilder(String.format("Price history of %s (UTC):%n", offeringCode));
+        for (PriceCandle candle : candles) {
+            builder.append(String.format("%s Open: $%f, High: $%f, Low: $%f, Close: $%f, Samples: %d%n",
+                    CANDLE_TIME_FORMATTER.format(Instant.ofEpochMilli(candle.getStartMillis())),
+                    candle.getOpen(), candle.getHigh(), candle.getLow(), candle.getClose(), candle.getSamples()));
+        }
 
-    public Map<String, Double> getSpecificCurrentPrices(Set<String> offeringCodes) {
-        Map<String, Double> currencyPrices = new LinkedHashMap<>();
-        for (String offeringCode : offeringCodes) {
-            validateCurrencyIsUpToDate(offeringCode);
+        return builder.toString();
+    }
 
-            double currencyPrice = getCoinCurrentPrice(offeringCode);
-            currencyPrices.put(offeringCode, currencyPrice);
+    public String getCallBudgetReport() {
+        String projectedExhaustion = callBudget.getProjectedExhaustion()
+                .map(EXHAUSTION_TIME_FORMATTER::format)
+                .orElse("no calls in the last hour");
+
+        StringBuilder builder = new StringBuilder(String.format("CoinAPI call budget:%n"));
+        builder.append(String.format("Remaining today: %d/%d%n",
+                callBudget.getRemainingDailyCalls(), callBudget.getDailyAllowance()));
+        builder.append(String.format("Remaining this hour: %d/%d%n",
+                callBudget.getRemainingHourlyCalls(), callBudget.getHourlyAllowance()));
+        for (CallPriority priority : CallPriority.values()) {
+            builder.append(String.format("%s calls made: %d, deferred: %d%n", priority,
+                    callBudget.getMadeCalls(priority), callBudget.getDeferredCalls(priority)));
         }
+        builder.append(String.format("Projected exhaustion at the current rate: %s%n", projectedExhaustion));
 
-        return currencyPrices;
+        return builder.toString();
     }
 }
@@ -1,60 +1,256 @@
 package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
 
-import java.util.LinkedHashMap;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class CoinCache {
     private static final int OUT_OF_DATE_CURRENCIES_LIMIT = 5;
-    private final Map<String, CachedCurrency> cache;
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(30);
+    private static final Duration REFRESH_AHEAD_WINDOW = Duration.ofMinutes(5);
+    private static final Duration NOT_FOUND_TIME_TO_LIVE = Duration.ofMinutes(5);
+    private static final int DEFAULT_CAPACITY = 512;
+    private static final int NOT_FOUND_CAPACITY = 1024;
+    private static final long EXPIRY_SWEEP_INTERVAL_MILLIS = Duration.ofMinutes(1).toMillis();
+
+    private final Clock clock;
+    private final int capacity;
+    private final long timeToLiveMillis;
+    private final long refreshAheadMillis;
+    private final long notFoundTimeToLiveMillis;
+    private final Map<String, Long> notFoundExpirations;
+    private final CacheStatistics statistics;
+    private final PriceTable priceTable;
+    private final List<PriceUpdateListener> priceUpdateListeners;
+    private final Map<String, CachedCurrency> currencies;
+    private final AtomicLong accessSequence;
+    private final AtomicLong contentsVersion;
+    private final AtomicReference<PublishedContents> contents;
+    private volatile List<String> offeringCodes;
+    private volatile Set<String> protectedCodes;
+    private long nextExpirySweepMillis;
 
     public CoinCache() {
-        cache = new LinkedHashMap<>();
+        this(Clock.systemUTC(), DEFAULT_CAPACITY);
+    }
+
+    public CoinCache(Clock clock, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The cache capacity must be positive");
+        }
+
+        this.clock = clock;
+        this.capacity = capacity;
+        timeToLiveMillis = TIME_TO_LIVE.toMillis();
+        refreshAheadMillis = TIME_TO_LIVE.minus(REFRESH_AHEAD_WINDOW).toMillis();
+        notFoundTimeToLiveMillis = NOT_FOUND_TIME_TO_LIVE.toMillis();
+        notFoundExpirations = new ConcurrentHashMap<>();
+        statistics = new CacheStatistics();
+        priceTable = new PriceTable();
+        priceUpdateListeners = new CopyOnWriteArrayList<>();
+        currencies = new ConcurrentHashMap<>(DEFAULT_CAPACITY);
+        accessSequence = new AtomicLong();
+        contentsVersion = new AtomicLong();
+        contents = new AtomicReference<>(new PublishedContents(0, CoinCacheContents.empty()));
+        offeringCodes = List.of();
+        protectedCodes = Set.of();
     }
 
-    public boolean isEmpty() {
-        return cache.size() == 0;
+    public boolean hasOfferings() {
+        return !getContents().getOfferingCodes().isEmpty();
     }
 
-    public void addListOfCurrencies(List<CurrencyDTO> currencies) {
-        for (CurrencyDTO currency : currencies) {
-            addCurrency(currency.getAssetId(), currency.getPriceUSD());
+    public boolean isOutOfDate() {
+        return isOlderThan(timeToLiveMillis);
+    }
+
+    public boolean isDueForRefreshAhead() {
+        return isOlderThan(refreshAheadMillis);
+    }
+
+    private boolean isOlderThan(long ageMillis) {
+        CoinCacheContents currentContents = getContents();
+        int offeringCount = currentContents.getOfferingCodes().size();
+        if (offeringCount == 0) {
+            return true;
         }
+
+        int oldestIndex = Math.min(OUT_OF_DATE_CURRENCIES_LIMIT, offeringCount) - 1;
+        return clock.millis() - currentContents.getOfferingUpdate(oldestIndex) > ageMillis;
     }
 
-    public void addCurrency(String assetID, double currentPrice) {
-        cache.put(assetID, new CachedCurrency(currentPrice));
+    public boolean isOutOfDate(CachedCurrency currency) {
+        return isOutOfDate(currency.getLastUpdateMillis());
     }
 
-    public boolean isOutOfDate() {
-        int outOfDateCounter = 0;
-        for (CachedCurrency currency : cache.values()) {
-            if (currency.isOutOfDate()) {
-                outOfDateCounter++;
+    private boolean isOutOfDate(long lastUpdateMillis) {
+        return clock.millis() - lastUpdateMillis > timeToLiveMillis;
+    }
+
+    public void updateOfferings(List<CurrencyDTO> offerings) {
+        int[] updatedIndexes = new int[offerings.size()];
+        synchronized (this) {
+            long updateMillis = clock.millis();
+            List<String> updatedOfferingCodes = new ArrayList<>();
+
+            for (int i = 0; i < offerings.size(); i++) {
+                CurrencyDTO offering = offerings.get(i);
+                put(offering.getAssetId(), new CachedCurrency(offering.getPriceUSD(), updateMillis));
+                updatedIndexes[i] = priceTable.update(offering.getAssetId(), offering.getPriceUSD(), updateMillis);
+                updatedOfferingCodes.add(offering.getAssetId());
             }
+
+            setOfferingCodes(updatedOfferingCodes);
+            evictIfNeeded();
         }
 
-        return outOfDateCounter >= OUT_OF_DATE_CURRENCIES_LIMIT;
+        for (int assetIndex : updatedIndexes) {
+            notifyPriceUpdate(assetIndex);
+        }
     }
 
-    public void updateListOfCurrencies(List<CurrencyDTO> currencies) {
-        for (CurrencyDTO currency : currencies) {
-            updateCurrency(currency.getAssetId(), currency.getPriceUSD());
+    public void updateCurrency(String assetID, double currentPrice) {
+        int assetIndex;
+        synchronized (this) {
+            long updateMillis = clock.millis();
+            put(assetID, new CachedCurrency(currentPrice, updateMillis));
+            assetIndex = priceTable.update(assetID, currentPrice, updateMillis);
+            notFoundExpirations.remove(assetID);
+
+            evictIfNeeded();
         }
+
+        notifyPriceUpdate(assetIndex);
     }
 
-    public void updateCurrency(String assetID, double currentPrice) {
-        cache.get(assetID).update(currentPrice);
+    private void put(String assetID, CachedCurrency currency) {
+        currency.recordAccess(accessSequence.incrementAndGet());
+        currencies.put(assetID, currency);
+    }
+
+    private void notifyPriceUpdate(int assetIndex) {
+        priceTable.readPrice(assetIndex, this::notifyListeners);
+    }
+
+    private void notifyListeners(int assetIndex, double price, long updateMillis) {
+        for (PriceUpdateListener listener : priceUpdateListeners) {
+            listener.onPriceUpdate(assetIndex, price, updateMillis);
+        }
+    }
+
+    public void addPriceUpdateListener(PriceUpdateListener listener) {
+        priceUpdateListeners.add(listener);
+    }
+
+    private void setOfferingCodes(List<String> updatedOfferingCodes) {
+        offeringCodes = List.copyOf(updatedOfferingCodes);
+        protectedCodes = new HashSet<>(offeringCodes);
+    }
+
+    private void evictIfNeeded() {
+        long currentMillis = clock.millis();
+        if (currentMillis >= nextExpirySweepMillis) {
+            nextExpirySweepMillis = currentMillis + EXPIRY_SWEEP_INTERVAL_MILLIS;
+            evictOutOfDateCurrencies();
+        }
+
+        if (currencies.size() > capacity) {
+            evictLeastRecentlyUsed(currencies.size() - capacity);
+        }
+        contentsVersion.incrementAndGet();
+    }
+
+    private void evictLeastRecentlyUsed(int evictionCount) {
+        List<Map.Entry<String, CachedCurrency>> candidates = new ArrayList<>();
+        for (Map.Entry<String, CachedCurrency> currency : currencies.entrySet()) {
+            if (!protectedCodes.contains(currency.getKey())) {
+                candidates.add(Map.entry(currency.getKey(), currency.getValue()));
+            }
+        }
+        candidates.sort(Comparator.comparingLong(currency -> currency.getValue().getLastAccess()));
+
+        for (int i = 0; i < Math.min(evictionCount, candidates.size()); i++) {
+            String offeringCode = candidates.get(i).getKey();
+            currencies.remove(offeringCode);
+            priceTable.invalidate(offeringCode);
+            statistics.recordEviction();
+        }
+    }
+
+    private void evictOutOfDateCurrencies() {
+        Iterator<Map.Entry<String, CachedCurrency>> iterator = currencies.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, CachedCurrency> currency = iterator.next();
+            if (!protectedCodes.contains(currency.getKey()) && isOutOfDate(currency.getValue())) {
+                iterator.remove();
+                priceTable.invalidate(currency.getKey());
+                statistics.recordEviction();
+            }
+        }
+    }
+
+    public void markNotFound(String offeringCode) {
+        long currentMillis = clock.millis();
+        if (notFoundExpirations.size() >= NOT_FOUND_CAPACITY) {
+            notFoundExpirations.values().removeIf(expiration -> expiration <= currentMillis);
+        }
+
+        if (notFoundExpirations.size() < NOT_FOUND_CAPACITY) {
+            notFoundExpirations.put(offeringCode, currentMillis + notFoundTimeToLiveMillis);
+        }
+    }
+
+    public boolean isKnownNotFound(String offeringCode) {
+        Long expiration = notFoundExpirations.get(offeringCode);
+        if (expiration == null) {
+            return false;
+        }
+
+        if (expiration <= clock.millis()) {
+            notFoundExpirations.remove(offeringCode, expiration);
+            return false;
+        }
+
+        statistics.recordNegativeHit();
+        return true;
+    }
+
+    public synchronized void restore(CoinCacheContents savedContents) {
+        for (Map.Entry<String, CachedCurrency> currency : savedContents.getCurrencies().entrySet()) {
+            if (!isOutOfDate(currency.getValue()) && !currencies.containsKey(currency.getKey())) {
+                put(currency.getKey(), currency.getValue());
+                priceTable.update(currency.getKey(), currency.getValue().getCurrentPrice(),
+                        currency.getValue().getLastUpdateMillis());
+            }
+        }
+
+        if (offeringCodes.isEmpty() && currencies.keySet().containsAll(savedContents.getOfferingCodes())) {
+            setOfferingCodes(savedContents.getOfferingCodes());
+        }
+
+        evictIfNeeded();
     }
 
     public String formatListOfOfferings() {
+        CoinCacheContents currentContents = getContents();
+
         StringBuilder builder = new StringBuilder();
         builder.append("List of offerings: ").append(System.lineSeparator());
 
         int offeringIndex = 1;
-        for (Map.Entry<String, CachedCurrency> currency : cache.entrySet()) {
+        for (String offeringCode : currentContents.getOfferingCodes()) {
             builder.append(String.format("%2d) Offering code: %4s, Current price: $%f%n",
-                    offeringIndex, currency.getKey(), currency.getValue().getCurrentPrice()));
+                    offeringIndex, offeringCode, currentContents.getCurrency(offeringCode).getCurrentPrice()));
 
             offeringIndex++;
         }
@@ -62,11 +258,62 @@ public class CoinCache {
         return builder.toString();
     }
 
-    public boolean containsCurrency(String offeringCode) {
-        return cache.containsKey(offeringCode);
+    public CachedCurrency getCurrency(String offeringCode) {
+        CachedCurrency currency = currencies.get(offeringCode);
+        if (currency != null) {
+            currency.recordAccess(accessSequence.incrementAndGet());
+        }
+
+        return currency;
     }
 
-    public CachedCurrency getCurrency(String offeringCode) {
-        return cache.get(offeringCode);
+    public CachedCurrency getFreshCurrency(String offeringCode) {
+        CachedCurrency currency = getCurrency(offeringCode);
+        if (currency == null || isOutOfDate(currency)) {
+            statistics.recordMiss();
+            return null;
+        }
+
+        statistics.recordHit();
+        return currency;
+    }
+
+    public int getSize() {
+        return currencies.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public PriceTable getPriceTable() {
+        return priceTable;
+    }
+
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    public CoinCacheContents getContents() {
+        long version = contentsVersion.get();
+        PublishedContents currentContents = contents.get();
+        if (currentContents.version >= version) {
+            return currentContents.contents;
+        }
+
+        PublishedContents newContents =
+                new PublishedContents(version, new CoinCacheContents(currencies, offeringCodes));
+        return contents.accumulateAndGet(newContents,
+                (published, candidate) -> candidate.version > published.version ? candidate : published).contents;
+    }
+
+    private static final class PublishedContents {
+        private final long version;
+        private final CoinCacheContents contents;
+
+        private PublishedContents(long version, CoinCacheContents contents) {
+            this.version = version;
+            this.contents = contents;
+        }
     }
 }
@@ -0,0 +1,44 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CoinCacheContents {
+    private final Map<String, CachedCurrency> currencies;
+    private final List<String> offeringCodes;
+    private final long[] sortedOfferingUpdates;
+
+    public CoinCacheContents(Map<String, CachedCurrency> currencies, List<String> offeringCodes) {
+        this.currencies = Collections.unmodifiableMap(new LinkedHashMap<>(currencies));
+        this.offeringCodes = List.copyOf(offeringCodes);
+
+        sortedOfferingUpdates = new long[this.offeringCodes.size()];
+        for (int i = 0; i < sortedOfferingUpdates.length; i++) {
+            sortedOfferingUpdates[i] = this.currencies.get(this.offeringCodes.get(i)).getLastUpdateMillis();
+        }
+        Arrays.sort(sortedOfferingUpdates);
+    }
+
+    public static CoinCacheContents empty() {
+        return new CoinCacheContents(Map.of(), List.of());
+    }
+
+    public Map<String, CachedCurrency> getCurrencies() {
+        return currencies;
+    }
+
+    public List<String> getOfferingCodes() {
+        return offeringCodes;
+    }
+
+    public CachedCurrency getCurrency(String offeringCode) {
+        return currencies.get(offeringCode);
+    }
+
+    long getOfferingUpdate(int oldestIndex) {
+        return sortedOfferingUpdates[oldestIndex];
+    }
+}
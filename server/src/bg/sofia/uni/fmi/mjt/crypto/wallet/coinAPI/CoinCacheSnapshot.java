@@ -0,0 +1,160 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.PriceSnapshotException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class CoinCacheSnapshot {
+    private static final int MAGIC_NUMBER = 0x434F494E;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    private static final int MAX_ASSET_ID_LENGTH = 22;
+    private static final int RECORD_SIZE = 2 + MAX_ASSET_ID_LENGTH + Double.BYTES + Long.BYTES;
+    private static final byte OFFERING_FLAG = 1;
+    private static final String SNAPSHOT_SAVING_ERROR = "An error occurred while saving the price snapshot";
+    private static final String SNAPSHOT_LOADING_ERROR = "An error occurred while loading the price snapshot";
+    private static final String SNAPSHOT_FORMAT_ERROR =
+            "The price snapshot has an unknown format. The snapshot has been ignored.";
+
+    private final Path snapshotPath;
+
+    public CoinCacheSnapshot(Path snapshotPath) {
+        this.snapshotPath = snapshotPath;
+    }
+
+    public void save(CoinCacheContents contents) {
+        Map<String, CachedCurrency> storableCurrencies = getStorableCurrencies(contents.getCurrencies());
+        Path temporaryPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+
+        try {
+            if (snapshotPath.getParent() != null) {
+                Files.createDirectories(snapshotPath.getParent());
+            }
+
+            writeRecords(temporaryPath, storableCurrencies, contents.getOfferingCodes());
+            Files.move(temporaryPath, snapshotPath,
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new PriceSnapshotException(SNAPSHOT_SAVING_ERROR, exception);
+        }
+    }
+
+    private Map<String, CachedCurrency> getStorableCurrencies(Map<String, CachedCurrency> currencies) {
+        Map<String, CachedCurrency> storableCurrencies = new LinkedHashMap<>();
+        for (Map.Entry<String, CachedCurrency> currency : currencies.entrySet()) {
+            if (currency.getKey().getBytes(StandardCharsets.UTF_8).length <= MAX_ASSET_ID_LENGTH) {
+                storableCurrencies.put(currency.getKey(), currency.getValue());
+            }
+        }
+
+        return storableCurrencies;
+    }
+
+    private void writeRecords(Path path, Map<String, CachedCurrency> currencies, List<String> offeringCodes)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + RECORD_SIZE * currencies.size());
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            buffer.putInt(MAGIC_NUMBER).putInt(FORMAT_VERSION).putInt(currencies.size()).putInt(0);
+
+            for (String offeringCode : offeringCodes) {
+                if (currencies.containsKey(offeringCode)) {
+                    writeRecord(buffer, offeringCode, currencies.get(offeringCode), OFFERING_FLAG);
+                }
+            }
+            Set<String> offeringSet = new HashSet<>(offeringCodes);
+            for (Map.Entry<String, CachedCurrency> currency : currencies.entrySet()) {
+                if (!offeringSet.contains(currency.getKey())) {
+                    writeRecord(buffer, currency.getKey(), currency.getValue(), (byte) 0);
+                }
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private void writeRecord(ByteBuffer buffer, String assetID, CachedCurrency currency, byte flags) {
+        byte[] assetBytes = assetID.getBytes(StandardCharsets.UTF_8);
+
+        buffer.put(flags);
+        buffer.put((byte) assetBytes.length);
+        buffer.put(assetBytes);
+        buffer.position(buffer.position() + MAX_ASSET_ID_LENGTH - assetBytes.length);
+        buffer.putDouble(currency.getCurrentPrice());
+        buffer.putLong(currency.getLastUpdateMillis());
+    }
+
+    public CoinCacheContents load() {
+        Map<String, CachedCurrency> currencies = new LinkedHashMap<>();
+        List<String> offeringCodes = new ArrayList<>();
+        if (!Files.exists(snapshotPath)) {
+            return CoinCacheContents.empty();
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotPath));
+            int recordCount = readHeader(buffer, buffer.capacity());
+
+            for (int i = 0; i < recordCount; i++) {
+                readRecord(buffer, currencies, offeringCodes);
+            }
+        } catch (IOException exception) {
+            throw new PriceSnapshotException(SNAPSHOT_LOADING_ERROR, exception);
+        }
+
+        return new CoinCacheContents(currencies, offeringCodes);
+    }
+
+    private int readHeader(ByteBuffer buffer, long fileSize) {
+        if (fileSize < HEADER_SIZE || buffer.getInt() != MAGIC_NUMBER || buffer.getInt() != FORMAT_VERSION) {
+            throw new PriceSnapshotException(SNAPSHOT_FORMAT_ERROR);
+        }
+
+        int recordCount = buffer.getInt();
+        buffer.getInt();
+        if (recordCount < 0 || HEADER_SIZE + (long) RECORD_SIZE * recordCount > fileSize) {
+            throw new PriceSnapshotException(SNAPSHOT_FORMAT_ERROR);
+        }
+
+        return recordCount;
+    }
+
+    private void readRecord(ByteBuffer buffer, Map<String, CachedCurrency> currencies,
+                            List<String> offeringCodes) {
+        byte flags = buffer.get();
+        int assetLength = buffer.get();
+        if (assetLength <= 0 || assetLength > MAX_ASSET_ID_LENGTH) {
+            throw new PriceSnapshotException(SNAPSHOT_FORMAT_ERROR);
+        }
+
+        byte[] assetBytes = new byte[assetLength];
+        buffer.get(assetBytes);
+        buffer.position(buffer.position() + MAX_ASSET_ID_LENGTH - assetLength);
+        double price = buffer.getDouble();
+        long lastUpdateMillis = buffer.getLong();
+
+        String assetID = new String(assetBytes, StandardCharsets.UTF_8);
+        currencies.put(assetID, new CachedCurrency(price, lastUpdateMillis));
+        if ((flags & OFFERING_FLAG) != 0) {
+            offeringCodes.add(assetID);
+        }
+    }
+}
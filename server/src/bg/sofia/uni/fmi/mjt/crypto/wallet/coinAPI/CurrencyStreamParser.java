@@ -0,0 +1,146 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+public class CurrencyStreamParser {
+    private static final String ASSET_ID_FIELD = "asset_id";
+    private static final String TYPE_IS_CRYPTO_FIELD = "type_is_crypto";
+    private static final String PRICE_USD_FIELD = "price_usd";
+
+    public List<CurrencyDTO> parseOfferings(InputStream body, int limit) throws IOException {
+        PriorityQueue<CurrencyDTO> mostExpensive = new PriorityQueue<>(limit + 1);
+
+        try (JsonReader reader = createReader(body)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                CurrencyDTO currency = readOffering(reader, mostExpensive, limit);
+                if (currency != null) {
+                    mostExpensive.add(currency);
+                    if (mostExpensive.size() > limit) {
+                        mostExpensive.poll();
+                    }
+                }
+            }
+            reader.endArray();
+        }
+
+        List<CurrencyDTO> offerings = new ArrayList<>(mostExpensive);
+        offerings.sort(Collections.reverseOrder());
+        return offerings;
+    }
+
+    public CurrencyDTO parseFirst(InputStream body) throws IOException {
+        try (JsonReader reader = createReader(body)) {
+            reader.beginArray();
+            if (!reader.hasNext()) {
+                return null;
+            }
+
+            return readCurrency(reader);
+        }
+    }
+
+    private JsonReader createReader(InputStream body) {
+        Reader bodyReader = new InputStreamReader(body, StandardCharsets.UTF_8);
+        return new JsonReader(bodyReader);
+    }
+
+    private CurrencyDTO readOffering(JsonReader reader, PriorityQueue<CurrencyDTO> mostExpensive, int limit)
+            throws IOException {
+        String assetId = null;
+        int typeIsCrypto = -1;
+        double priceUSD = Double.NaN;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case ASSET_ID_FIELD -> assetId = readString(reader);
+                case TYPE_IS_CRYPTO_FIELD -> typeIsCrypto = readInt(reader);
+                case PRICE_USD_FIELD -> priceUSD = readDouble(reader);
+                default -> reader.skipValue();
+            }
+
+            if (typeIsCrypto == 0 || priceUSD == 0 || cannotEnterTopOfferings(priceUSD, mostExpensive, limit)) {
+                skipRemainingFields(reader);
+                reader.endObject();
+                return null;
+            }
+        }
+        reader.endObject();
+
+        if (assetId == null || typeIsCrypto != 1 || Double.isNaN(priceUSD)) {
+            return null;
+        }
+
+        return new CurrencyDTO(assetId, typeIsCrypto, priceUSD);
+    }
+
+    private boolean cannotEnterTopOfferings(double priceUSD, PriorityQueue<CurrencyDTO> mostExpensive, int limit) {
+        return !Double.isNaN(priceUSD) && mostExpensive.size() >= limit
+                && priceUSD <= mostExpensive.peek().getPriceUSD();
+    }
+
+    private CurrencyDTO readCurrency(JsonReader reader) throws IOException {
+        String assetId = null;
+        int typeIsCrypto = 0;
+        double priceUSD = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case ASSET_ID_FIELD -> assetId = readString(reader);
+                case TYPE_IS_CRYPTO_FIELD -> typeIsCrypto = readInt(reader);
+                case PRICE_USD_FIELD -> priceUSD = readDouble(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new CurrencyDTO(assetId, typeIsCrypto, priceUSD);
+    }
+
+    private void skipRemainingFields(JsonReader reader) throws IOException {
+        while (reader.hasNext()) {
+            reader.nextName();
+            reader.skipValue();
+        }
+    }
+
+    private String readString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        return reader.nextString();
+    }
+
+    private int readInt(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return 0;
+        }
+
+        return reader.nextInt();
+    }
+
+    private double readDouble(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return 0;
+        }
+
+        return reader.nextDouble();
+    }
+}
@@ -0,0 +1,90 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CoinAPIException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CurrencyNotFoundException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+public class HttpPriceSource implements PriceSource {
+    private static final String API_KEY = "REPLACE THIS TEXT WITH API KEY";
+    private static final String ASSET_REQUEST_URI = "https://rest.coinapi.io/v1/assets";
+    private static final String HTTP_REQUEST_ERROR = "Error occurred while executing HTTP request";
+    private static final String REQUEST_FAILED_MESSAGE =
+            String.format("Could not get list of crypto currencies at this time. Please try again later.%n");
+    private static final String CURRENCY_NOT_FOUND_ERROR =
+            String.format("The currency you have entered could not be found. Please enter again.%n");
+
+    private final HttpClient coinAPIClient;
+    private final String apiKey;
+    private final CurrencyStreamParser parser;
+
+    public HttpPriceSource() {
+        this(API_KEY);
+    }
+
+    public HttpPriceSource(String apiKey) {
+        this.apiKey = apiKey;
+        coinAPIClient = HttpClient.newBuilder().build();
+        parser = new CurrencyStreamParser();
+    }
+
+    @Override
+    public List<CurrencyDTO> getOfferings(int limit) {
+        HttpRequest request = createRequestFromURI(ASSET_REQUEST_URI);
+
+        try (InputStream coinsJSON = getResponseFromAPI(request)) {
+            return parser.parseOfferings(coinsJSON, limit);
+        } catch (IOException | IllegalStateException | NumberFormatException exception) {
+            throw new CoinAPIException(REQUEST_FAILED_MESSAGE, exception);
+        }
+    }
+
+    private HttpRequest createRequestFromURI(String requestURI) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(requestURI))
+                .GET()
+                .header("X-CoinAPI-Key", apiKey)
+                .build();
+    }
+
+    private InputStream getResponseFromAPI(HttpRequest request) {
+        try {
+            HttpResponse<InputStream> response =
+                    coinAPIClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+
+            if (response.statusCode() != 200) {
+                response.body().close();
+                throw new CoinAPIException(REQUEST_FAILED_MESSAGE);
+            }
+
+            return response.body();
+        } catch (InterruptedException | IOException exception) {
+            throw new CoinAPIException(HTTP_REQUEST_ERROR, exception);
+        }
+    }
+
+    @Override
+    public CurrencyDTO getCurrency(String offeringCode) {
+        final String completeURI = String.format("%s/%s", ASSET_REQUEST_URI, offeringCode);
+        HttpRequest request = createRequestFromURI(completeURI);
+
+        CurrencyDTO currency;
+        try (InputStream coinsJSON = getResponseFromAPI(request)) {
+            currency = parser.parseFirst(coinsJSON);
+        } catch (IOException | IllegalStateException | NumberFormatException exception) {
+            throw new CoinAPIException(REQUEST_FAILED_MESSAGE, exception);
+        }
+
+        if (currency == null) {
+            throw new CurrencyNotFoundException(CURRENCY_NOT_FOUND_ERROR);
+        }
+
+        return currency;
+    }
+}
@@ -0,0 +1,43 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+public class PriceCandle {
+    private final long startMillis;
+    private final double open;
+    private final double high;
+    private final double low;
+    private final double close;
+    private final int samples;
+
+    public PriceCandle(long startMillis, double open, double high, double low, double close, int samples) {
+        this.startMillis = startMillis;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.samples = samples;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public double getOpen() {
+        return open;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+
+    public double getLow() {
+        return low;
+    }
+
+    public double getClose() {
+        return close;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+}
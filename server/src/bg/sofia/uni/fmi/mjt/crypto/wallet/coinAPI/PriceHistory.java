@@ -0,0 +1,62 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class PriceHistory implements PriceUpdateListener {
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int INITIAL_ASSETS = 64;
+
+    private final int capacity;
+    private volatile PriceRing[] rings;
+
+    public PriceHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PriceHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The price history capacity must be positive");
+        }
+
+        this.capacity = capacity;
+        rings = new PriceRing[INITIAL_ASSETS];
+    }
+
+    @Override
+    public void onPriceUpdate(int assetIndex, double price, long updateMillis) {
+        getOrCreateRing(assetIndex).record(price, updateMillis);
+    }
+
+    private PriceRing getOrCreateRing(int assetIndex) {
+        PriceRing[] currentRings = rings;
+        if (assetIndex < currentRings.length && currentRings[assetIndex] != null) {
+            return currentRings[assetIndex];
+        }
+
+        synchronized (this) {
+            if (assetIndex >= rings.length) {
+                rings = Arrays.copyOf(rings, Math.max(assetIndex + 1, rings.length * 2));
+            }
+
+            if (rings[assetIndex] == null) {
+                rings[assetIndex] = new PriceRing(capacity);
+            }
+
+            return rings[assetIndex];
+        }
+    }
+
+    public List<PriceCandle> getCandles(int assetIndex, long intervalMillis, int maxCandles) {
+        PriceRing[] currentRings = rings;
+        if (assetIndex < 0 || assetIndex >= currentRings.length || currentRings[assetIndex] == null) {
+            return List.of();
+        }
+
+        return currentRings[assetIndex].getCandles(intervalMillis, maxCandles);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
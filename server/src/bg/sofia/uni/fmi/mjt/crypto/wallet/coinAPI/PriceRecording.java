@@ -0,0 +1,95 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CoinAPIException;
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+class PriceRecording {
+    private static final String OFFERINGS_KEY = "offerings";
+    private static final String CURRENCY_KEY_PREFIX = "currency-";
+    private static final String RECORDING_ERROR = "An error occurred while accessing the price recording";
+
+    private final Path directory;
+    private final Map<String, Integer> sequencePerKey;
+    private final Gson gson;
+
+    PriceRecording(Path directory) {
+        this.directory = directory;
+        sequencePerKey = new HashMap<>();
+        gson = new Gson();
+    }
+
+    static String offeringsKey(int limit) {
+        return String.format("%s-%d", OFFERINGS_KEY, limit);
+    }
+
+    static String currencyKey(String offeringCode) {
+        return CURRENCY_KEY_PREFIX + offeringCode;
+    }
+
+    void write(String key, RecordedResponse response) {
+        int sequence = nextSequence(key);
+
+        try {
+            Files.createDirectories(directory);
+            try (Writer writer = Files.newBufferedWriter(getPath(key, sequence), StandardCharsets.UTF_8)) {
+                gson.toJson(response, writer);
+            }
+        } catch (IOException exception) {
+            throw new CoinAPIException(RECORDING_ERROR, exception);
+        }
+    }
+
+    RecordedResponse read(String key) {
+        int sequence = nextSequence(key);
+        Path path = getPath(key, sequence);
+
+        if (!Files.exists(path) && sequence > 1) {
+            sequencePerKey.put(key, sequence - 1);
+            path = getPath(key, sequence - 1);
+        }
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, RecordedResponse.class);
+        } catch (IOException exception) {
+            throw new CoinAPIException(RECORDING_ERROR, exception);
+        }
+    }
+
+    private int nextSequence(String key) {
+        return sequencePerKey.merge(key, 1, Integer::sum);
+    }
+
+    private Path getPath(String key, int sequence) {
+        return directory.resolve(String.format("%s-%06d.json", key, sequence));
+    }
+
+    static class RecordedResponse {
+        private final CurrencyDTO[] currencies;
+        private final String error;
+
+        RecordedResponse(CurrencyDTO[] currencies, String error) {
+            this.currencies = currencies;
+            this.error = error;
+        }
+
+        CurrencyDTO[] getCurrencies() {
+            if (error != null) {
+                throw new CoinAPIException(error);
+            }
+
+            return currencies;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class PriceRing {
+    private final long[] timestamps;
+    private final double[] prices;
+    private int oldest;
+    private int size;
+
+    PriceRing(int capacity) {
+        timestamps = new long[capacity];
+        prices = new double[capacity];
+        oldest = 0;
+        size = 0;
+    }
+
+    synchronized void record(double price, long timestamp) {
+        if (size > 0 && timestamp < timestamps[indexAt(size - 1)]) {
+            return;
+        }
+
+        if (size < timestamps.length) {
+            timestamps[indexAt(size)] = timestamp;
+            prices[indexAt(size)] = price;
+            size++;
+        } else {
+            timestamps[oldest] = timestamp;
+            prices[oldest] = price;
+            oldest = (oldest + 1) % timestamps.length;
+        }
+    }
+
+    private int indexAt(int position) {
+        return (oldest + position) % timestamps.length;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized List<PriceCandle> getCandles(long intervalMillis, int maxCandles) {
+        List<PriceCandle> candles = new ArrayList<>();
+        if (size == 0) {
+            return candles;
+        }
+
+        long newestBucket = Math.floorDiv(timestamps[indexAt(size - 1)], intervalMillis);
+        long firstBucket = newestBucket - maxCandles + 1;
+
+        int position = 0;
+        while (position < size && Math.floorDiv(timestamps[indexAt(position)], intervalMillis) < firstBucket) {
+            position++;
+        }
+
+        while (position < size) {
+            long bucket = Math.floorDiv(timestamps[indexAt(position)], intervalMillis);
+            double open = prices[indexAt(position)];
+            double high = open;
+            double low = open;
+            double close = open;
+            int samples = 0;
+
+            while (position < size && Math.floorDiv(timestamps[indexAt(position)], intervalMillis) == bucket) {
+                double price = prices[indexAt(position)];
+                high = Math.max(high, price);
+                low = Math.min(low, price);
+                close = price;
+                samples++;
+                position++;
+            }
+
+            candles.add(new PriceCandle(bucket * intervalMillis, open, high, low, close, samples));
+        }
+
+        return candles;
+    }
+}
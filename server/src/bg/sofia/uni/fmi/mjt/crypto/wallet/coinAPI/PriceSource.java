@@ -0,0 +1,9 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import java.util.List;
+
+public interface PriceSource {
+    List<CurrencyDTO> getOfferings(int limit);
+
+    CurrencyDTO getCurrency(String offeringCode);
+}
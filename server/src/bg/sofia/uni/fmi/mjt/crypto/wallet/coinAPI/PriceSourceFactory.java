@@ -0,0 +1,47 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+public class PriceSourceFactory {
+    private static final int DEFAULT_SYNTHETIC_ASSETS = 5000;
+    private static final long DEFAULT_SYNTHETIC_TICK_MILLIS = 1000;
+    private static final String UNKNOWN_SOURCE_ERROR =
+            "Unknown price source. Use http, synthetic[:assets[:tickMillis]], record:[directory] or replay:[directory]";
+
+    public static PriceSource create(String configuration) {
+        String[] parts = configuration.split(":", 2);
+
+        switch (parts[0]) {
+            case "http" -> {
+                return new HttpPriceSource();
+            }
+            case "synthetic" -> {
+                return createSyntheticSource(parts.length == 2 ? parts[1] : "");
+            }
+            case "record" -> {
+                return new RecordingPriceSource(new HttpPriceSource(), Path.of(getDirectory(parts)));
+            }
+            case "replay" -> {
+                return new ReplayPriceSource(Path.of(getDirectory(parts)));
+            }
+            default -> throw new IllegalArgumentException(UNKNOWN_SOURCE_ERROR);
+        }
+    }
+
+    private static PriceSource createSyntheticSource(String arguments) {
+        String[] splitArguments = arguments.split(":");
+        int assetCount = arguments.isEmpty() ? DEFAULT_SYNTHETIC_ASSETS : Integer.parseInt(splitArguments[0]);
+        long tickMillis = splitArguments.length < 2 ? DEFAULT_SYNTHETIC_TICK_MILLIS : Long.parseLong(splitArguments[1]);
+
+        return new SyntheticPriceSource(assetCount, Duration.ofMillis(tickMillis));
+    }
+
+    private static String getDirectory(String[] parts) {
+        if (parts.length != 2 || parts[1].isEmpty()) {
+            throw new IllegalArgumentException(UNKNOWN_SOURCE_ERROR);
+        }
+
+        return parts[1];
+    }
+}
@@ -0,0 +1,161 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+public class PriceTable {
+    private static final VarHandle PRICES = MethodHandles.arrayElementVarHandle(double[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long NO_UPDATE = 0;
+    private static final double NO_PRICE = Double.NaN;
+
+    private final AssetRegistry registry;
+    private volatile Slots slots;
+
+    public PriceTable() {
+        registry = AssetRegistry.shared();
+        slots = new Slots(INITIAL_CAPACITY);
+    }
+
+    synchronized int update(String code, double price, long updateMillis) {
+        int index = registry.intern(code);
+        ensureCapacity(index + 1);
+
+        slots.write(index, price, updateMillis);
+
+        return index;
+    }
+
+    synchronized void invalidate(String code) {
+        int index = registry.indexOf(code);
+        Slots currentSlots = slots;
+        if (index >= 0 && index < currentSlots.capacity()) {
+            currentSlots.write(index, currentSlots.prices[index], NO_UPDATE);
+        }
+    }
+
+    private void ensureCapacity(int requiredCapacity) {
+        if (requiredCapacity <= slots.capacity()) {
+            return;
+        }
+
+        slots = slots.copyOf(Math.max(requiredCapacity, slots.capacity() * 2));
+    }
+
+    public int indexOf(String code) {
+        return registry.indexOf(code);
+    }
+
+    public boolean hasPrice(int index) {
+        return getLastUpdateMillis(index) != NO_UPDATE;
+    }
+
+    public double getPrice(int index) {
+        Slots currentSlots = slots;
+        return index >= 0 && index < currentSlots.capacity() ? currentSlots.readPrice(index) : 0;
+    }
+
+    public double getPriceIfUpdated(int index) {
+        Slots currentSlots = slots;
+        if (index < 0 || index >= currentSlots.capacity()) {
+            return NO_PRICE;
+        }
+
+        while (true) {
+            long version = currentSlots.beginRead(index);
+            double price = (double) PRICES.getOpaque(currentSlots.prices, index);
+            long updateMillis = (long) LONGS.getOpaque(currentSlots.lastUpdates, index);
+            if (currentSlots.endRead(index, version)) {
+                return updateMillis == NO_UPDATE ? NO_PRICE : price;
+            }
+        }
+    }
+
+    public void readPrice(int index, PriceUpdateListener reader) {
+        Slots currentSlots = slots;
+        if (index < 0 || index >= currentSlots.capacity()) {
+            reader.onPriceUpdate(index, 0, NO_UPDATE);
+            return;
+        }
+
+        while (true) {
+            long version = currentSlots.beginRead(index);
+            double price = (double) PRICES.getOpaque(currentSlots.prices, index);
+            long updateMillis = (long) LONGS.getOpaque(currentSlots.lastUpdates, index);
+            if (currentSlots.endRead(index, version)) {
+                reader.onPriceUpdate(index, price, updateMillis);
+                return;
+            }
+        }
+    }
+
+    public long getLastUpdateMillis(int index) {
+        Slots currentSlots = slots;
+        return index >= 0 && index < currentSlots.capacity() ? currentSlots.readLastUpdate(index) : NO_UPDATE;
+    }
+
+    public AssetRegistry getRegistry() {
+        return registry;
+    }
+
+    private static final class Slots {
+        private final double[] prices;
+        private final long[] lastUpdates;
+        private final long[] versions;
+
+        private Slots(int capacity) {
+            prices = new double[capacity];
+            lastUpdates = new long[capacity];
+            versions = new long[capacity];
+        }
+
+        private Slots(double[] prices, long[] lastUpdates, long[] versions) {
+            this.prices = prices;
+            this.lastUpdates = lastUpdates;
+            this.versions = versions;
+        }
+
+        private int capacity() {
+            return prices.length;
+        }
+
+        private Slots copyOf(int capacity) {
+            return new Slots(Arrays.copyOf(prices, capacity), Arrays.copyOf(lastUpdates, capacity),
+                    Arrays.copyOf(versions, capacity));
+        }
+
+        private void write(int index, double price, long updateMillis) {
+            long version = versions[index];
+            LONGS.setOpaque(versions, index, version + 1);
+            VarHandle.storeStoreFence();
+            PRICES.setOpaque(prices, index, price);
+            LONGS.setOpaque(lastUpdates, index, updateMillis);
+            LONGS.setRelease(versions, index, version + 2);
+        }
+
+        private long beginRead(int index) {
+            while (true) {
+                long version = (long) LONGS.getAcquire(versions, index);
+                if ((version & 1) == 0) {
+                    return version;
+                }
+                Thread.onSpinWait();
+            }
+        }
+
+        private boolean endRead(int index, long version) {
+            VarHandle.loadLoadFence();
+            return (long) LONGS.getOpaque(versions, index) == version;
+        }
+
+        private double readPrice(int index) {
+            return (double) PRICES.getAcquire(prices, index);
+        }
+
+        private long readLastUpdate(int index) {
+            return (long) LONGS.getAcquire(lastUpdates, index);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+public interface PriceUpdateListener {
+    void onPriceUpdate(int assetIndex, double price, long updateMillis);
+}
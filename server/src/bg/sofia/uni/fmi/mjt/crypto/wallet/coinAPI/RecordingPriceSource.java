@@ -0,0 +1,48 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CoinAPIException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CurrencyNotFoundException;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public class RecordingPriceSource implements PriceSource {
+    private final PriceSource recordedSource;
+    private final PriceRecording recording;
+
+    public RecordingPriceSource(PriceSource recordedSource, Path recordingDirectory) {
+        this.recordedSource = recordedSource;
+        recording = new PriceRecording(recordingDirectory);
+    }
+
+    @Override
+    public List<CurrencyDTO> getOfferings(int limit) {
+        String key = PriceRecording.offeringsKey(limit);
+
+        try {
+            List<CurrencyDTO> offerings = recordedSource.getOfferings(limit);
+            recording.write(key, new PriceRecording.RecordedResponse(offerings.toArray(new CurrencyDTO[0]), null));
+            return offerings;
+        } catch (CoinAPIException exception) {
+            recording.write(key, new PriceRecording.RecordedResponse(null, exception.getMessage()));
+            throw exception;
+        }
+    }
+
+    @Override
+    public CurrencyDTO getCurrency(String offeringCode) {
+        String key = PriceRecording.currencyKey(offeringCode);
+
+        try {
+            CurrencyDTO currency = recordedSource.getCurrency(offeringCode);
+            recording.write(key, new PriceRecording.RecordedResponse(new CurrencyDTO[] {currency}, null));
+            return currency;
+        } catch (CurrencyNotFoundException exception) {
+            recording.write(key, new PriceRecording.RecordedResponse(new CurrencyDTO[0], null));
+            throw exception;
+        } catch (CoinAPIException exception) {
+            recording.write(key, new PriceRecording.RecordedResponse(null, exception.getMessage()));
+            throw exception;
+        }
+    }
+}
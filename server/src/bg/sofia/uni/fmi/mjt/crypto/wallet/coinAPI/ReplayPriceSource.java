@@ -0,0 +1,41 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CoinAPIException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CurrencyNotFoundException;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+public class ReplayPriceSource implements PriceSource {
+    private static final String REQUEST_FAILED_MESSAGE =
+            String.format("Could not get list of crypto currencies at this time. Please try again later.%n");
+    private static final String CURRENCY_NOT_FOUND_ERROR =
+            String.format("The currency you have entered could not be found. Please enter again.%n");
+
+    private final PriceRecording recording;
+
+    public ReplayPriceSource(Path recordingDirectory) {
+        recording = new PriceRecording(recordingDirectory);
+    }
+
+    @Override
+    public List<CurrencyDTO> getOfferings(int limit) {
+        PriceRecording.RecordedResponse response = recording.read(PriceRecording.offeringsKey(limit));
+        if (response == null) {
+            throw new CoinAPIException(REQUEST_FAILED_MESSAGE);
+        }
+
+        return Arrays.asList(response.getCurrencies());
+    }
+
+    @Override
+    public CurrencyDTO getCurrency(String offeringCode) {
+        PriceRecording.RecordedResponse response = recording.read(PriceRecording.currencyKey(offeringCode));
+        if (response == null || response.getCurrencies().length == 0) {
+            throw new CurrencyNotFoundException(CURRENCY_NOT_FOUND_ERROR);
+        }
+
+        return response.getCurrencies()[0];
+    }
+}
@@ -0,0 +1,114 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CurrencyNotFoundException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+public class SyntheticPriceSource implements PriceSource {
+    private static final String ASSET_PREFIX = "SYN";
+    private static final double MIN_INITIAL_PRICE = 0.01;
+    private static final double MAX_INITIAL_PRICE = 50000;
+    private static final double VOLATILITY_PER_TICK = 0.01;
+    private static final String CURRENCY_NOT_FOUND_ERROR =
+            String.format("The currency you have entered could not be found. Please enter again.%n");
+
+    private final Clock clock;
+    private final long tickMillis;
+    private final long startMillis;
+    private final SplittableRandom random;
+    private final double[] prices;
+    private final long[] lastTicks;
+
+    public SyntheticPriceSource(int assetCount, Duration tickInterval) {
+        this(assetCount, tickInterval, System.nanoTime(), Clock.systemUTC());
+    }
+
+    public SyntheticPriceSource(int assetCount, Duration tickInterval, long seed, Clock clock) {
+        if (assetCount <= 0 || tickInterval.toMillis() <= 0) {
+            throw new IllegalArgumentException("The asset count and tick interval must be positive");
+        }
+
+        this.clock = clock;
+        tickMillis = tickInterval.toMillis();
+        startMillis = clock.millis();
+        random = new SplittableRandom(seed);
+        prices = new double[assetCount];
+        lastTicks = new long[assetCount];
+
+        double logRange = Math.log(MAX_INITIAL_PRICE / MIN_INITIAL_PRICE);
+        for (int i = 0; i < assetCount; i++) {
+            prices[i] = MIN_INITIAL_PRICE * Math.exp(random.nextDouble() * logRange);
+        }
+    }
+
+    public static String getAssetId(int assetIndex) {
+        return ASSET_PREFIX + assetIndex;
+    }
+
+    @Override
+    public synchronized List<CurrencyDTO> getOfferings(int limit) {
+        long currentTick = getCurrentTick();
+        for (int i = 0; i < prices.length; i++) {
+            advanceToTick(i, currentTick);
+        }
+
+        List<CurrencyDTO> offerings = new ArrayList<>();
+        IntStream.range(0, prices.length)
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer index) -> prices[index]).reversed())
+                .limit(limit)
+                .forEach(index -> offerings.add(toCurrency(index)));
+
+        return offerings;
+    }
+
+    @Override
+    public synchronized CurrencyDTO getCurrency(String offeringCode) {
+        int assetIndex = getAssetIndex(offeringCode);
+        advanceToTick(assetIndex, getCurrentTick());
+
+        return toCurrency(assetIndex);
+    }
+
+    private int getAssetIndex(String offeringCode) {
+        if (offeringCode == null || !offeringCode.startsWith(ASSET_PREFIX)) {
+            throw new CurrencyNotFoundException(CURRENCY_NOT_FOUND_ERROR);
+        }
+
+        try {
+            int assetIndex = Integer.parseInt(offeringCode.substring(ASSET_PREFIX.length()));
+            if (assetIndex < 0 || assetIndex >= prices.length || !getAssetId(assetIndex).equals(offeringCode)) {
+                throw new CurrencyNotFoundException(CURRENCY_NOT_FOUND_ERROR);
+            }
+
+            return assetIndex;
+        } catch (NumberFormatException exception) {
+            throw new CurrencyNotFoundException(CURRENCY_NOT_FOUND_ERROR);
+        }
+    }
+
+    private long getCurrentTick() {
+        return (clock.millis() - startMillis) / tickMillis;
+    }
+
+    private void advanceToTick(int assetIndex, long currentTick) {
+        long elapsedTicks = currentTick - lastTicks[assetIndex];
+        if (elapsedTicks <= 0) {
+            return;
+        }
+
+        double step = VOLATILITY_PER_TICK * Math.sqrt(elapsedTicks) * random.nextGaussian();
+        prices[assetIndex] *= Math.exp(step);
+        lastTicks[assetIndex] = currentTick;
+    }
+
+    private CurrencyDTO toCurrency(int assetIndex) {
+        return new CurrencyDTO(getAssetId(assetIndex), 1, prices[assetIndex]);
+    }
+}
@@ -1,23 +1,71 @@
 package bg.sofia.uni.fmi.mjt.crypto.wallet.communication;
 
 import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CoinAPI;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.PriceTable;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CheckpointException;
 import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CoinAPIException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.MutationLogException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.TransactionLedgerException;
 import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.UserDataLoadingException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.FileMutationLog;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.FileTransactionLedger;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MappedShard;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MutationLog;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MutationRecord;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.ShardedUserCheckpoint;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.Transaction;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.TransactionLedger;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.TransactionPage;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.UserExporter;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.UserJsonImporter;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.trading.LimitOrder;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.trading.LimitOrderBook;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.trading.OrderSide;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.trading.PurchaseScheduler;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.trading.RecurringPurchase;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.MarketExposure;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.PortfolioIndex;
 import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserProfile;
 import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserSnapshot;
 import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
+import com.google.gson.JsonParseException;
 
 import java.io.IOException;
-import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ClientRequestExecutor {
-    private static final String USER_FILE_LOCATION = String.format("%s%s%s",
-            "resources", FileSystems.getDefault().getSeparator(), "users.json");
+    private static final String DATA_DIRECTORY = "resources";
+    private static final String USER_FILE_NAME = "users.json";
+    private static final String MUTATION_LOG_FILE_NAME = "users.wal";
+    private static final String CHECKPOINT_DIRECTORY_NAME = "checkpoint";
+    private static final String IMPORT_MARKER_FILE_NAME = "import.pending";
+    private static final String LEDGER_DIRECTORY_NAME = "ledger";
+    private static final long CHECKPOINT_MUTATION_THRESHOLD = 10_000;
+    private static final Duration CHECKPOINT_INTERVAL = Duration.ofMinutes(5);
+    private static final String SCHEDULE_FILE_NAME = "schedules.json";
+    private static final String ORDER_FILE_NAME = "orders.json";
+    private static final int CREDENTIAL_QUEUE_CAPACITY = 1024;
+    private static final int DEFAULT_LEADERBOARD_SIZE = 10;
+    private static final int MAX_LEADERBOARD_SIZE = 100;
+    private static final int TRANSACTION_PAGE_SIZE = 10;
+    private static final long CREDENTIAL_SHUTDOWN_TIMEOUT_SECONDS = 30;
     private static final String USER_FILE_NOT_FOUND_ERROR =
             "User file not found. User loading has been aborted.";
     private static final String USER_LOADING_CONVERSION_ERROR =
@@ -36,45 +84,336 @@ public class ClientRequestExecutor {
             String.format("Purchase cancelled. The purchase amount must be a positive number.%n");
     private static final String SUCCESSFUL_DISCONNECT_MESSAGE =
             String.format("You have disconnected from the server.%n");
+    private static final String LIMIT_ORDER_CONVERSION_ERROR =
+            String.format("Limit order cancelled. The limit price and amount must be valid numbers.%n");
+    private static final String ORDER_ID_CONVERSION_ERROR =
+            String.format("The order ID must be a valid number.%n");
+    private static final String ORDER_NOT_FOUND_ERROR =
+            String.format("You do not have an open limit order with this ID.%n");
+    private static final String SCHEDULE_CONVERSION_ERROR =
+            String.format("Recurring purchase cancelled. The amount and schedule ID must be valid numbers.%n");
+    private static final String SCHEDULE_NOT_FOUND_ERROR =
+            String.format("You do not have a recurring purchase with this ID.%n");
+    private static final DateTimeFormatter SCHEDULE_TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss 'UTC'").withZone(ZoneOffset.UTC);
     private static final String USER_SAVING_ERROR =
             String.format("An error occurred while saving users.%n");
+    private static final String SAVE_IN_PROGRESS_ERROR =
+            String.format("Users are already being saved. Please try again later.%n");
+    private static final String SAVE_STARTED_MESSAGE =
+            String.format("Users are being saved in the background.%n");
+    private static final String SINGLE_THREADED_EXECUTION_MESSAGE =
+            String.format("Requests are executed on the server thread. Start the server with workerThreads to "
+                    + "partition them by user.%n");
+    private static final String LEADERBOARD_SIZE_ERROR =
+            String.format("The leaderboard size must be a whole number between 1 and %d.%n", MAX_LEADERBOARD_SIZE);
+    private static final String EMPTY_LEADERBOARD_MESSAGE =
+            String.format("There are no registered users yet.%n");
+    private static final String NO_MARKET_EXPOSURE_MESSAGE =
+            String.format("No user currently holds any cryptocurrency.%n");
+    private static final String TRANSACTION_PAGE_CONVERSION_ERROR =
+            String.format("The page must be a valid page number.%n");
+    private static final String NO_TRANSACTIONS_MESSAGE =
+            String.format("You have no transactions yet.%n");
+    private static final String CREDENTIAL_QUEUE_FULL_ERROR =
+            String.format("The server is processing too many logins at the moment. Please try again shortly.%n");
+    private static final String REQUEST_PROCESSING_ERROR =
+            String.format("Your request could not be processed. Please try again.%n");
 
+    private final Path dataDirectory;
     private final UserRepository userRepository;
     private final CoinAPI coinAPI;
+    private final LimitOrderBook limitOrderBook;
+    private final PortfolioIndex portfolioIndex;
+    private final PurchaseScheduler purchaseScheduler;
+    private final ShardedUserCheckpoint userCheckpoint;
+    private final UserExporter userExporter;
     private final Gson gson;
+    private final ThreadPoolExecutor credentialHashers;
+    private MutationLog mutationLog;
+    private TransactionLedger transactionLedger;
+    private UserPartitionedExecutor requestPartitions;
+    private final long[] shardLsns;
+    private long checkpointLsn;
+    private long lastCheckpointMillis;
 
     public ClientRequestExecutor() {
-        userRepository = new UserRepository();
-        coinAPI = new CoinAPI();
+        this(new CoinAPI());
+    }
+
+    public ClientRequestExecutor(CoinAPI coinAPI) {
+        this(coinAPI, Path.of(DATA_DIRECTORY));
+    }
+
+    public ClientRequestExecutor(CoinAPI coinAPI, Path dataDirectory) {
+        this(coinAPI, dataDirectory, UserRepository.DEFAULT_RESIDENT_USER_CAPACITY);
+    }
+
+    public ClientRequestExecutor(CoinAPI coinAPI, Path dataDirectory, int residentUserCapacity) {
+        this.dataDirectory = dataDirectory;
+        userRepository = new UserRepository(MutationLog.disabled(), residentUserCapacity);
+        this.coinAPI = coinAPI;
+        limitOrderBook = new LimitOrderBook(userRepository, coinAPI.getAssetRegistry(),
+                dataDirectory.resolve(ORDER_FILE_NAME));
         gson = new Gson();
+        credentialHashers = createCredentialHashers();
+
+        coinAPI.addPriceUpdateListener(limitOrderBook);
+        portfolioIndex = new PortfolioIndex(coinAPI.getPriceTable());
+        coinAPI.addPriceUpdateListener(portfolioIndex);
+        purchaseScheduler = new PurchaseScheduler(userRepository, coinAPI, dataDirectory.resolve(SCHEDULE_FILE_NAME));
+        userCheckpoint = new ShardedUserCheckpoint(dataDirectory.resolve(CHECKPOINT_DIRECTORY_NAME),
+                UserRepository.SHARD_COUNT);
+        shardLsns = new long[UserRepository.SHARD_COUNT];
+        userExporter = new UserExporter(userRepository, dataDirectory.resolve(USER_FILE_NAME));
+
+        long startupStart = System.nanoTime();
+        boolean checkpointCurrent = loadUsers();
+        openTransactionLedger();
+        openMutationLog();
+        if (!checkpointCurrent) {
+            userRepository.markAllShardsDirty();
+            if (checkpointSafely()) {
+                finishImport();
+            }
+        }
+        indexPortfolios();
+        purchaseScheduler.start();
+        lastCheckpointMillis = System.currentTimeMillis();
+        System.out.printf("User data ready in %d ms%n", elapsedMillisSince(startupStart));
+    }
+
+    private void indexPortfolios() {
+        long indexingStart = System.nanoTime();
+        MarketExposure marketExposure = userRepository.getMarketExposure();
+        UserSnapshot snapshot = userRepository.beginSnapshot();
+        try {
+            for (int i = 0; i < snapshot.size(); i++) {
+                UserProfile user = snapshot.getUser(i);
+                portfolioIndex.onUserUpdate(user);
+                marketExposure.addHoldings(user);
+            }
+        } finally {
+            userRepository.endSnapshot(snapshot);
+        }
+
+        userRepository.addUserUpdateListener(portfolioIndex);
+        System.out.printf("Portfolios indexed in %d ms: %d users%n", elapsedMillisSince(indexingStart),
+                portfolioIndex.size());
+    }
 
-        loadUsers();
+    private static ThreadPoolExecutor createCredentialHashers() {
+        int threadCount = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+
+        return new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(CREDENTIAL_QUEUE_CAPACITY), task -> {
+                    Thread thread = new Thread(task, "credential-hasher-" + threadIndex.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
     }
 
-    private void loadUsers() {
+    private boolean loadUsers() {
         System.out.println("Loading users...");
-        Path userFilePath = Path.of(USER_FILE_LOCATION);
+        if (userCheckpoint.exists() && !Files.exists(dataDirectory.resolve(IMPORT_MARKER_FILE_NAME))) {
+            try {
+                return loadUsersFromCheckpoint();
+            } catch (CheckpointException exception) {
+                System.out.println(exception.getMessage());
+            }
+        }
 
+        long loadingStart = System.nanoTime();
         try {
-            loadUsersFromFile(userFilePath);
+            int importedUsers = loadUsersFromFile(dataDirectory.resolve(USER_FILE_NAME));
+            long loadingMillis = Math.max(1, elapsedMillisSince(loadingStart));
+            System.out.printf("User file imported in %d ms: %d users (%d users/s)%n",
+                    loadingMillis, importedUsers, importedUsers * 1000L / loadingMillis);
         } catch (UserDataLoadingException exception) {
             System.out.println(exception.getMessage());
         }
+
+        return false;
+    }
+
+    private boolean loadUsersFromCheckpoint() {
+        long loadingStart = System.nanoTime();
+        MappedShard[] mappedShards = userCheckpoint.map();
+        boolean fixedPointFormat = true;
+        for (int shard = 0; shard < mappedShards.length; shard++) {
+            userRepository.installMappedShard(shard, mappedShards[shard]);
+            shardLsns[shard] = mappedShards[shard].getLsn();
+            checkpointLsn = Math.max(checkpointLsn, shardLsns[shard]);
+            fixedPointFormat &= !mappedShards[shard].isFloatingPointFormat();
+        }
+
+        System.out.printf("Checkpoint indexed in %d ms: %d users from %d shards up to mutation %d%n",
+                elapsedMillisSince(loadingStart), userRepository.getUserCount(), mappedShards.length,
+                checkpointLsn);
+        if (!fixedPointFormat) {
+            System.out.println("The checkpoint stores amounts as floating-point numbers and will be rewritten.");
+        }
+        return fixedPointFormat;
+    }
+
+    private void openMutationLog() {
+        long replayStart = System.nanoTime();
+        LongAdder replayedMutations = new LongAdder();
+        try {
+            mutationLog = FileMutationLog.open(dataDirectory.resolve(MUTATION_LOG_FILE_NAME), checkpointLsn,
+                    (record, lsn) -> {
+                        if (lsn > shardLsns[UserRepository.shardOf(record.getUsername())]) {
+                            replayMutation(record, lsn);
+                            replayedMutations.increment();
+                        }
+                        if (record.getTransaction() != null) {
+                            transactionLedger.recover(record.getUsername(), record.getTransaction(), lsn);
+                        }
+                    });
+        } catch (MutationLogException exception) {
+            System.out.println(exception.getMessage());
+            mutationLog = MutationLog.disabled();
+        }
+
+        userRepository.setMutationLog(mutationLog);
+        System.out.printf("Mutation log replayed in %d ms: %d mutations after the checkpoint%n",
+                elapsedMillisSince(replayStart), replayedMutations.sum());
+    }
+
+    private void openTransactionLedger() {
+        try {
+            transactionLedger = FileTransactionLedger.open(dataDirectory.resolve(LEDGER_DIRECTORY_NAME));
+        } catch (TransactionLedgerException exception) {
+            System.out.println(exception.getMessage());
+            transactionLedger = TransactionLedger.disabled();
+        }
+
+        userRepository.setTransactionLedger(transactionLedger);
+    }
+
+    private long elapsedMillisSince(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+    }
+
+    private void replayMutation(MutationRecord record, long lsn) {
+        try {
+            userRepository.applyMutation(record);
+        } catch (IllegalArgumentException exception) {
+            System.out.printf("Mutation %d could not be replayed: %s%n", lsn, exception.getMessage());
+        }
+    }
+
+    public boolean commitMutations() {
+        try {
+            mutationLog.sync();
+            transactionLedger.flush();
+            return true;
+        } catch (MutationLogException | TransactionLedgerException exception) {
+            System.out.println(exception.getMessage());
+            return false;
+        }
+    }
+
+    public void checkpoint() {
+        long checkpointStart = System.nanoTime();
+        long ledgerRecords = transactionLedger.getRecordCount();
+        long lsn = mutationLog.getLastLsn();
+        mutationLog.sync();
+
+        BitSet dirtyShards = userRepository.takeDirtyShards();
+        try {
+            userCheckpoint.save(dirtyShards, userRepository);
+        } catch (CheckpointException exception) {
+            userRepository.markShardsDirty(dirtyShards);
+            throw exception;
+        }
+        transactionLedger.saveIndex(ledgerRecords, lsn);
+        mutationLog.truncateThrough(lsn);
+
+        checkpointLsn = lsn;
+        lastCheckpointMillis = System.currentTimeMillis();
+        System.out.printf("Checkpoint written in %d ms: %d of %d shards up to mutation %d%n",
+                elapsedMillisSince(checkpointStart), dirtyShards.cardinality(), UserRepository.SHARD_COUNT, lsn);
+    }
+
+    private boolean checkpointSafely() {
+        try {
+            checkpoint();
+            return true;
+        } catch (CheckpointException | MutationLogException | TransactionLedgerException exception) {
+            System.out.println(exception.getMessage());
+            return false;
+        }
+    }
+
+    private void checkpointIfDue() {
+        long pendingMutations = mutationLog.getLastLsn() - checkpointLsn;
+        boolean intervalElapsed =
+                System.currentTimeMillis() - lastCheckpointMillis >= CHECKPOINT_INTERVAL.toMillis();
+
+        if (pendingMutations >= CHECKPOINT_MUTATION_THRESHOLD || (pendingMutations > 0 && intervalElapsed)) {
+            checkpointSafely();
+        }
+    }
+
+    public void close() {
+        purchaseScheduler.close();
+        limitOrderBook.close();
+        shutDownCredentialHashers();
+        userExporter.close();
+        if (mutationLog.getLastLsn() > checkpointLsn) {
+            checkpointSafely();
+        }
+        mutationLog.close();
+        closeTransactionLedger();
     }
 
-    private void loadUsersFromFile(Path userFilePath) {
+    private void closeTransactionLedger() {
+        try {
+            transactionLedger.close();
+        } catch (TransactionLedgerException exception) {
+            System.out.println(exception.getMessage());
+        }
+    }
+
+    private void shutDownCredentialHashers() {
+        credentialHashers.shutdown();
+        try {
+            credentialHashers.awaitTermination(CREDENTIAL_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int loadUsersFromFile(Path userFilePath) {
+        int importedUsers;
         try {
             validateUserFileExists(userFilePath);
 
-            String usersJSON = Files.readString(userFilePath);
-            userRepository.deserializeUsers(usersJSON);
-        } catch (JsonSyntaxException exception) {
+            startImport();
+            importedUsers = new UserJsonImporter(userRepository, userCheckpoint).importUsers(userFilePath);
+        } catch (JsonParseException | IllegalStateException exception) {
             throw new UserDataLoadingException(USER_LOADING_CONVERSION_ERROR, exception);
         } catch (IOException exception) {
             throw new UserDataLoadingException(USER_LOADING_ERROR, exception);
         }
 
         System.out.println("Users successfully loaded");
+        return importedUsers;
+    }
+
+    private void startImport() throws IOException {
+        Files.createDirectories(dataDirectory);
+        Files.writeString(dataDirectory.resolve(IMPORT_MARKER_FILE_NAME), "");
+    }
+
+    private void finishImport() {
+        try {
+            Files.deleteIfExists(dataDirectory.resolve(IMPORT_MARKER_FILE_NAME));
+        } catch (IOException exception) {
+            System.out.println(exception.getMessage());
+        }
     }
 
     private void validateUserFileExists(Path userFilePath) {
@@ -83,9 +422,53 @@ public class ClientRequestExecutor {
         }
     }
 
+    public void setRequestPartitions(UserPartitionedExecutor requestPartitions) {
+        this.requestPartitions = requestPartitions;
+    }
+
     public String processRequest(String requestJSON) {
-        Request clientRequest = getRequestFromJSON(requestJSON);
+        return processRequest(parseRequest(requestJSON));
+    }
+
+    public Request parseRequest(String requestJSON) {
+        return gson.fromJson(requestJSON, Request.class);
+    }
+
+    public CompletableFuture<String> processRequestAsync(Request clientRequest) {
+        if (!requiresPasswordHashing(clientRequest)) {
+            try {
+                return CompletableFuture.completedFuture(processRequest(clientRequest));
+            } catch (RuntimeException exception) {
+                return CompletableFuture.completedFuture(getFailureResponse(clientRequest, exception));
+            }
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> processRequest(clientRequest), credentialHashers)
+                    .exceptionally(exception -> getFailureResponse(clientRequest, exception));
+        } catch (RejectedExecutionException exception) {
+            return CompletableFuture.completedFuture(
+                    gson.toJson(new Response(false, "guest", CREDENTIAL_QUEUE_FULL_ERROR)));
+        }
+    }
+
+    public String getFailureResponse(Request clientRequest, Throwable exception) {
+        System.out.println(exception.getMessage());
+        String sender = clientRequest.isFromGuest() ? "guest" : "user";
+
+        return gson.toJson(new Response(false, sender, REQUEST_PROCESSING_ERROR));
+    }
 
+    private boolean requiresPasswordHashing(Request clientRequest) {
+        if (!clientRequest.isFromGuest()) {
+            return false;
+        }
+
+        String command = clientRequest.getCommand().split("\\s+")[0];
+        return command.equals("register") || command.equals("login");
+    }
+
+    public String processRequest(Request clientRequest) {
         Response response;
         if (clientRequest.isFromGuest()) {
             response = processGuestRequest(clientRequest.getSender(), clientRequest.getCommand());
@@ -96,10 +479,6 @@ public class ClientRequestExecutor {
         return gson.toJson(response);
     }
 
-    private Request getRequestFromJSON(String requestJSON) {
-        return gson.fromJson(requestJSON, Request.class);
-    }
-
     private Response processGuestRequest(String username, String fullCommand) {
         String command = fullCommand.split("\\s+")[0];
 
@@ -127,7 +506,11 @@ public class ClientRequestExecutor {
 
         String username = splitRequest[1];
         String password = splitRequest[2];
-        return userRepository.registerIfValid(username, password);
+        try {
+            return userRepository.registerIfValid(username, password);
+        } catch (MutationLogException exception) {
+            return new Response(false, "guest", exception.getMessage());
+        }
     }
 
     private Response getNotificationOfWrongCommand() {
@@ -169,12 +552,45 @@ public class ClientRequestExecutor {
             case "sell" -> {
                 return sellCryptocurrency(username, fullCommand);
             }
+            case "buy-limit" -> {
+                return placeBuyLimitOrder(username, fullCommand);
+            }
+            case "sell-limit" -> {
+                return placeSellLimitOrder(username, fullCommand);
+            }
+            case "list-orders" -> {
+                return listLimitOrders(username);
+            }
+            case "cancel-order" -> {
+                return cancelLimitOrder(username, fullCommand);
+            }
+            case "schedule-buy" -> {
+                return scheduleRecurringPurchase(username, fullCommand);
+            }
+            case "list-schedules" -> {
+                return listRecurringPurchases(username);
+            }
+            case "cancel-schedule" -> {
+                return cancelRecurringPurchase(username, fullCommand);
+            }
             case "get-wallet-summary" -> {
                 return getWalletSummary(username);
             }
             case "get-wallet-overall-summary" -> {
                 return getWalletOverallSummary(username);
             }
+            case "unrealized-pnl" -> {
+                return getUnrealizedPnl(username);
+            }
+            case "price-history" -> {
+                return getPriceHistory(fullCommand);
+            }
+            case "leaderboard" -> {
+                return getLeaderboard(fullCommand);
+            }
+            case "get-transactions" -> {
+                return getTransactions(username, fullCommand);
+            }
             case "logout" -> {
                 return logOutUser(username);
             }
@@ -184,12 +600,59 @@ public class ClientRequestExecutor {
             case "save-users" -> {
                 return saveUsersToFile();
             }
+            case "cache-stats" -> {
+                return new Response(true, "user", coinAPI.getCacheStatistics());
+            }
+            case "api-budget" -> {
+                return new Response(true, "user", coinAPI.getCallBudgetReport());
+            }
+            case "partition-stats" -> {
+                return getPartitionStatistics();
+            }
+            case "market-exposure" -> {
+                return getMarketExposure();
+            }
             default -> {
                 return getNotificationOfWrongCommand();
             }
         }
     }
 
+    private Response getMarketExposure() {
+        Map<String, MarketExposure.AssetExposure> exposures = userRepository.getMarketExposure().getExposures();
+        if (exposures.isEmpty()) {
+            return new Response(true, "user", NO_MARKET_EXPOSURE_MESSAGE);
+        }
+
+        PriceTable priceTable = coinAPI.getPriceTable();
+        double totalCostBasis = 0;
+        double totalValue = 0;
+        StringBuilder builder = new StringBuilder(String.format("Market exposure in %d currencies:%n",
+                exposures.size()));
+        for (Map.Entry<String, MarketExposure.AssetExposure> assetExposure : exposures.entrySet()) {
+            MarketExposure.AssetExposure exposure = assetExposure.getValue();
+            int assetIndex = priceTable.indexOf(assetExposure.getKey());
+            double price = priceTable.getPriceIfUpdated(assetIndex);
+            double value = Double.isNaN(price) ? exposure.getCostBasis() : exposure.getAmount() * price;
+            totalCostBasis += exposure.getCostBasis();
+            totalValue += value;
+            builder.append(String.format("%s: Holders: %d, Amount: %.4f, Cost basis: $%.4f, Value: $%.4f%n",
+                    assetExposure.getKey(), exposure.getHolderCount(), exposure.getAmount(), exposure.getCostBasis(),
+                    value));
+        }
+        builder.append(String.format("Total cost basis: $%.4f, Total value: $%.4f%n", totalCostBasis, totalValue));
+
+        return new Response(true, "user", builder.toString());
+    }
+
+    private Response getPartitionStatistics() {
+        if (requestPartitions == null) {
+            return new Response(true, "user", SINGLE_THREADED_EXECUTION_MESSAGE);
+        }
+
+        return new Response(true, "user", requestPartitions.getStatistics());
+    }
+
     private Response depositMoney(String username, String clientRequest) {
         String[] splitRequest = clientRequest.split("\\s+");
         if (splitRequest.length != 2) {
@@ -200,6 +663,8 @@ public class ClientRequestExecutor {
             return attemptDeposit(username, splitRequest[1]);
         } catch (NumberFormatException exception) {
             return new Response(false, "user", DEPOSIT_CONVERSION_ERROR);
+        } catch (IllegalArgumentException | MutationLogException exception) {
+            return new Response(false, "user", exception.getMessage());
         }
     }
 
@@ -211,9 +676,8 @@ public class ClientRequestExecutor {
             return new Response(false, "user", DEPOSIT_NEGATIVE_NUMBER_ERROR);
         }
 
-        UserProfile user = userRepository.getUserByUsername(username);
-        user.depositMoney(depositAmount);
-        resultMessage = String.format("Deposit successful. Current balance: $%.4f.%n", user.getBalance());
+        double balance = userRepository.depositMoney(username, depositAmount);
+        resultMessage = String.format("Deposit successful. Current balance: $%.4f.%n", balance);
         return new Response(true, "user", resultMessage);
     }
 
@@ -236,7 +700,7 @@ public class ClientRequestExecutor {
             return attemptPurchase(username, splitRequest[1].toUpperCase(), splitRequest[2]);
         } catch (NumberFormatException exception) {
             return new Response(false, "user", PURCHASE_CONVERSION_ERROR);
-        } catch (IllegalArgumentException | CoinAPIException exception) {
+        } catch (IllegalArgumentException | CoinAPIException | MutationLogException exception) {
             return new Response(false, "user", exception.getMessage());
         }
     }
@@ -247,10 +711,9 @@ public class ClientRequestExecutor {
             return new Response(false, "user", PURCHASE_NEGATIVE_NUMBER_ERROR);
         }
 
-        UserProfile user = userRepository.getUserByUsername(username);
         double currencyPrice = coinAPI.getCoinCurrentPrice(offeringCode);
 
-        String resultMessage = user.buyCryptocurrency(offeringCode, moneyToInvest, currencyPrice);
+        String resultMessage = userRepository.buyCryptocurrency(username, offeringCode, moneyToInvest, currencyPrice);
         return new Response(true, "user", resultMessage);
     }
 
@@ -264,19 +727,203 @@ public class ClientRequestExecutor {
             return attemptSell(username, splitRequest[1].toUpperCase());
         } catch (NumberFormatException exception) {
             return new Response(false, "user", PURCHASE_CONVERSION_ERROR);
-        } catch (IllegalArgumentException | CoinAPIException exception) {
+        } catch (IllegalArgumentException | CoinAPIException | MutationLogException exception) {
             return new Response(false, "user", exception.getMessage());
         }
     }
 
     private Response attemptSell(String username, String offeringCode) {
-        UserProfile user = userRepository.getUserByUsername(username);
         double currencyPrice = coinAPI.getCoinCurrentPrice(offeringCode);
 
-        String resultMessage = user.sellCryptocurrency(offeringCode, currencyPrice);
+        String resultMessage = userRepository.sellCryptocurrency(username, offeringCode, currencyPrice);
         return new Response(true, "user", resultMessage);
     }
 
+    private Response placeBuyLimitOrder(String username, String clientRequest) {
+        String[] splitRequest = clientRequest.split("\\s+");
+        if (splitRequest.length != 4) {
+            return getNotificationOfWrongCommand();
+        }
+
+        try {
+            LimitOrder order = limitOrderBook.placeBuyOrder(username, splitRequest[1].toUpperCase(),
+                    Double.parseDouble(splitRequest[2]), Double.parseDouble(splitRequest[3]));
+            return new Response(true, "user", String.format(
+                    "Limit order #%d placed. You will buy %s for $%.4f once its price falls to $%f or lower.%n",
+                    order.getId(), order.getOfferingCode(), order.getMoneyToInvest(), order.getLimitPrice()));
+        } catch (NumberFormatException exception) {
+            return new Response(false, "user", LIMIT_ORDER_CONVERSION_ERROR);
+        } catch (IllegalArgumentException exception) {
+            return new Response(false, "user", exception.getMessage());
+        }
+    }
+
+    private Response placeSellLimitOrder(String username, String clientRequest) {
+        String[] splitRequest = clientRequest.split("\\s+");
+        if (splitRequest.length != 3) {
+            return getNotificationOfWrongCommand();
+        }
+
+        try {
+            LimitOrder order = limitOrderBook.placeSellOrder(username, splitRequest[1].toUpperCase(),
+                    Double.parseDouble(splitRequest[2]));
+            return new Response(true, "user", String.format(
+                    "Limit order #%d placed. You will sell all of your %s once its price rises to $%f or higher.%n",
+                    order.getId(), order.getOfferingCode(), order.getLimitPrice()));
+        } catch (NumberFormatException exception) {
+            return new Response(false, "user", LIMIT_ORDER_CONVERSION_ERROR);
+        } catch (IllegalArgumentException exception) {
+            return new Response(false, "user", exception.getMessage());
+        }
+    }
+
+    private Response listLimitOrders(String username) {
+        List<LimitOrder> orders = limitOrderBook.getOrders(username);
+
+        StringBuilder builder = new StringBuilder(String.format("Open limit orders of %s:%n", username));
+        if (orders.isEmpty()) {
+            builder.append(String.format("There are currently no open limit orders in your account.%n"));
+        }
+        for (LimitOrder order : orders) {
+            String amount = order.getSide() == OrderSide.BUY
+                    ? String.format("Money to invest: $%.4f", order.getMoneyToInvest())
+                    : "Amount: entire holding";
+            String status = order.hasFailed() ? String.format(", Failed: %s", order.getFailureReason()) : "";
+            builder.append(String.format("#%d %4s %4s, Limit price: $%f, %s%s%n", order.getId(),
+                    order.getSide(), order.getOfferingCode(), order.getLimitPrice(), amount, status));
+        }
+
+        return new Response(true, "user", builder.toString());
+    }
+
+    private Response cancelLimitOrder(String username, String clientRequest) {
+        String[] splitRequest = clientRequest.split("\\s+");
+        if (splitRequest.length != 2) {
+            return getNotificationOfWrongCommand();
+        }
+
+        try {
+            long orderId = Long.parseLong(splitRequest[1].replace("#", ""));
+            if (!limitOrderBook.cancel(username, orderId)) {
+                return new Response(false, "user", ORDER_NOT_FOUND_ERROR);
+            }
+
+            return new Response(true, "user", String.format("Limit order #%d has been cancelled.%n", orderId));
+        } catch (NumberFormatException exception) {
+            return new Response(false, "user", ORDER_ID_CONVERSION_ERROR);
+        }
+    }
+
+    private Response scheduleRecurringPurchase(String username, String clientRequest) {
+        String[] splitRequest = clientRequest.split("\\s+");
+        if (splitRequest.length != 4) {
+            return getNotificationOfWrongCommand();
+        }
+
+        try {
+            double moneyToInvest = Double.parseDouble(splitRequest[2]);
+            Duration interval = IntervalParser.parse(splitRequest[3]);
+            RecurringPurchase purchase = purchaseScheduler.schedule(username, splitRequest[1].toUpperCase(),
+                    moneyToInvest, interval);
+
+            return new Response(true, "user", String.format(
+                    "Recurring purchase #%d scheduled. You will buy %s for $%.4f every %s, starting at %s.%n",
+                    purchase.getId(), purchase.getOfferingCode(), purchase.getMoneyToInvest(),
+                    IntervalParser.format(interval), formatScheduleTime(purchase.getNextRunMillis())));
+        } catch (NumberFormatException exception) {
+            return new Response(false, "user", SCHEDULE_CONVERSION_ERROR);
+        } catch (IllegalArgumentException exception) {
+            return new Response(false, "user", exception.getMessage());
+        }
+    }
+
+    private Response listRecurringPurchases(String username) {
+        List<RecurringPurchase> purchases = purchaseScheduler.getPurchases(username);
+
+        StringBuilder builder = new StringBuilder(String.format("Recurring purchases of %s:%n", username));
+        if (purchases.isEmpty()) {
+            builder.append(String.format("There are currently no recurring purchases in your account.%n"));
+        }
+        for (RecurringPurchase purchase : purchases) {
+            builder.append(String.format("#%d %4s, Money to invest: $%.4f, Every: %s, Next purchase: %s%n",
+                    purchase.getId(), purchase.getOfferingCode(), purchase.getMoneyToInvest(),
+                    IntervalParser.format(Duration.ofMillis(purchase.getIntervalMillis())),
+                    formatScheduleTime(purchase.getNextRunMillis())));
+        }
+
+        return new Response(true, "user", builder.toString());
+    }
+
+    private Response cancelRecurringPurchase(String username, String clientRequest) {
+        String[] splitRequest = clientRequest.split("\\s+");
+        if (splitRequest.length != 2) {
+            return getNotificationOfWrongCommand();
+        }
+
+        try {
+            long purchaseId = Long.parseLong(splitRequest[1].replace("#", ""));
+            if (!purchaseScheduler.cancel(username, purchaseId)) {
+                return new Response(false, "user", SCHEDULE_NOT_FOUND_ERROR);
+            }
+
+            return new Response(true, "user",
+                    String.format("Recurring purchase #%d has been cancelled.%n", purchaseId));
+        } catch (NumberFormatException exception) {
+            return new Response(false, "user", SCHEDULE_CONVERSION_ERROR);
+        }
+    }
+
+    private Response getTransactions(String username, String clientRequest) {
+        String[] splitRequest = clientRequest.split("\\s+");
+        if (splitRequest.length > 2) {
+            return getNotificationOfWrongCommand();
+        }
+
+        TransactionPage page;
+        try {
+            long cursor = splitRequest.length == 2 ? Long.parseLong(splitRequest[1]) : TransactionLedger.FIRST_PAGE;
+            page = transactionLedger.readPage(username, cursor, TRANSACTION_PAGE_SIZE);
+        } catch (NumberFormatException exception) {
+            return new Response(false, "user", TRANSACTION_PAGE_CONVERSION_ERROR);
+        } catch (IllegalArgumentException | TransactionLedgerException exception) {
+            return new Response(false, "user", exception.getMessage());
+        }
+
+        if (page.getTransactions().isEmpty()) {
+            return new Response(true, "user", NO_TRANSACTIONS_MESSAGE);
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (Transaction transaction : page.getTransactions()) {
+            builder.append(formatTransaction(transaction));
+        }
+        if (page.hasNextPage()) {
+            builder.append(String.format("More transactions: get-transactions %d%n", page.getNextCursor()));
+        }
+
+        return new Response(true, "user", builder.toString());
+    }
+
+    private String formatTransaction(Transaction transaction) {
+        String time = formatScheduleTime(transaction.getTimestampMillis());
+        return switch (transaction.getType()) {
+            case DEPOSIT -> String.format("%s Deposit $%.4f%n", time, transaction.getMoney());
+            case BUY -> String.format("%s Buy %.6f %s for $%.4f at $%.4f%n", time, transaction.getCryptoAmount(),
+                    transaction.getOfferingCode(), transaction.getMoney(), transaction.getPrice());
+            case SELL -> String.format("%s Sell %.6f %s for $%.4f at $%.4f%n", time, transaction.getCryptoAmount(),
+                    transaction.getOfferingCode(), transaction.getMoney(), transaction.getPrice());
+        };
+    }
+
+    private String formatScheduleTime(long epochMillis) {
+        return SCHEDULE_TIME_FORMATTER.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    public void runScheduledTasks() {
+        checkpointIfDue();
+        userRepository.evictInactiveUsers();
+    }
+
     public Response getWalletSummary(String username) {
         UserProfile userProfile = userRepository.getUserByUsername(username);
         String walletSummaryResult = userProfile.getWalletSummary();
@@ -287,10 +934,68 @@ public class ClientRequestExecutor {
     public Response getWalletOverallSummary(String username) {
         UserProfile userProfile = userRepository.getUserByUsername(username);
         Set<String> userOfferingCodes = userProfile.getUserCryptoCurrencies();
-        Map<String, Double> currencyPrices = coinAPI.getSpecificCurrentPrices(userOfferingCodes);
-        String fullWalletSummaryResult = userProfile.getWalletOverallSummary(currencyPrices);
+        try {
+            PriceTable priceTable = coinAPI.getCurrentPrices(userOfferingCodes);
+            String fullWalletSummaryResult = userProfile.getWalletOverallSummary(priceTable);
+
+            return new Response(true, "user", fullWalletSummaryResult);
+        } catch (CoinAPIException exception) {
+            return new Response(false, "user", exception.getMessage());
+        }
+    }
 
-        return new Response(true, "user", fullWalletSummaryResult);
+    private Response getPriceHistory(String clientRequest) {
+        String[] splitRequest = clientRequest.split("\\s+");
+        if (splitRequest.length != 3) {
+            return getNotificationOfWrongCommand();
+        }
+
+        try {
+            Duration interval = IntervalParser.parse(splitRequest[2]);
+            String priceHistory = coinAPI.getPriceHistory(splitRequest[1].toUpperCase(), interval);
+            return new Response(true, "user", priceHistory);
+        } catch (IllegalArgumentException | CoinAPIException exception) {
+            return new Response(false, "user", exception.getMessage());
+        }
+    }
+
+    private Response getUnrealizedPnl(String username) {
+        String pnlMessage = String.format("Unrealized profit/loss of your investments: $%.4f%n",
+                portfolioIndex.getUnrealizedPnl(username));
+        return new Response(true, "user", pnlMessage);
+    }
+
+    private Response getLeaderboard(String clientRequest) {
+        String[] splitRequest = clientRequest.split("\\s+");
+        if (splitRequest.length > 2) {
+            return getNotificationOfWrongCommand();
+        }
+
+        int leaderboardSize = DEFAULT_LEADERBOARD_SIZE;
+        if (splitRequest.length == 2) {
+            try {
+                leaderboardSize = Integer.parseInt(splitRequest[1]);
+            } catch (NumberFormatException exception) {
+                return new Response(false, "user", LEADERBOARD_SIZE_ERROR);
+            }
+            if (leaderboardSize <= 0 || leaderboardSize > MAX_LEADERBOARD_SIZE) {
+                return new Response(false, "user", LEADERBOARD_SIZE_ERROR);
+            }
+        }
+
+        List<Map.Entry<String, Double>> topUsers = portfolioIndex.getTop(leaderboardSize);
+        if (topUsers.isEmpty()) {
+            return new Response(true, "user", EMPTY_LEADERBOARD_MESSAGE);
+        }
+
+        StringBuilder builder = new StringBuilder(String.format("Top %d portfolios:%n", topUsers.size()));
+        int rank = 1;
+        for (Map.Entry<String, Double> rankedUser : topUsers) {
+            builder.append(String.format("%2d) %s: $%.4f%n", rank, rankedUser.getKey(), rankedUser.getValue()));
+            rank++;
+        }
+
+        return new Response(true, "user", builder.toString());
     }
 
     private Response logOutUser(String username) {
@@ -299,21 +1004,21 @@ public class ClientRequestExecutor {
     }
 
     public Response saveUsersToFile() {
-        System.out.println("Saving users...");
-        Path userFilePath = Path.of(USER_FILE_LOCATION);
+        if (userExporter.isExportInProgress()) {
+            return new Response(false, "user", SAVE_IN_PROGRESS_ERROR);
+        }
 
-        try {
-            if (!Files.exists(userFilePath)) {
-                Files.createDirectories(Path.of("resources"));
-                Files.createFile(userFilePath);
+        System.out.println("Saving users...");
+        long savingStart = System.nanoTime();
+        userExporter.export().whenComplete((userCount, exception) -> {
+            if (exception != null) {
+                System.out.print(USER_SAVING_ERROR);
+            } else {
+                System.out.printf("Users successfully saved: %d users in %d ms%n",
+                        userCount, elapsedMillisSince(savingStart));
             }
+        });
 
-            String usersJSON = userRepository.serializeUsers();
-            Files.writeString(userFilePath, usersJSON);
-        } catch (IOException exception) {
-            return new Response(false, "user", USER_SAVING_ERROR);
-        }
-
-        return new Response(true, "user", String.format("Users successfully saved.%n"));
+        return new Response(true, "user", SAVE_STARTED_MESSAGE);
     }
 }
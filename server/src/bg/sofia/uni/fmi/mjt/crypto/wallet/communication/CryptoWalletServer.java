@@ -1,7 +1,12 @@
 package bg.sofia.uni.fmi.mjt.crypto.wallet.communication;
 
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CallBudget;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CoinAPI;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.PriceHistory;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.PriceSourceFactory;
 import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.ServerCommunicationException;
 import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.ServerSetupException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
@@ -11,11 +16,19 @@ import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class CryptoWalletServer implements AutoCloseable, Server {
     private static final int BUFFER_SIZE = 8192;
+    private static final long SCHEDULER_TICK_MILLIS = 1000;
     private static final String HOST_NAME = "localhost";
     private static final String SERVER_SETUP_ERROR = "An error occurred while setting up the server";
     private static final String SERVER_CONNECTION_ERROR =
@@ -24,29 +37,69 @@ public class CryptoWalletServer implements AutoCloseable, Server {
     private final int serverPort;
     private final ByteBuffer buffer;
     private final ClientRequestExecutor clientRequestExecutor;
+    private final UserPartitionedExecutor requestPartitions;
+    private final Queue<Map.Entry<SocketChannel, String>> completedResponses;
+    private final List<Map.Entry<SocketChannel, String>> heldResponses;
 
     private ServerSocketChannel serverSocketChannel;
     private Selector selector;
     private boolean serverIsActive;
 
     public CryptoWalletServer(int port) {
+        this(port, new CoinAPI());
+    }
+
+    public CryptoWalletServer(int port, CoinAPI coinAPI) {
+        this(port, new ClientRequestExecutor(coinAPI));
+    }
+
+    public CryptoWalletServer(int port, CoinAPI coinAPI, Path dataDirectory) {
+        this(port, new ClientRequestExecutor(coinAPI, dataDirectory));
+    }
+
+    public CryptoWalletServer(int port, CoinAPI coinAPI, Path dataDirectory, int residentUserCapacity) {
+        this(port, coinAPI, dataDirectory, residentUserCapacity, 0);
+    }
+
+    public CryptoWalletServer(int port, CoinAPI coinAPI, Path dataDirectory, int residentUserCapacity,
+                              int workerThreads) {
+        this(port, new ClientRequestExecutor(coinAPI, dataDirectory, residentUserCapacity), workerThreads);
+    }
+
+    private CryptoWalletServer(int port, ClientRequestExecutor clientRequestExecutor) {
+        this(port, clientRequestExecutor, 0);
+    }
+
+    private CryptoWalletServer(int port, ClientRequestExecutor clientRequestExecutor, int workerThreads) {
         buffer = ByteBuffer.allocate(BUFFER_SIZE);
         serverPort = port;
-        clientRequestExecutor = new ClientRequestExecutor();
+        this.clientRequestExecutor = clientRequestExecutor;
+        requestPartitions = workerThreads > 0 ? new UserPartitionedExecutor(workerThreads) : null;
+        completedResponses = new ConcurrentLinkedQueue<>();
+        heldResponses = new ArrayList<>();
+        clientRequestExecutor.setRequestPartitions(requestPartitions);
     }
 
     @Override
     public void start() {
         setUpServer();
+        long lastRebalanceMillis = System.currentTimeMillis();
         while (serverIsActive) {
             try {
-                int readyChannels = selector.select();
-                if (readyChannels == 0) {
-                    continue;
+                int readyChannels = selector.select(SCHEDULER_TICK_MILLIS);
+                clientRequestExecutor.runScheduledTasks();
+                if (requestPartitions != null
+                        && System.currentTimeMillis() - lastRebalanceMillis >= SCHEDULER_TICK_MILLIS) {
+                    requestPartitions.rebalance();
+                    lastRebalanceMillis = System.currentTimeMillis();
                 }
 
-                Set<SelectionKey> selectedKeys = selector.selectedKeys();
-                iterateKeys(selectedKeys);
+                if (readyChannels > 0) {
+                    Set<SelectionKey> selectedKeys = selector.selectedKeys();
+                    iterateKeys(selectedKeys);
+                }
+                collectCompletedResponses();
+                sendDurableResponses();
             } catch (IOException exception) {
                 throw new ServerCommunicationException(SERVER_CONNECTION_ERROR, exception);
             }
@@ -80,12 +133,21 @@ public class CryptoWalletServer implements AutoCloseable, Server {
                 int readResult = channel.read(buffer);
                 if (readResult <= 0) {
                     channel.close();
-                    break;
+                    keyIterator.remove();
+                    continue;
                 }
 
-                String clientRequestJSON = readClientRequest();
-                String serverResponseJSON = processRequest(clientRequestJSON);
-                sendServerResponse(channel, serverResponseJSON);
+                Request clientRequest = clientRequestExecutor.parseRequest(readClientRequest());
+                if (requestPartitions != null) {
+                    dispatchRequest(channel, clientRequest);
+                } else {
+                    CompletableFuture<String> response = clientRequestExecutor.processRequestAsync(clientRequest);
+                    if (response.isDone()) {
+                        heldResponses.add(Map.entry(channel, response.join()));
+                    } else {
+                        deliverWhenComplete(channel, clientRequest, response);
+                    }
+                }
             } else if (key.isAcceptable()) {
                 acceptConnection(key);
             }
@@ -94,6 +156,46 @@ public class CryptoWalletServer implements AutoCloseable, Server {
         }
     }
 
+    private void dispatchRequest(SocketChannel channel, Request clientRequest) {
+        requestPartitions.execute(clientRequest.getRoutingKey(),
+                () -> deliverWhenComplete(channel, clientRequest,
+                        clientRequestExecutor.processRequestAsync(clientRequest)),
+                exception -> deliverWhenComplete(channel, clientRequest, CompletableFuture.failedFuture(exception)));
+    }
+
+    private void deliverWhenComplete(SocketChannel channel, Request clientRequest,
+                                     CompletableFuture<String> response) {
+        response.whenComplete((responseJSON, exception) -> {
+            String completedResponse = exception == null
+                    ? responseJSON
+                    : clientRequestExecutor.getFailureResponse(clientRequest, exception);
+
+            completedResponses.add(Map.entry(channel, completedResponse));
+            selector.wakeup();
+        });
+    }
+
+    private void collectCompletedResponses() {
+        Map.Entry<SocketChannel, String> response = completedResponses.poll();
+        while (response != null) {
+            heldResponses.add(response);
+            response = completedResponses.poll();
+        }
+    }
+
+    private void sendDurableResponses() throws IOException {
+        if (!clientRequestExecutor.commitMutations()) {
+            return;
+        }
+
+        for (Map.Entry<SocketChannel, String> response : heldResponses) {
+            if (response.getKey().isOpen()) {
+                sendServerResponse(response.getKey(), response.getValue());
+            }
+        }
+        heldResponses.clear();
+    }
+
     @Override
     public String readClientRequest() {
         buffer.flip();
@@ -130,13 +232,31 @@ public class CryptoWalletServer implements AutoCloseable, Server {
 
     @Override
     public void close() throws Exception {
-        //clientRequestExecutor.saveUsersToFile();
+        if (requestPartitions != null) {
+            requestPartitions.close();
+        }
+        clientRequestExecutor.close();
         serverSocketChannel.close();
         selector.close();
     }
 
     public static void main(String[] args) {
-        try (CryptoWalletServer server = new CryptoWalletServer(7676)) {
+        String priceSourceConfiguration = System.getProperty("priceSource", "http");
+        CallBudget callBudget = new CallBudget(
+                Integer.getInteger("dailyCallLimit", CallBudget.DEFAULT_DAILY_ALLOWANCE),
+                Integer.getInteger("hourlyCallLimit", CallBudget.DEFAULT_HOURLY_ALLOWANCE));
+        PriceHistory priceHistory = new PriceHistory(
+                Integer.getInteger("priceHistoryCapacity", PriceHistory.DEFAULT_CAPACITY));
+        CoinAPI coinAPI = new CoinAPI(PriceSourceFactory.create(priceSourceConfiguration), Path.of(
+                "resources", "coin-cache-" + priceSourceConfiguration.split(":")[0] + ".dat"),
+                callBudget, priceHistory);
+
+        int residentUserCapacity =
+                Integer.getInteger("residentUserCapacity", UserRepository.DEFAULT_RESIDENT_USER_CAPACITY);
+        int workerThreads = Integer.getInteger("workerThreads", 0);
+
+        try (CryptoWalletServer server = new CryptoWalletServer(7676, coinAPI, Path.of("resources"),
+                residentUserCapacity, workerThreads)) {
             server.start();
         } catch (Exception e) {
             e.printStackTrace();
@@ -0,0 +1,55 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.communication;
+
+import java.time.Duration;
+
+public class IntervalParser {
+    private static final String INVALID_INTERVAL_ERROR =
+            String.format("The interval must be a positive number followed by s, m, h or d (e.g. 15m).%n");
+
+    public static Duration parse(String interval) {
+        if (interval == null || interval.length() < 2) {
+            throw new IllegalArgumentException(INVALID_INTERVAL_ERROR);
+        }
+
+        long amount;
+        try {
+            amount = Long.parseLong(interval.substring(0, interval.length() - 1));
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException(INVALID_INTERVAL_ERROR, exception);
+        }
+
+        if (amount <= 0) {
+            throw new IllegalArgumentException(INVALID_INTERVAL_ERROR);
+        }
+
+        switch (Character.toLowerCase(interval.charAt(interval.length() - 1))) {
+            case 's' -> {
+                return Duration.ofSeconds(amount);
+            }
+            case 'm' -> {
+                return Duration.ofMinutes(amount);
+            }
+            case 'h' -> {
+                return Duration.ofHours(amount);
+            }
+            case 'd' -> {
+                return Duration.ofDays(amount);
+            }
+            default -> throw new IllegalArgumentException(INVALID_INTERVAL_ERROR);
+        }
+    }
+
+    public static String format(Duration interval) {
+        if (interval.toDaysPart() > 0 && interval.equals(Duration.ofDays(interval.toDays()))) {
+            return interval.toDays() + "d";
+        }
+        if (interval.equals(Duration.ofHours(interval.toHours()))) {
+            return interval.toHours() + "h";
+        }
+        if (interval.equals(Duration.ofMinutes(interval.toMinutes()))) {
+            return interval.toMinutes() + "m";
+        }
+
+        return interval.toSeconds() + "s";
+    }
+}
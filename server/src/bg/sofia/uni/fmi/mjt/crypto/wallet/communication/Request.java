@@ -20,4 +20,13 @@ public class Request {
     public boolean isFromGuest() {
         return sender.equals("guest");
     }
+
+    public String getRoutingKey() {
+        if (!isFromGuest()) {
+            return sender;
+        }
+
+        String[] splitCommand = command.trim().split("\\s+");
+        return splitCommand.length > 1 ? splitCommand[1] : sender;
+    }
 }
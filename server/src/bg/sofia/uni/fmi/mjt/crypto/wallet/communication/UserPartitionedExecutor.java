@@ -0,0 +1,200 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.communication;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+public class UserPartitionedExecutor implements AutoCloseable {
+    private static final double HOT_PARTITION_LOAD_FACTOR = 2;
+    private static final long MIN_REBALANCE_REQUESTS = 64;
+    private static final Runnable STOP_WORKER = () -> { };
+
+    private final List<BlockingQueue<Runnable>> queues;
+    private final List<Thread> workers;
+    private final AtomicLongArray executedRequests;
+    private final int[] peakQueueDepths;
+    private final long[] windowRequests;
+    private final Map<String, Integer> windowRequestsPerUser;
+    private final Map<String, Integer> requestsInFlight;
+    private final Map<String, Integer> pinnedPartitions;
+    private long rebalancedUsers;
+
+    public UserPartitionedExecutor(int partitionCount) {
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("The partition count must be positive");
+        }
+
+        queues = new ArrayList<>(partitionCount);
+        workers = new ArrayList<>(partitionCount);
+        executedRequests = new AtomicLongArray(partitionCount);
+        peakQueueDepths = new int[partitionCount];
+        windowRequests = new long[partitionCount];
+        windowRequestsPerUser = new HashMap<>();
+        requestsInFlight = new HashMap<>();
+        pinnedPartitions = new HashMap<>();
+
+        for (int partition = 0; partition < partitionCount; partition++) {
+            BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+            Thread worker = new Thread(() -> runWorker(queue), "request-partition-" + partition);
+            worker.setDaemon(true);
+            queues.add(queue);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    public int getPartitionCount() {
+        return queues.size();
+    }
+
+    public synchronized int getPartition(String username) {
+        Integer pinnedPartition = pinnedPartitions.get(username);
+        if (pinnedPartition != null) {
+            return pinnedPartition;
+        }
+
+        return UserRepository.shardOf(username) % queues.size();
+    }
+
+    public void execute(String username, Runnable task) {
+        execute(username, task, exception -> System.out.println(exception.getMessage()));
+    }
+
+    public synchronized void execute(String username, Runnable task, Consumer<RuntimeException> failureHandler) {
+        int partition = getPartition(username);
+        requestsInFlight.merge(username, 1, Integer::sum);
+        windowRequestsPerUser.merge(username, 1, Integer::sum);
+        windowRequests[partition]++;
+
+        BlockingQueue<Runnable> queue = queues.get(partition);
+        queue.add(() -> runRequest(username, partition, task, failureHandler));
+        peakQueueDepths[partition] = Math.max(peakQueueDepths[partition], queue.size());
+    }
+
+    private void runRequest(String username, int partition, Runnable task,
+                            Consumer<RuntimeException> failureHandler) {
+        try {
+            task.run();
+        } catch (RuntimeException exception) {
+            failureHandler.accept(exception);
+        } finally {
+            executedRequests.incrementAndGet(partition);
+            completeRequest(username);
+        }
+    }
+
+    private synchronized void completeRequest(String username) {
+        requestsInFlight.computeIfPresent(username, (name, requests) -> requests > 1 ? requests - 1 : null);
+    }
+
+    private void runWorker(BlockingQueue<Runnable> queue) {
+        try {
+            Runnable task = queue.take();
+            while (task != STOP_WORKER) {
+                try {
+                    task.run();
+                } catch (RuntimeException exception) {
+                    System.out.println(exception.getMessage());
+                }
+                task = queue.take();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getQueueDepth(int partition) {
+        return queues.get(partition).size();
+    }
+
+    public synchronized int getUsersInFlight() {
+        return requestsInFlight.size();
+    }
+
+    public synchronized String rebalance() {
+        pinnedPartitions.keySet().removeIf(username ->
+                !windowRequestsPerUser.containsKey(username) && !requestsInFlight.containsKey(username));
+
+        int busiestPartition = 0;
+        int idlestPartition = 0;
+        long totalRequests = 0;
+        for (int partition = 0; partition < windowRequests.length; partition++) {
+            totalRequests += windowRequests[partition];
+            if (windowRequests[partition] > windowRequests[busiestPartition]) {
+                busiestPartition = partition;
+            }
+            if (windowRequests[partition] < windowRequests[idlestPartition]) {
+                idlestPartition = partition;
+            }
+        }
+
+        String movedUser = null;
+        double averageRequests = (double) totalRequests / windowRequests.length;
+        long busiestRequests = windowRequests[busiestPartition];
+        if (busiestRequests >= MIN_REBALANCE_REQUESTS
+                && busiestRequests > HOT_PARTITION_LOAD_FACTOR * averageRequests) {
+            String hottestUser = findHottestIdleUser(busiestPartition);
+            if (hottestUser != null && windowRequests[idlestPartition]
+                    + windowRequestsPerUser.get(hottestUser) < busiestRequests) {
+                pinnedPartitions.put(hottestUser, idlestPartition);
+                rebalancedUsers++;
+                movedUser = hottestUser;
+            }
+        }
+
+        Arrays.fill(windowRequests, 0);
+        windowRequestsPerUser.clear();
+        return movedUser;
+    }
+
+    private String findHottestIdleUser(int partition) {
+        String hottestUser = null;
+        int hottestRequests = 0;
+        for (Map.Entry<String, Integer> userRequests : windowRequestsPerUser.entrySet()) {
+            String username = userRequests.getKey();
+            if (userRequests.getValue() > hottestRequests && !requestsInFlight.containsKey(username)
+                    && getPartition(username) == partition) {
+                hottestUser = username;
+                hottestRequests = userRequests.getValue();
+            }
+        }
+
+        return hottestUser;
+    }
+
+    public synchronized String getStatistics() {
+        StringBuilder builder = new StringBuilder(String.format(
+                "Request partitions: %d, Users in flight: %d, Pinned users: %d, Rebalanced users: %d%n",
+                queues.size(), getUsersInFlight(), pinnedPartitions.size(), rebalancedUsers));
+        for (int partition = 0; partition < queues.size(); partition++) {
+            builder.append(String.format("Partition %2d: Queued: %d, Peak queued: %d, Executed: %d%n", partition,
+                    getQueueDepth(partition), peakQueueDepths[partition], executedRequests.get(partition)));
+        }
+
+        return builder.toString();
+    }
+
+    @Override
+    public void close() {
+        for (BlockingQueue<Runnable> queue : queues) {
+            queue.add(STOP_WORKER);
+        }
+
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.exception;
+
+public class CallBudgetExhaustedException extends CoinAPIException {
+    public CallBudgetExhaustedException(String message) {
+        super(message);
+    }
+}
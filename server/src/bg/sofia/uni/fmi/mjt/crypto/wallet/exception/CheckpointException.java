@@ -0,0 +1,11 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.exception;
+
+public class CheckpointException extends RuntimeException {
+    public CheckpointException(String message) {
+        super(message);
+    }
+
+    public CheckpointException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
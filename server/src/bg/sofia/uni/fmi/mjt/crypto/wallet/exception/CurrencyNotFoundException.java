@@ -0,0 +1,7 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.exception;
+
+public class CurrencyNotFoundException extends CoinAPIException {
+    public CurrencyNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.exception;
+
+public class MutationLogException extends RuntimeException {
+    public MutationLogException(String message) {
+        super(message);
+    }
+
+    public MutationLogException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.exception;
+
+public class OrderStorageException extends RuntimeException {
+    public OrderStorageException(String message) {
+        super(message);
+    }
+
+    public OrderStorageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.exception;
+
+public class PriceSnapshotException extends RuntimeException {
+    public PriceSnapshotException(String message) {
+        super(message);
+    }
+
+    public PriceSnapshotException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
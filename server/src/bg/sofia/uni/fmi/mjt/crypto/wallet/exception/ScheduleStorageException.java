@@ -0,0 +1,11 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.exception;
+
+public class ScheduleStorageException extends RuntimeException {
+    public ScheduleStorageException(String message) {
+        super(message);
+    }
+
+    public ScheduleStorageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
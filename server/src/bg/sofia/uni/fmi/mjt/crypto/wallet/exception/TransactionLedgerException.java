@@ -0,0 +1,11 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.exception;
+
+public class TransactionLedgerException extends RuntimeException {
+    public TransactionLedgerException(String message) {
+        super(message);
+    }
+
+    public TransactionLedgerException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.exception;
+
+public class UserDataSavingException extends RuntimeException {
+    public UserDataSavingException(String message) {
+        super(message);
+    }
+
+    public UserDataSavingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,311 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.persistence;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.MutationLogException;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.CRC32;
+
+public class FileMutationLog implements MutationLog {
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES * 2;
+    private static final String LOG_OPENING_ERROR = "An error occurred while opening the mutation log";
+    private static final String LOG_WRITING_ERROR = "An error occurred while writing the mutation log";
+    private static final String LOG_FAILED_ERROR =
+            String.format("Changes cannot be saved at the moment. Please try again later.%n");
+
+    private final Path logPath;
+    private FileChannel channel;
+    private ByteArrayOutputStream pendingRecords;
+    private long lastAppendedLsn;
+    private long durableLsn;
+    private long validLength;
+    private boolean flushInProgress;
+    private MutationLogException failure;
+
+    private FileMutationLog(Path logPath, FileChannel channel, long validLength, long lastLsn) {
+        this.logPath = logPath;
+        this.channel = channel;
+        this.validLength = validLength;
+        pendingRecords = new ByteArrayOutputStream();
+        lastAppendedLsn = lastLsn;
+        durableLsn = lastLsn;
+        flushInProgress = false;
+    }
+
+    public static FileMutationLog open(Path logPath, ObjLongConsumer<MutationRecord> replayer) {
+        return open(logPath, 0, replayer);
+    }
+
+    public static FileMutationLog open(Path logPath, long startLsn, ObjLongConsumer<MutationRecord> replayer) {
+        try {
+            if (logPath.getParent() != null) {
+                Files.createDirectories(logPath.getParent());
+            }
+
+            FileChannel channel = FileChannel.open(logPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ReplayResult replayResult = replay(logPath, replayer);
+            channel.truncate(replayResult.validLength);
+
+            return new FileMutationLog(logPath, channel, replayResult.validLength,
+                    Math.max(startLsn, replayResult.lastLsn));
+        } catch (IOException exception) {
+            throw new MutationLogException(LOG_OPENING_ERROR, exception);
+        }
+    }
+
+    private static ReplayResult replay(Path logPath, ObjLongConsumer<MutationRecord> replayer) throws IOException {
+        long validLength = 0;
+        long lastLsn = 0;
+
+        try (InputStream fileInput = new BufferedInputStream(Files.newInputStream(logPath));
+             DataInputStream input = new DataInputStream(fileInput)) {
+            while (true) {
+                byte[] payload = readPayload(input);
+                if (payload == null) {
+                    break;
+                }
+
+                DataInputStream payloadInput = new DataInputStream(new ByteArrayInputStream(payload));
+                long lsn = payloadInput.readLong();
+                replayer.accept(MutationRecord.decode(payloadInput), lsn);
+
+                lastLsn = lsn;
+                validLength += RECORD_HEADER_SIZE + payload.length;
+            }
+        }
+
+        return new ReplayResult(validLength, lastLsn);
+    }
+
+    private static byte[] readPayload(DataInputStream input) throws IOException {
+        try {
+            int length = input.readInt();
+            int checksum = input.readInt();
+            if (length <= 0) {
+                return null;
+            }
+
+            byte[] payload = input.readNBytes(length);
+            if (payload.length != length || checksumOf(payload) != checksum) {
+                return null;
+            }
+
+            return payload;
+        } catch (EOFException exception) {
+            return null;
+        }
+    }
+
+    private static int checksumOf(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public synchronized void checkWritable() {
+        if (failure != null) {
+            throw new MutationLogException(LOG_FAILED_ERROR, failure);
+        }
+    }
+
+    @Override
+    public synchronized long append(MutationRecord record) {
+        long lsn = ++lastAppendedLsn;
+        byte[] payload = record.encode(lsn);
+
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE).putInt(payload.length).putInt(checksumOf(payload));
+        pendingRecords.writeBytes(header.array());
+        pendingRecords.writeBytes(payload);
+
+        return lsn;
+    }
+
+    @Override
+    public void sync() {
+        long targetLsn;
+        synchronized (this) {
+            targetLsn = lastAppendedLsn;
+        }
+
+        awaitDurable(targetLsn);
+    }
+
+    public void awaitDurable(long lsn) {
+        byte[] batch;
+        long batchLsn;
+        long batchOffset;
+
+        synchronized (this) {
+            while (durableLsn < lsn && flushInProgress) {
+                waitForFlush();
+            }
+            if (durableLsn >= lsn) {
+                return;
+            }
+
+            flushInProgress = true;
+            batch = pendingRecords.toByteArray();
+            batchLsn = lastAppendedLsn;
+            batchOffset = validLength;
+            pendingRecords = new ByteArrayOutputStream();
+        }
+
+        try {
+            writeAt(batch, batchOffset);
+            channel.force(false);
+        } catch (IOException exception) {
+            throw failFlush(batch, new MutationLogException(LOG_WRITING_ERROR, exception));
+        }
+
+        synchronized (this) {
+            validLength = batchOffset + batch.length;
+            durableLsn = Math.max(durableLsn, batchLsn);
+            failure = null;
+            flushInProgress = false;
+            notifyAll();
+        }
+    }
+
+    private synchronized MutationLogException failFlush(byte[] batch, MutationLogException exception) {
+        ByteArrayOutputStream restoredRecords = new ByteArrayOutputStream();
+        restoredRecords.writeBytes(batch);
+        restoredRecords.writeBytes(pendingRecords.toByteArray());
+        pendingRecords = restoredRecords;
+        failure = exception;
+        flushInProgress = false;
+        notifyAll();
+
+        return exception;
+    }
+
+    private void waitForFlush() {
+        try {
+            wait();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new MutationLogException(LOG_WRITING_ERROR, exception);
+        }
+    }
+
+    private void writeAt(byte[] records, long offset) throws IOException {
+        if (channel.size() > offset) {
+            channel.truncate(offset);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+    }
+
+    @Override
+    public synchronized long getLastLsn() {
+        return lastAppendedLsn;
+    }
+
+    public synchronized long getDurableLsn() {
+        return durableLsn;
+    }
+
+    @Override
+    public synchronized void truncateThrough(long lsn) {
+        while (flushInProgress) {
+            waitForFlush();
+        }
+
+        try {
+            byte[] pending = pendingRecords.toByteArray();
+            writeAt(pending, validLength);
+            validLength += pending.length;
+            pendingRecords = new ByteArrayOutputStream();
+
+            long keptStart = findFirstRecordAfter(lsn);
+            if (keptStart > 0) {
+                rewriteTail(keptStart);
+            } else {
+                channel.force(false);
+            }
+            durableLsn = lastAppendedLsn;
+            failure = null;
+        } catch (IOException exception) {
+            failure = new MutationLogException(LOG_WRITING_ERROR, exception);
+            throw failure;
+        }
+    }
+
+    private long findFirstRecordAfter(long lsn) throws IOException {
+        ByteBuffer prefix = ByteBuffer.allocate(RECORD_HEADER_SIZE + Long.BYTES);
+        long position = 0;
+        long size = validLength;
+        while (position < size) {
+            readFully(prefix.clear(), position);
+            if (prefix.getLong(RECORD_HEADER_SIZE) > lsn) {
+                return position;
+            }
+
+            position += RECORD_HEADER_SIZE + prefix.getInt(0);
+        }
+
+        return size;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private void rewriteTail(long keptStart) throws IOException {
+        Path temporaryPath = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+        try (FileChannel tail = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = keptStart;
+            long size = validLength;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, tail);
+            }
+            tail.force(true);
+        }
+
+        Files.move(temporaryPath, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.close();
+        channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        validLength = channel.size();
+    }
+
+    @Override
+    public void close() {
+        sync();
+        try {
+            channel.close();
+        } catch (IOException exception) {
+            throw new MutationLogException(LOG_WRITING_ERROR, exception);
+        }
+    }
+
+    private static class ReplayResult {
+        private final long validLength;
+        private final long lastLsn;
+
+        ReplayResult(long validLength, long lastLsn) {
+            this.validLength = validLength;
+            this.lastLsn = lastLsn;
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.persistence;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.TransactionLedgerException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class FileTransactionLedger implements TransactionLedger {
+    static final int RECORD_SIZE = 72;
+    private static final int RECORDS_PER_SEGMENT = 1 << 16;
+    private static final int USER_ID_OFFSET = 8;
+    private static final int TYPE_OFFSET = 12;
+    private static final int TIMESTAMP_OFFSET = 16;
+    private static final int CRYPTO_UNITS_OFFSET = 24;
+    private static final int MONEY_OFFSET = 32;
+    private static final int PRICE_OFFSET = 40;
+    private static final int LSN_OFFSET = 48;
+    private static final int OFFERING_CODE_OFFSET = 56;
+    private static final int OFFERING_CODE_LENGTH = RECORD_SIZE - OFFERING_CODE_OFFSET;
+    private static final int SCAN_BATCH_RECORDS = 4096;
+    private static final int INITIAL_USER_CAPACITY = 64;
+    private static final String SEGMENT_FILE_FORMAT = "segment-%05d.dat";
+    private static final String USER_DIRECTORY_FILE_NAME = "users.dat";
+    private static final String INDEX_FILE_NAME = "latest-records.idx";
+    private static final String LEDGER_OPENING_ERROR = "An error occurred while opening the transaction ledger";
+    private static final String LEDGER_WRITING_ERROR = "An error occurred while writing the transaction ledger";
+    private static final String LEDGER_READING_ERROR = "An error occurred while reading the transaction ledger";
+    private static final String INVALID_CURSOR_ERROR =
+            String.format("There is no page of your transactions with this number.%n");
+
+    private final Path directory;
+    private final List<FileChannel> segments;
+    private final Map<String, Integer> userIds;
+    private final FileChannel userDirectory;
+    private final Object pendingLock;
+    private final Set<Long> recoverableLsns;
+    private List<PendingTransaction> pendingTransactions;
+    private long[] latestRecords;
+    private long recordCount;
+    private long indexedLsn;
+    private long lastWrittenLsn;
+    private int firstUnforcedSegment;
+
+    private FileTransactionLedger(Path directory, List<FileChannel> segments, Map<String, Integer> userIds,
+                                  FileChannel userDirectory, long recordCount) {
+        this.directory = directory;
+        this.segments = segments;
+        this.userIds = userIds;
+        this.userDirectory = userDirectory;
+        this.recordCount = recordCount;
+        pendingLock = new Object();
+        recoverableLsns = new HashSet<>();
+        pendingTransactions = new ArrayList<>();
+        latestRecords = new long[Math.max(INITIAL_USER_CAPACITY, userIds.size())];
+        Arrays.fill(latestRecords, TransactionPage.NO_MORE_PAGES);
+        firstUnforcedSegment = Math.max(0, segments.size() - 1);
+    }
+
+    public static FileTransactionLedger open(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            Path userDirectoryPath = directory.resolve(USER_DIRECTORY_FILE_NAME);
+            Map<String, Integer> userIds = new HashMap<>();
+            long userDirectoryLength = readUserDirectory(userDirectoryPath, userIds);
+            FileChannel userDirectory = FileChannel.open(userDirectoryPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+            userDirectory.truncate(userDirectoryLength);
+            userDirectory.position(userDirectoryLength);
+
+            List<FileChannel> segments = openSegments(directory);
+            long recordCount = 0;
+            if (!segments.isEmpty()) {
+                FileChannel lastSegment = segments.get(segments.size() - 1);
+                long lastSegmentRecords = lastSegment.size() / RECORD_SIZE;
+                lastSegment.truncate(lastSegmentRecords * RECORD_SIZE);
+                recordCount = (long) (segments.size() - 1) * RECORDS_PER_SEGMENT + lastSegmentRecords;
+            }
+
+            FileTransactionLedger ledger =
+                    new FileTransactionLedger(directory, segments, userIds, userDirectory, recordCount);
+            ledger.scanRecords(ledger.loadIndex());
+            return ledger;
+        } catch (IOException exception) {
+            throw new TransactionLedgerException(LEDGER_OPENING_ERROR, exception);
+        }
+    }
+
+    private static long readUserDirectory(Path userDirectoryPath, Map<String, Integer> userIds) throws IOException {
+        if (!Files.exists(userDirectoryPath)) {
+            return 0;
+        }
+
+        long validLength = 0;
+        try (DataInputStream input =
+                     new DataInputStream(new BufferedInputStream(Files.newInputStream(userDirectoryPath)))) {
+            while (true) {
+                int length = input.readUnsignedShort();
+                byte[] username = input.readNBytes(length);
+                if (username.length != length) {
+                    break;
+                }
+
+                userIds.put(new String(username, StandardCharsets.UTF_8), userIds.size());
+                validLength += Short.BYTES + length;
+            }
+        } catch (EOFException exception) {
+            return validLength;
+        }
+
+        return validLength;
+    }
+
+    private static List<FileChannel> openSegments(Path directory) throws IOException {
+        List<FileChannel> segments = new ArrayList<>();
+        Path segmentPath = directory.resolve(String.format(SEGMENT_FILE_FORMAT, 0));
+        while (Files.exists(segmentPath)) {
+            segments.add(FileChannel.open(segmentPath, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            segmentPath = directory.resolve(String.format(SEGMENT_FILE_FORMAT, segments.size()));
+        }
+
+        return segments;
+    }
+
+    private long loadIndex() throws IOException {
+        Path indexPath = directory.resolve(INDEX_FILE_NAME);
+        if (!Files.exists(indexPath)) {
+            return 0;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            long coveredRecords = input.readLong();
+            long coveredLsn = input.readLong();
+            int indexedUsers = input.readInt();
+            if (coveredRecords > recordCount || indexedUsers > userIds.size()) {
+                return 0;
+            }
+
+            for (int userId = 0; userId < indexedUsers; userId++) {
+                latestRecords[userId] = input.readLong();
+            }
+            indexedLsn = coveredLsn;
+            return coveredRecords;
+        } catch (EOFException exception) {
+            Arrays.fill(latestRecords, TransactionPage.NO_MORE_PAGES);
+            return 0;
+        }
+    }
+
+    private void scanRecords(long firstRecord) throws IOException {
+        long position = firstRecord;
+        while (position < recordCount) {
+            int recordInSegment = (int) (position % RECORDS_PER_SEGMENT);
+            int batchRecords = (int) Math.min(Math.min(SCAN_BATCH_RECORDS, RECORDS_PER_SEGMENT - recordInSegment),
+                    recordCount - position);
+            ByteBuffer batch = ByteBuffer.allocate(batchRecords * RECORD_SIZE);
+            readFully(segments.get((int) (position / RECORDS_PER_SEGMENT)), batch,
+                    (long) recordInSegment * RECORD_SIZE);
+
+            for (int i = 0; i < batchRecords; i++) {
+                int userId = batch.getInt(i * RECORD_SIZE + USER_ID_OFFSET);
+                if (userId >= 0 && userId < userIds.size()) {
+                    latestRecords[userId] = position + i;
+                }
+                long lsn = batch.getLong(i * RECORD_SIZE + LSN_OFFSET);
+                if (lsn > indexedLsn) {
+                    recoverableLsns.add(lsn);
+                }
+            }
+            position += batchRecords;
+        }
+    }
+
+    @Override
+    public void append(String username, Transaction transaction, long lsn) {
+        synchronized (pendingLock) {
+            pendingTransactions.add(new PendingTransaction(username, transaction, lsn));
+        }
+    }
+
+    @Override
+    public synchronized void recover(String username, Transaction transaction, long lsn) {
+        if (lsn > indexedLsn && !recoverableLsns.contains(lsn)) {
+            append(username, transaction, lsn);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        List<PendingTransaction> batch = takePendingTransactions();
+        int writtenTransactions = 0;
+        try {
+            for (PendingTransaction transaction : batch) {
+                write(transaction.username, transaction.transaction, transaction.lsn);
+                writtenTransactions++;
+            }
+        } catch (IOException exception) {
+            restorePendingTransactions(batch.subList(writtenTransactions, batch.size()));
+            throw new TransactionLedgerException(LEDGER_WRITING_ERROR, exception);
+        }
+    }
+
+    private List<PendingTransaction> takePendingTransactions() {
+        synchronized (pendingLock) {
+            List<PendingTransaction> batch = pendingTransactions;
+            pendingTransactions = new ArrayList<>();
+            return batch;
+        }
+    }
+
+    private void restorePendingTransactions(List<PendingTransaction> unwrittenTransactions) {
+        synchronized (pendingLock) {
+            List<PendingTransaction> restoredTransactions = new ArrayList<>(unwrittenTransactions);
+            restoredTransactions.addAll(pendingTransactions);
+            pendingTransactions = restoredTransactions;
+        }
+    }
+
+    private void write(String username, Transaction transaction, long lsn) throws IOException {
+        int userId = getOrRegisterUser(username);
+        long position = recordCount;
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putLong(0, latestRecords[userId]);
+        record.putInt(USER_ID_OFFSET, userId);
+        record.put(TYPE_OFFSET, (byte) transaction.getType().ordinal());
+        record.putLong(TIMESTAMP_OFFSET, transaction.getTimestampMillis());
+        record.putLong(CRYPTO_UNITS_OFFSET, transaction.getCryptoUnits());
+        record.putLong(MONEY_OFFSET, transaction.getMoneyMicros());
+        record.putLong(PRICE_OFFSET, transaction.getPriceMicros());
+        record.putLong(LSN_OFFSET, lsn);
+        byte[] offeringCode = transaction.getOfferingCode().getBytes(StandardCharsets.US_ASCII);
+        record.put(OFFERING_CODE_OFFSET, offeringCode, 0, Math.min(offeringCode.length, OFFERING_CODE_LENGTH));
+
+        writeFully(getWritableSegment(position), record, offsetOf(position));
+        latestRecords[userId] = position;
+        lastWrittenLsn = Math.max(lastWrittenLsn, lsn);
+        recordCount++;
+    }
+
+    private int getOrRegisterUser(String username) throws IOException {
+        Integer userId = userIds.get(username);
+        if (userId != null) {
+            return userId;
+        }
+
+        byte[] encodedUsername = username.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer entry = ByteBuffer.allocate(Short.BYTES + encodedUsername.length);
+        entry.putShort((short) encodedUsername.length).put(encodedUsername).flip();
+        while (entry.hasRemaining()) {
+            userDirectory.write(entry);
+        }
+
+        int newUserId = userIds.size();
+        userIds.put(username, newUserId);
+        if (newUserId >= latestRecords.length) {
+            int previousCapacity = latestRecords.length;
+            latestRecords = Arrays.copyOf(latestRecords, previousCapacity * 2);
+            Arrays.fill(latestRecords, previousCapacity, latestRecords.length, TransactionPage.NO_MORE_PAGES);
+        }
+        return newUserId;
+    }
+
+    private FileChannel getWritableSegment(long position) throws IOException {
+        int segment = (int) (position / RECORDS_PER_SEGMENT);
+        if (segment == segments.size()) {
+            Path segmentPath = directory.resolve(String.format(SEGMENT_FILE_FORMAT, segment));
+            segments.add(FileChannel.open(segmentPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE));
+        }
+
+        return segments.get(segment);
+    }
+
+    private static long offsetOf(long position) {
+        return (position % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+    }
+
+    @Override
+    public TransactionPage readPage(String username, long cursor, int pageSize) {
+        int userId;
+        long position;
+        synchronized (this) {
+            flush();
+            Integer knownUserId = userIds.get(username);
+            if (knownUserId == null) {
+                if (cursor != FIRST_PAGE) {
+                    throw new IllegalArgumentException(INVALID_CURSOR_ERROR);
+                }
+                return new TransactionPage(List.of(), TransactionPage.NO_MORE_PAGES);
+            }
+
+            userId = knownUserId;
+            position = cursor == FIRST_PAGE ? latestRecords[userId] : cursor;
+            if (cursor != FIRST_PAGE && (cursor < 0 || cursor >= recordCount)) {
+                throw new IllegalArgumentException(INVALID_CURSOR_ERROR);
+            }
+        }
+
+        List<Transaction> transactions = new ArrayList<>(pageSize);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        try {
+            while (position != TransactionPage.NO_MORE_PAGES && transactions.size() < pageSize) {
+                record.clear();
+                readFully(getSegment(position), record, offsetOf(position));
+                if (record.getInt(USER_ID_OFFSET) != userId) {
+                    throw new IllegalArgumentException(INVALID_CURSOR_ERROR);
+                }
+
+                transactions.add(decode(record));
+                position = record.getLong(0);
+            }
+        } catch (IOException exception) {
+            throw new TransactionLedgerException(LEDGER_READING_ERROR, exception);
+        }
+
+        return new TransactionPage(transactions, position);
+    }
+
+    private synchronized FileChannel getSegment(long position) {
+        return segments.get((int) (position / RECORDS_PER_SEGMENT));
+    }
+
+    private static Transaction decode(ByteBuffer record) {
+        int offeringCodeLength = 0;
+        while (offeringCodeLength < OFFERING_CODE_LENGTH
+                && record.get(OFFERING_CODE_OFFSET + offeringCodeLength) != 0) {
+            offeringCodeLength++;
+        }
+        byte[] offeringCode = new byte[offeringCodeLength];
+        record.get(OFFERING_CODE_OFFSET, offeringCode);
+
+        return new Transaction(TransactionType.values()[record.get(TYPE_OFFSET)], record.getLong(TIMESTAMP_OFFSET),
+                new String(offeringCode, StandardCharsets.US_ASCII), record.getLong(CRYPTO_UNITS_OFFSET),
+                record.getLong(MONEY_OFFSET), record.getLong(PRICE_OFFSET));
+    }
+
+    @Override
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    public synchronized void saveIndex() {
+        flush();
+        saveIndex(recordCount, lastWrittenLsn);
+    }
+
+    @Override
+    public synchronized void saveIndex(long coveredRecords, long lsn) {
+        flush();
+        Path indexPath = directory.resolve(INDEX_FILE_NAME);
+        Path temporaryPath = directory.resolve(INDEX_FILE_NAME + ".tmp");
+        try {
+            for (int segment = firstUnforcedSegment; segment < segments.size(); segment++) {
+                segments.get(segment).force(false);
+            }
+            firstUnforcedSegment = Math.max(0, segments.size() - 1);
+            userDirectory.force(false);
+
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+                output.writeLong(coveredRecords);
+                output.writeLong(lsn);
+                output.writeInt(userIds.size());
+                for (int userId = 0; userId < userIds.size(); userId++) {
+                    output.writeLong(latestRecords[userId]);
+                }
+            }
+            Files.move(temporaryPath, indexPath, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new TransactionLedgerException(LEDGER_WRITING_ERROR, exception);
+        }
+        indexedLsn = Math.max(indexedLsn, lsn);
+        recoverableLsns.clear();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int bytesRead = channel.read(buffer, offset + buffer.position());
+            if (bytesRead < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        saveIndex();
+        try {
+            userDirectory.close();
+            for (FileChannel segment : segments) {
+                segment.close();
+            }
+        } catch (IOException exception) {
+            throw new TransactionLedgerException(LEDGER_WRITING_ERROR, exception);
+        }
+    }
+
+    private static final class PendingTransaction {
+        private final String username;
+        private final Transaction transaction;
+        private final long lsn;
+
+        private PendingTransaction(String username, Transaction transaction, long lsn) {
+            this.username = username;
+            this.transaction = transaction;
+            this.lsn = lsn;
+        }
+    }
+}
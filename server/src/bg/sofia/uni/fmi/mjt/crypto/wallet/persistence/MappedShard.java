@@ -0,0 +1,59 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.persistence;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserProfile;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+public class MappedShard {
+    private static final MappedShard EMPTY = new MappedShard(0, ByteBuffer.allocate(0), Map.of(), false);
+
+    private final long lsn;
+    private final ByteBuffer buffer;
+    private final Map<String, Integer> offsets;
+    private final boolean floatingPointFormat;
+
+    MappedShard(long lsn, ByteBuffer buffer, Map<String, Integer> offsets, boolean floatingPointFormat) {
+        this.lsn = lsn;
+        this.buffer = buffer;
+        this.offsets = offsets;
+        this.floatingPointFormat = floatingPointFormat;
+    }
+
+    public static MappedShard empty() {
+        return EMPTY;
+    }
+
+    public long getLsn() {
+        return lsn;
+    }
+
+    public boolean isFloatingPointFormat() {
+        return floatingPointFormat;
+    }
+
+    public int size() {
+        return offsets.size();
+    }
+
+    public boolean contains(String username) {
+        return offsets.containsKey(username);
+    }
+
+    public Set<String> getUsernames() {
+        return Collections.unmodifiableSet(offsets.keySet());
+    }
+
+    public UserProfile hydrate(String username) {
+        return UserCheckpoint.decodeUser(buffer.duplicate().position(offsets.get(username)), floatingPointFormat);
+    }
+
+    ByteBuffer getRecord(String username) {
+        int offset = offsets.get(username);
+        int length = UserCheckpoint.skipUser(buffer.duplicate().position(offset)) - offset;
+
+        return buffer.slice(offset, length);
+    }
+}
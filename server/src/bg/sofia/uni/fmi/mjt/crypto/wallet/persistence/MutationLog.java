@@ -0,0 +1,48 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.persistence;
+
+public interface MutationLog extends AutoCloseable {
+    void checkWritable();
+
+    long append(MutationRecord record);
+
+    void sync();
+
+    void truncateThrough(long lsn);
+
+    long getLastLsn();
+
+    @Override
+    void close();
+
+    static MutationLog disabled() {
+        return new MutationLog() {
+            private long lastLsn;
+
+            @Override
+            public void checkWritable() {
+            }
+
+            @Override
+            public synchronized long append(MutationRecord record) {
+                return ++lastLsn;
+            }
+
+            @Override
+            public void sync() {
+            }
+
+            @Override
+            public void truncateThrough(long lsn) {
+            }
+
+            @Override
+            public synchronized long getLastLsn() {
+                return lastLsn;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class MutationRecord {
+    private final MutationType type;
+    private final String username;
+    private final String argument;
+    private final double amount;
+    private final double price;
+    private Transaction transaction;
+
+    private MutationRecord(MutationType type, String username, String argument, double amount, double price) {
+        this.type = type;
+        this.username = username;
+        this.argument = argument;
+        this.amount = amount;
+        this.price = price;
+    }
+
+    public static MutationRecord register(String username, String passwordHash) {
+        return new MutationRecord(MutationType.REGISTER, username, passwordHash, 0, 0);
+    }
+
+    public static MutationRecord deposit(String username, double amount) {
+        return new MutationRecord(MutationType.DEPOSIT, username, "", amount, 0);
+    }
+
+    public static MutationRecord buy(String username, String offeringCode, double moneyToInvest, double price) {
+        return new MutationRecord(MutationType.BUY, username, offeringCode, moneyToInvest, price);
+    }
+
+    public static MutationRecord sell(String username, String offeringCode, double price) {
+        return new MutationRecord(MutationType.SELL, username, offeringCode, 0, price);
+    }
+
+    public static MutationRecord passwordChange(String username, String passwordHash) {
+        return new MutationRecord(MutationType.PASSWORD_CHANGE, username, passwordHash, 0, 0);
+    }
+
+    public MutationType getType() {
+        return type;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPasswordHash() {
+        return argument;
+    }
+
+    public String getOfferingCode() {
+        return argument;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    public void setTransaction(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    byte[] encode(long lsn) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeLong(lsn);
+            output.writeByte(type.ordinal());
+            output.writeUTF(username);
+            output.writeUTF(argument);
+            output.writeDouble(amount);
+            output.writeDouble(price);
+            output.writeBoolean(transaction != null);
+            if (transaction != null) {
+                encodeTransaction(output);
+            }
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private void encodeTransaction(DataOutputStream output) throws IOException {
+        output.writeByte(transaction.getType().ordinal());
+        output.writeLong(transaction.getTimestampMillis());
+        output.writeUTF(transaction.getOfferingCode());
+        output.writeLong(transaction.getCryptoUnits());
+        output.writeLong(transaction.getMoneyMicros());
+        output.writeLong(transaction.getPriceMicros());
+    }
+
+    static MutationRecord decode(DataInput input) throws IOException {
+        MutationType type = MutationType.values()[input.readByte()];
+        MutationRecord record =
+                new MutationRecord(type, input.readUTF(), input.readUTF(), input.readDouble(), input.readDouble());
+        if (input.readBoolean()) {
+            record.transaction = new Transaction(TransactionType.values()[input.readByte()], input.readLong(),
+                    input.readUTF(), input.readLong(), input.readLong(), input.readLong());
+        }
+
+        return record;
+    }
+}
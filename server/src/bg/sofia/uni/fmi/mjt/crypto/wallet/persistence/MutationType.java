@@ -0,0 +1,9 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.persistence;
+
+public enum MutationType {
+    REGISTER,
+    DEPOSIT,
+    BUY,
+    SELL,
+    PASSWORD_CHANGE
+}
@@ -0,0 +1,55 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.persistence;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CheckpointException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+public class ShardedUserCheckpoint {
+    private static final String SHARD_FILE_FORMAT = "shard-%03d.ckpt";
+
+    private final UserCheckpoint[] shards;
+
+    public ShardedUserCheckpoint(Path directory, int shardCount) {
+        shards = new UserCheckpoint[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new UserCheckpoint(directory.resolve(String.format(SHARD_FILE_FORMAT, i)));
+        }
+    }
+
+    public boolean exists() {
+        return Arrays.stream(shards).anyMatch(UserCheckpoint::exists);
+    }
+
+    public void save(BitSet dirtyShards, UserRepository userRepository) {
+        dirtyShards.stream()
+                .parallel()
+                .forEach(shard -> saveShard(shard, userRepository));
+    }
+
+    public void saveShard(int shard, UserRepository userRepository) {
+        ByteBuffer[] encodedShard = userRepository.flushShard(shard, shards[shard]::encode);
+        try {
+            userRepository.completeShardFlush(shard, shards[shard].write(encodedShard));
+        } catch (CheckpointException exception) {
+            userRepository.abortShardFlush(shard);
+            throw exception;
+        }
+        shards[shard].deletePreviousGenerations();
+    }
+
+    public MappedShard[] map() {
+        return IntStream.range(0, shards.length)
+                .parallel()
+                .mapToObj(shard -> {
+                    MappedShard mappedShard = shards[shard].map();
+                    shards[shard].deletePreviousGenerations();
+                    return mappedShard;
+                })
+                .toArray(MappedShard[]::new);
+    }
+}
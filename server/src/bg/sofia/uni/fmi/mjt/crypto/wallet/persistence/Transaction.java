@@ -0,0 +1,74 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.persistence;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.FixedPoint;
+
+public class Transaction {
+    private final TransactionType type;
+    private final long timestampMillis;
+    private final String offeringCode;
+    private final long cryptoUnits;
+    private final long moneyMicros;
+    private final long priceMicros;
+
+    public Transaction(TransactionType type, long timestampMillis, String offeringCode, long cryptoUnits,
+                       long moneyMicros, long priceMicros) {
+        this.type = type;
+        this.timestampMillis = timestampMillis;
+        this.offeringCode = offeringCode;
+        this.cryptoUnits = cryptoUnits;
+        this.moneyMicros = moneyMicros;
+        this.priceMicros = priceMicros;
+    }
+
+    public static Transaction deposit(long timestampMillis, double money) {
+        return new Transaction(TransactionType.DEPOSIT, timestampMillis, "", 0, FixedPoint.toMicros(money), 0);
+    }
+
+    public static Transaction buy(long timestampMillis, String offeringCode, double cryptoAmount, double money,
+                                  double price) {
+        return new Transaction(TransactionType.BUY, timestampMillis, offeringCode, FixedPoint.toUnits(cryptoAmount),
+                FixedPoint.toMicros(money), FixedPoint.toMicros(price));
+    }
+
+    public static Transaction sell(long timestampMillis, String offeringCode, double cryptoAmount, double money,
+                                   double price) {
+        return new Transaction(TransactionType.SELL, timestampMillis, offeringCode, FixedPoint.toUnits(cryptoAmount),
+                FixedPoint.toMicros(money), FixedPoint.toMicros(price));
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public String getOfferingCode() {
+        return offeringCode;
+    }
+
+    public double getCryptoAmount() {
+        return FixedPoint.toCoins(cryptoUnits);
+    }
+
+    public double getMoney() {
+        return FixedPoint.toDollars(moneyMicros);
+    }
+
+    public double getPrice() {
+        return FixedPoint.toDollars(priceMicros);
+    }
+
+    public long getCryptoUnits() {
+        return cryptoUnits;
+    }
+
+    public long getMoneyMicros() {
+        return moneyMicros;
+    }
+
+    public long getPriceMicros() {
+        return priceMicros;
+    }
+}
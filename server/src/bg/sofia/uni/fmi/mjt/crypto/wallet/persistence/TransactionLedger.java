@@ -0,0 +1,56 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.persistence;
+
+import java.util.List;
+
+public interface TransactionLedger extends AutoCloseable {
+    long FIRST_PAGE = -1;
+
+    void append(String username, Transaction transaction, long lsn);
+
+    void recover(String username, Transaction transaction, long lsn);
+
+    void flush();
+
+    TransactionPage readPage(String username, long cursor, int pageSize);
+
+    long getRecordCount();
+
+    void saveIndex(long coveredRecords, long lsn);
+
+    @Override
+    void close();
+
+    static TransactionLedger disabled() {
+        return new TransactionLedger() {
+            @Override
+            public void append(String username, Transaction transaction, long lsn) {
+            }
+
+            @Override
+            public void recover(String username, Transaction transaction, long lsn) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public TransactionPage readPage(String username, long cursor, int pageSize) {
+                return new TransactionPage(List.of(), TransactionPage.NO_MORE_PAGES);
+            }
+
+            @Override
+            public long getRecordCount() {
+                return 0;
+            }
+
+            @Override
+            public void saveIndex(long coveredRecords, long lsn) {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.persistence;
+
+import java.util.List;
+
+public class TransactionPage {
+    public static final long NO_MORE_PAGES = -1;
+
+    private final List<Transaction> transactions;
+    private final long nextCursor;
+
+    public TransactionPage(List<Transaction> transactions, long nextCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNextPage() {
+        return nextCursor != NO_MORE_PAGES;
+    }
+}
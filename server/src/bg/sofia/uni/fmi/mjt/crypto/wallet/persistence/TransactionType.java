@@ -0,0 +1,7 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.persistence;
+
+public enum TransactionType {
+    DEPOSIT,
+    BUY,
+    SELL
+}
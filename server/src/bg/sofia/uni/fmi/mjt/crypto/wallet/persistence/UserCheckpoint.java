@@ -0,0 +1,380 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.persistence;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CheckpointException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.CryptoCurrency;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.FixedPoint;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserProfile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+public class UserCheckpoint {
+    private static final int MAGIC_NUMBER = 0x55534552;
+    private static final int FORMAT_VERSION = 2;
+    private static final int FLOATING_POINT_FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES * 4 + Long.BYTES;
+    private static final int DIRECTORY_ENTRY_SIZE = Long.BYTES + Integer.BYTES * 3;
+    private static final int USERS_PER_PARTITION = 4096;
+    private static final int MAX_PARTITIONS = 256;
+    private static final long LEGACY_GENERATION = 0;
+    private static final long NO_GENERATION = -1;
+    private static final String CHECKPOINT_SAVING_ERROR = "An error occurred while saving the user checkpoint";
+    private static final String CHECKPOINT_LOADING_ERROR = "An error occurred while loading the user checkpoint";
+    private static final String CHECKPOINT_FORMAT_ERROR = "The user checkpoint is damaged or has an unknown format";
+
+    private final Path checkpointPath;
+
+    public UserCheckpoint(Path checkpointPath) {
+        this.checkpointPath = checkpointPath;
+    }
+
+    public boolean exists() {
+        return getLatestGeneration() != NO_GENERATION;
+    }
+
+    public MappedShard save(Collection<UserProfile> residentUsers, MappedShard previousShard, long lsn) {
+        return write(encode(residentUsers, previousShard, lsn));
+    }
+
+    public ByteBuffer[] encode(Collection<UserProfile> residentUsers, MappedShard previousShard, long lsn) {
+        List<UserProfile> profiles = new ArrayList<>(residentUsers);
+        List<ByteBuffer> mappedRecords = getRecordsToCopy(profiles, previousShard);
+        int userCount = profiles.size() + mappedRecords.size();
+        int partitionCount = getPartitionCount(userCount);
+        byte[][] partitions = IntStream.range(0, partitionCount)
+                .parallel()
+                .mapToObj(partition -> encodePartition(profiles, mappedRecords,
+                        getPartitionStart(userCount, partition, partitionCount),
+                        getPartitionStart(userCount, partition + 1, partitionCount)))
+                .toArray(byte[][]::new);
+
+        ByteBuffer[] buffers = new ByteBuffer[partitions.length + 1];
+        buffers[0] = createHeader(userCount, partitions, lsn);
+        for (int i = 0; i < partitions.length; i++) {
+            buffers[i + 1] = ByteBuffer.wrap(partitions[i]);
+        }
+
+        return buffers;
+    }
+
+    public synchronized MappedShard write(ByteBuffer[] encodedCheckpoint) {
+        Path temporaryPath = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+        Path generationPath = getGenerationPath(Math.max(getLatestGeneration(), LEGACY_GENERATION) + 1);
+        try {
+            if (checkpointPath.getParent() != null) {
+                Files.createDirectories(checkpointPath.getParent());
+            }
+
+            writeCheckpoint(temporaryPath, encodedCheckpoint);
+            Files.move(temporaryPath, generationPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new CheckpointException(CHECKPOINT_SAVING_ERROR, exception);
+        }
+
+        return map(generationPath);
+    }
+
+    public synchronized void deletePreviousGenerations() {
+        long latestGeneration = getLatestGeneration();
+        for (long generation : listGenerations()) {
+            if (generation == latestGeneration) {
+                continue;
+            }
+
+            try {
+                Files.deleteIfExists(getGenerationPath(generation));
+            } catch (IOException exception) {
+                System.out.println(exception.getMessage());
+            }
+        }
+    }
+
+    private Path getGenerationPath(long generation) {
+        return generation == LEGACY_GENERATION ? checkpointPath
+                : checkpointPath.resolveSibling(checkpointPath.getFileName() + "." + generation);
+    }
+
+    private long getLatestGeneration() {
+        long latestGeneration = NO_GENERATION;
+        for (long generation : listGenerations()) {
+            latestGeneration = Math.max(latestGeneration, generation);
+        }
+
+        return latestGeneration;
+    }
+
+    private List<Long> listGenerations() {
+        Path directory = checkpointPath.toAbsolutePath().getParent();
+        String checkpointName = checkpointPath.getFileName().toString();
+        List<Long> generations = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return generations;
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> getGeneration(checkpointName, file.getFileName().toString()))
+                    .filter(generation -> generation != NO_GENERATION)
+                    .forEach(generations::add);
+        } catch (IOException exception) {
+            throw new CheckpointException(CHECKPOINT_LOADING_ERROR, exception);
+        }
+
+        return generations;
+    }
+
+    private long getGeneration(String checkpointName, String fileName) {
+        if (fileName.equals(checkpointName)) {
+            return LEGACY_GENERATION;
+        }
+
+        String suffix = fileName.startsWith(checkpointName + ".") ? fileName.substring(checkpointName.length() + 1)
+                : "";
+        return !suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit) ? Long.parseLong(suffix)
+                : NO_GENERATION;
+    }
+
+    private List<ByteBuffer> getRecordsToCopy(List<UserProfile> profiles, MappedShard previousShard) {
+        Set<String> residentUsernames = new HashSet<>();
+        for (UserProfile user : profiles) {
+            residentUsernames.add(user.getUsername());
+        }
+
+        List<ByteBuffer> mappedRecords = new ArrayList<>();
+        for (String username : previousShard.getUsernames()) {
+            if (residentUsernames.contains(username)) {
+                continue;
+            }
+
+            if (previousShard.isFloatingPointFormat()) {
+                profiles.add(previousShard.hydrate(username));
+            } else {
+                mappedRecords.add(previousShard.getRecord(username));
+            }
+        }
+
+        return mappedRecords;
+    }
+
+    private int getPartitionCount(int userCount) {
+        int partitionCount = (userCount + USERS_PER_PARTITION - 1) / USERS_PER_PARTITION;
+        return Math.max(1, Math.min(MAX_PARTITIONS, partitionCount));
+    }
+
+    private int getPartitionStart(int userCount, int partition, int partitionCount) {
+        return (int) ((long) userCount * partition / partitionCount);
+    }
+
+    private byte[] encodePartition(List<UserProfile> profiles, List<ByteBuffer> mappedRecords, int from, int to) {
+        int size = Integer.BYTES;
+        List<byte[]> strings = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            if (i >= profiles.size()) {
+                size += mappedRecords.get(i - profiles.size()).remaining();
+                continue;
+            }
+
+            UserProfile user = profiles.get(i);
+            size += addString(strings, user.getUsername()) + addString(strings, user.getPassword());
+            size += Long.BYTES + Integer.BYTES;
+            for (CryptoCurrency currency : user.getInvestments()) {
+                size += addString(strings, currency.getCode()) + Long.BYTES * 2;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(to - from);
+        int stringIndex = 0;
+        for (int i = from; i < to; i++) {
+            if (i >= profiles.size()) {
+                buffer.put(mappedRecords.get(i - profiles.size()).duplicate());
+                continue;
+            }
+
+            UserProfile user = profiles.get(i);
+            putString(buffer, strings.get(stringIndex++));
+            putString(buffer, strings.get(stringIndex++));
+            buffer.putLong(user.getBalanceMicros());
+            buffer.putInt(user.getInvestments().size());
+            for (CryptoCurrency currency : user.getInvestments()) {
+                putString(buffer, strings.get(stringIndex++));
+                buffer.putLong(currency.getCryptoUnits());
+                buffer.putLong(currency.getTotalPriceMicros());
+            }
+        }
+
+        return buffer.array();
+    }
+
+    private int addString(List<byte[]> strings, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        strings.add(bytes);
+        return Integer.BYTES + bytes.length;
+    }
+
+    private void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private ByteBuffer createHeader(int userCount, byte[][] partitions, long lsn) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + DIRECTORY_ENTRY_SIZE * partitions.length);
+        header.putInt(MAGIC_NUMBER).putInt(FORMAT_VERSION).putLong(lsn)
+                .putInt(partitions.length).putInt(userCount);
+
+        long offset = header.capacity();
+        for (byte[] partition : partitions) {
+            header.putLong(offset).putInt(partition.length).putInt(ByteBuffer.wrap(partition).getInt())
+                    .putInt(checksumOf(ByteBuffer.wrap(partition)));
+            offset += partition.length;
+        }
+
+        return header.flip();
+    }
+
+    private void writeCheckpoint(Path path, ByteBuffer[] encodedCheckpoint) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[encodedCheckpoint.length];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = encodedCheckpoint[i].duplicate();
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffers[buffers.length - 1].hasRemaining()) {
+                channel.write(buffers);
+            }
+            channel.force(true);
+        }
+    }
+
+    public synchronized MappedShard map() {
+        long latestGeneration = getLatestGeneration();
+        return latestGeneration == NO_GENERATION ? MappedShard.empty() : map(getGenerationPath(latestGeneration));
+    }
+
+    private MappedShard map(Path generationPath) {
+        try (FileChannel channel = FileChannel.open(generationPath, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return indexCheckpoint(buffer);
+        } catch (IOException exception) {
+            throw new CheckpointException(CHECKPOINT_LOADING_ERROR, exception);
+        }
+    }
+
+    private MappedShard indexCheckpoint(MappedByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt() != MAGIC_NUMBER) {
+            throw new CheckpointException(CHECKPOINT_FORMAT_ERROR);
+        }
+
+        int formatVersion = buffer.getInt();
+        if (formatVersion != FORMAT_VERSION && formatVersion != FLOATING_POINT_FORMAT_VERSION) {
+            throw new CheckpointException(CHECKPOINT_FORMAT_ERROR);
+        }
+
+        long lsn = buffer.getLong();
+        int partitionCount = buffer.getInt();
+        int userCount = buffer.getInt();
+        if (partitionCount < 0 || HEADER_SIZE + (long) DIRECTORY_ENTRY_SIZE * partitionCount > buffer.capacity()) {
+            throw new CheckpointException(CHECKPOINT_FORMAT_ERROR);
+        }
+
+        Map<String, Integer> offsets = new HashMap<>(Math.max(16, userCount * 4 / 3 + 1));
+        for (int i = 0; i < partitionCount; i++) {
+            long offset = buffer.getLong();
+            int length = buffer.getInt();
+            buffer.getInt();
+            int checksum = buffer.getInt();
+            if (offset < 0 || length < Integer.BYTES || offset + length > buffer.capacity()) {
+                throw new CheckpointException(CHECKPOINT_FORMAT_ERROR);
+            }
+
+            indexPartition(buffer.slice((int) offset, length), (int) offset, checksum, offsets);
+        }
+
+        return new MappedShard(lsn, buffer.position(0), offsets, formatVersion == FLOATING_POINT_FORMAT_VERSION);
+    }
+
+    private void indexPartition(ByteBuffer partition, int partitionOffset, int expectedChecksum,
+                                Map<String, Integer> offsets) {
+        if (checksumOf(partition.duplicate()) != expectedChecksum) {
+            throw new CheckpointException(CHECKPOINT_FORMAT_ERROR);
+        }
+
+        try {
+            int userCount = partition.getInt();
+            for (int i = 0; i < userCount; i++) {
+                int recordStart = partition.position();
+                String username = getString(partition.duplicate());
+                offsets.put(username, partitionOffset + recordStart);
+                skipUser(partition);
+            }
+        } catch (RuntimeException exception) {
+            throw new CheckpointException(CHECKPOINT_FORMAT_ERROR, exception);
+        }
+    }
+
+    static UserProfile decodeUser(ByteBuffer record, boolean floatingPointFormat) {
+        String username = getString(record);
+        String password = getString(record);
+        long balanceMicros = floatingPointFormat ? FixedPoint.toMicros(record.getDouble()) : record.getLong();
+        int investmentCount = record.getInt();
+
+        List<CryptoCurrency> investments = new ArrayList<>(investmentCount);
+        for (int i = 0; i < investmentCount; i++) {
+            String code = getString(record);
+            if (floatingPointFormat) {
+                investments.add(new CryptoCurrency(code, record.getDouble(), record.getDouble()));
+            } else {
+                investments.add(CryptoCurrency.ofFixedPoint(code, record.getLong(), record.getLong()));
+            }
+        }
+
+        return UserProfile.ofFixedPoint(username, password, balanceMicros, investments);
+    }
+
+    static int skipUser(ByteBuffer record) {
+        skipString(record);
+        skipString(record);
+        record.position(record.position() + Long.BYTES);
+        int investmentCount = record.getInt();
+        for (int i = 0; i < investmentCount; i++) {
+            skipString(record);
+            record.position(record.position() + Long.BYTES * 2);
+        }
+
+        return record.position();
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        buffer.position(buffer.position() + length);
+    }
+
+    private static int checksumOf(ByteBuffer bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,103 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.persistence;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.UserDataSavingException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserDTO;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserProfile;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserSnapshot;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class UserExporter implements AutoCloseable {
+    private static final String USER_SAVING_ERROR = "An error occurred while saving users";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+
+    private final UserRepository userRepository;
+    private final Path exportPath;
+    private final ExecutorService exportExecutor;
+    private final Gson gson;
+    private CompletableFuture<Integer> currentExport;
+
+    public UserExporter(UserRepository userRepository, Path exportPath) {
+        this.userRepository = userRepository;
+        this.exportPath = exportPath;
+        exportExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        gson = new Gson();
+    }
+
+    public boolean isExportInProgress() {
+        return currentExport != null && !currentExport.isDone();
+    }
+
+    public CompletableFuture<Integer> export() {
+        UserSnapshot snapshot = userRepository.beginSnapshot();
+        currentExport = CompletableFuture.supplyAsync(() -> writeSnapshot(snapshot), exportExecutor)
+                .whenComplete((userCount, exception) -> userRepository.endSnapshot(snapshot));
+
+        return currentExport;
+    }
+
+    private int writeSnapshot(UserSnapshot snapshot) {
+        Path temporaryPath = exportPath.resolveSibling(exportPath.getFileName() + ".tmp");
+
+        try {
+            if (exportPath.getParent() != null) {
+                Files.createDirectories(exportPath.getParent());
+            }
+
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                Writer writer = new BufferedWriter(
+                        new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+                writeUsers(new JsonWriter(writer), snapshot);
+                channel.force(true);
+            }
+            Files.move(temporaryPath, exportPath,
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new UserDataSavingException(USER_SAVING_ERROR, exception);
+        }
+
+        return snapshot.size();
+    }
+
+    private void writeUsers(JsonWriter writer, UserSnapshot snapshot) throws IOException {
+        writer.beginArray();
+        for (int i = 0; i < snapshot.size(); i++) {
+            UserProfile user = snapshot.getUser(i);
+            gson.toJson(new UserDTO(user.getUsername(), user), UserDTO.class, writer);
+        }
+        writer.endArray();
+        writer.flush();
+    }
+
+    @Override
+    public void close() {
+        exportExecutor.shutdown();
+        try {
+            exportExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.persistence;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserDTO;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserProfile;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class UserJsonImporter {
+    private static final int BATCH_SIZE = 1024;
+    private static final int QUEUED_BATCHES_PER_WORKER = 4;
+    private static final long ENQUEUE_TIMEOUT_MILLIS = 100;
+    private static final List<UserProfile> END_OF_IMPORT = List.of();
+    private static final String IMPORT_INTERRUPTED_ERROR = "The user import was interrupted";
+    private static final String USER_IMPORT_ERROR = "A user could not be imported";
+    private static final String WORKER_STOPPED_ERROR = "A user import worker stopped unexpectedly";
+
+    private final UserRepository userRepository;
+    private final ShardedUserCheckpoint userCheckpoint;
+    private final int workerCount;
+    private final Gson gson;
+
+    public UserJsonImporter(UserRepository userRepository) {
+        this(userRepository, Runtime.getRuntime().availableProcessors());
+    }
+
+    public UserJsonImporter(UserRepository userRepository, int workerCount) {
+        this(userRepository, null, workerCount);
+    }
+
+    public UserJsonImporter(UserRepository userRepository, ShardedUserCheckpoint userCheckpoint) {
+        this(userRepository, userCheckpoint, Runtime.getRuntime().availableProcessors());
+    }
+
+    public UserJsonImporter(UserRepository userRepository, ShardedUserCheckpoint userCheckpoint, int workerCount) {
+        this.userRepository = userRepository;
+        this.userCheckpoint = userCheckpoint;
+        this.workerCount = Math.max(1, Math.min(workerCount, UserRepository.SHARD_COUNT));
+        gson = new Gson();
+    }
+
+    public int importUsers(Path userFilePath) throws IOException {
+        List<BlockingQueue<List<UserProfile>>> queues = new ArrayList<>(workerCount);
+        List<Future<Integer>> workers = new ArrayList<>(workerCount);
+        ExecutorService workerPool = Executors.newFixedThreadPool(workerCount);
+
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                BlockingQueue<List<UserProfile>> queue = new ArrayBlockingQueue<>(QUEUED_BATCHES_PER_WORKER);
+                queues.add(queue);
+                workers.add(workerPool.submit(() -> insertBatches(queue)));
+            }
+
+            int importedUsers;
+            try (Reader fileReader = Files.newBufferedReader(userFilePath, StandardCharsets.UTF_8);
+                 JsonReader reader = new JsonReader(fileReader)) {
+                importedUsers = readUsers(reader, queues, workers);
+            }
+            for (int i = 0; i < workerCount; i++) {
+                enqueue(queues.get(i), workers.get(i), END_OF_IMPORT);
+            }
+
+            awaitWorkers(workers);
+            return importedUsers;
+        } finally {
+            workerPool.shutdownNow();
+        }
+    }
+
+    private int readUsers(JsonReader reader, List<BlockingQueue<List<UserProfile>>> queues,
+                          List<Future<Integer>> workers) throws IOException {
+        List<List<UserProfile>> pendingBatches = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            pendingBatches.add(new ArrayList<>(BATCH_SIZE));
+        }
+
+        int importedUsers = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            UserDTO user = gson.fromJson(reader, UserDTO.class);
+            int worker = UserRepository.shardOf(user.getUsername()) % workerCount;
+            List<UserProfile> batch = pendingBatches.get(worker);
+            batch.add(user.getProfile());
+            importedUsers++;
+
+            if (batch.size() == BATCH_SIZE) {
+                enqueue(queues.get(worker), workers.get(worker), batch);
+                pendingBatches.set(worker, new ArrayList<>(BATCH_SIZE));
+            }
+        }
+        reader.endArray();
+
+        for (int i = 0; i < workerCount; i++) {
+            if (!pendingBatches.get(i).isEmpty()) {
+                enqueue(queues.get(i), workers.get(i), pendingBatches.get(i));
+            }
+        }
+
+        return importedUsers;
+    }
+
+    private int insertBatches(BlockingQueue<List<UserProfile>> queue) throws InterruptedException {
+        int insertedUsers = 0;
+        while (true) {
+            List<UserProfile> batch = queue.take();
+            if (batch == END_OF_IMPORT) {
+                return insertedUsers;
+            }
+
+            BitSet insertedShards = new BitSet(UserRepository.SHARD_COUNT);
+            for (UserProfile user : batch) {
+                userRepository.importUser(user);
+                insertedShards.set(UserRepository.shardOf(user.getUsername()));
+            }
+            insertedUsers += batch.size();
+
+            if (userCheckpoint != null) {
+                insertedShards.stream().forEach(this::evictIfOverCapacity);
+            }
+        }
+    }
+
+    private void evictIfOverCapacity(int shard) {
+        if (userRepository.isOverResidentCapacity(shard)) {
+            userCheckpoint.saveShard(shard, userRepository);
+            userRepository.evictShard(shard);
+        }
+    }
+
+    private void enqueue(BlockingQueue<List<UserProfile>> queue, Future<Integer> worker, List<UserProfile> batch)
+            throws IOException {
+        try {
+            while (!queue.offer(batch, ENQUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (worker.isDone()) {
+                    worker.get();
+                    throw new IOException(WORKER_STOPPED_ERROR);
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException(IMPORT_INTERRUPTED_ERROR, exception);
+        } catch (ExecutionException exception) {
+            throw new IOException(USER_IMPORT_ERROR, exception.getCause());
+        }
+    }
+
+    private void awaitWorkers(List<Future<Integer>> workers) throws IOException {
+        try {
+            for (Future<Integer> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException(IMPORT_INTERRUPTED_ERROR, exception);
+        } catch (ExecutionException exception) {
+            throw new IOException(USER_IMPORT_ERROR, exception.getCause());
+        }
+    }
+}
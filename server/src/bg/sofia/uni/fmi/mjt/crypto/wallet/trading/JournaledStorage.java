@@ -0,0 +1,175 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.trading;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+abstract class JournaledStorage<T> {
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final int MIN_COMPACTION_ENTRIES = 1024;
+
+    private final Path storagePath;
+    private final Path journalPath;
+    private final Class<T> itemType;
+    private final ToLongFunction<T> idOf;
+    private final Gson gson;
+    private long generation;
+    private int journalEntries;
+
+    JournaledStorage(Path storagePath, Class<T> itemType, ToLongFunction<T> idOf) {
+        this.storagePath = storagePath;
+        this.itemType = itemType;
+        this.idOf = idOf;
+        journalPath = storagePath.resolveSibling(storagePath.getFileName() + JOURNAL_SUFFIX);
+        gson = new Gson();
+    }
+
+    protected abstract RuntimeException loadingError(Exception cause);
+
+    protected abstract RuntimeException savingError(Exception cause);
+
+    public List<T> load() {
+        Map<Long, T> items = new LinkedHashMap<>();
+
+        try {
+            if (Files.exists(storagePath)) {
+                loadSnapshot(items);
+            }
+            if (Files.exists(journalPath)) {
+                replayJournal(items);
+            }
+        } catch (IOException | JsonParseException | IllegalStateException exception) {
+            throw loadingError(exception);
+        }
+
+        return new ArrayList<>(items.values());
+    }
+
+    private void loadSnapshot(Map<Long, T> items) throws IOException {
+        JsonElement snapshot = JsonParser.parseString(Files.readString(storagePath));
+        JsonArray storedItems;
+        if (snapshot.isJsonArray()) {
+            storedItems = snapshot.getAsJsonArray();
+        } else {
+            StoredSnapshot storedSnapshot = gson.fromJson(snapshot, StoredSnapshot.class);
+            generation = storedSnapshot.generation;
+            storedItems = storedSnapshot.items;
+        }
+
+        if (storedItems != null) {
+            for (JsonElement storedItem : storedItems) {
+                T item = gson.fromJson(storedItem, itemType);
+                items.put(idOf.applyAsLong(item), item);
+            }
+        }
+    }
+
+    private void replayJournal(Map<Long, T> items) throws IOException {
+        for (String line : Files.readAllLines(journalPath)) {
+            JournalEntry entry;
+            try {
+                entry = gson.fromJson(line, JournalEntry.class);
+            } catch (JsonParseException exception) {
+                return;
+            }
+            if (entry == null || entry.generation != generation) {
+                continue;
+            }
+
+            if (entry.item == null || entry.item.isJsonNull()) {
+                items.remove(entry.id);
+            } else {
+                items.put(entry.id, gson.fromJson(entry.item, itemType));
+            }
+            journalEntries++;
+        }
+    }
+
+    public void save(Collection<T> changedItems, Collection<Long> removedIds, Collection<T> allItems) {
+        if (journalEntries + changedItems.size() + removedIds.size()
+                > Math.max(MIN_COMPACTION_ENTRIES, allItems.size())) {
+            compact(allItems);
+            return;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (T item : changedItems) {
+            JournalEntry entry = new JournalEntry(generation, idOf.applyAsLong(item), gson.toJsonTree(item));
+            builder.append(gson.toJson(entry)).append('\n');
+        }
+        for (long removedId : removedIds) {
+            builder.append(gson.toJson(new JournalEntry(generation, removedId, null))).append('\n');
+        }
+
+        try {
+            createParentDirectory();
+            Files.writeString(journalPath, builder, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException exception) {
+            throw savingError(exception);
+        }
+        journalEntries += changedItems.size() + removedIds.size();
+    }
+
+    private void compact(Collection<T> items) {
+        Path temporaryPath = storagePath.resolveSibling(storagePath.getFileName() + ".tmp");
+        JsonArray storedItems = new JsonArray();
+        for (T item : items) {
+            storedItems.add(gson.toJsonTree(item));
+        }
+        StoredSnapshot storedSnapshot = new StoredSnapshot(generation + 1, storedItems);
+
+        try {
+            createParentDirectory();
+            Files.writeString(temporaryPath, gson.toJson(storedSnapshot));
+            Files.move(temporaryPath, storagePath,
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            generation = storedSnapshot.generation;
+            journalEntries = 0;
+            Files.deleteIfExists(journalPath);
+        } catch (IOException exception) {
+            throw savingError(exception);
+        }
+    }
+
+    private void createParentDirectory() throws IOException {
+        if (storagePath.getParent() != null) {
+            Files.createDirectories(storagePath.getParent());
+        }
+    }
+
+    private static final class StoredSnapshot {
+        private final long generation;
+        private final JsonArray items;
+
+        private StoredSnapshot(long generation, JsonArray items) {
+            this.generation = generation;
+            this.items = items;
+        }
+    }
+
+    private static final class JournalEntry {
+        private final long generation;
+        private final long id;
+        private final JsonElement item;
+
+        private JournalEntry(long generation, long id, JsonElement item) {
+            this.generation = generation;
+            this.id = id;
+            this.item = item;
+        }
+    }
+}
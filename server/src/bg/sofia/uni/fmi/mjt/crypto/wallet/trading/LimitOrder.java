@@ -0,0 +1,57 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.trading;
+
+public class LimitOrder {
+    private final long id;
+    private final String username;
+    private final String offeringCode;
+    private final OrderSide side;
+    private final double limitPrice;
+    private final double moneyToInvest;
+    private String failureReason;
+
+    public LimitOrder(long id, String username, String offeringCode, OrderSide side, double limitPrice,
+                      double moneyToInvest) {
+        this.id = id;
+        this.username = username;
+        this.offeringCode = offeringCode;
+        this.side = side;
+        this.limitPrice = limitPrice;
+        this.moneyToInvest = moneyToInvest;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getOfferingCode() {
+        return offeringCode;
+    }
+
+    public OrderSide getSide() {
+        return side;
+    }
+
+    public double getLimitPrice() {
+        return limitPrice;
+    }
+
+    public double getMoneyToInvest() {
+        return moneyToInvest;
+    }
+
+    public boolean hasFailed() {
+        return failureReason != null;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    void fail(String reason) {
+        failureReason = reason.strip();
+    }
+}
@@ -0,0 +1,255 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.trading;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.AssetRegistry;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.PriceUpdateListener;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.OrderStorageException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class LimitOrderBook implements PriceUpdateListener {
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private static final String INVALID_LIMIT_PRICE_ERROR =
+            String.format("The limit price must be a positive number.%n");
+    private static final String INVALID_INVESTMENT_ERROR =
+            String.format("The money to invest must be a positive number.%n");
+    private static final String INSUFFICIENT_FUNDS_ERROR =
+            String.format("You are attempting to invest more money than you currently own. Please deposit first.%n");
+    private static final String CURRENCY_NOT_OWNED_ERROR =
+            String.format("You have not invested in the currency you are trying to sell. Please purchase first.%n");
+    private static final String ORDER_EXECUTION_ERROR = "The order could not be executed.";
+
+    private final UserRepository userRepository;
+    private final AssetRegistry assetRegistry;
+    private final LimitOrderStorage storage;
+    private final Executor executionThread;
+    private final Map<Integer, TriggerBook> triggerBooks;
+    private final Map<Long, LimitOrder> orders;
+    private final Map<String, Set<LimitOrder>> ordersPerUser;
+    private long nextOrderId;
+
+    public LimitOrderBook(UserRepository userRepository, AssetRegistry assetRegistry, Path storagePath) {
+        this(userRepository, assetRegistry, storagePath, createExecutionThread());
+    }
+
+    public LimitOrderBook(UserRepository userRepository, AssetRegistry assetRegistry, Path storagePath,
+                          Executor executionThread) {
+        this.userRepository = userRepository;
+        this.assetRegistry = assetRegistry;
+        this.executionThread = executionThread;
+        storage = new LimitOrderStorage(storagePath);
+        triggerBooks = new HashMap<>();
+        orders = new LinkedHashMap<>();
+        ordersPerUser = new HashMap<>();
+        nextOrderId = 1;
+
+        loadOrders();
+    }
+
+    private static ExecutorService createExecutionThread() {
+        return Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "limit-order-executor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void loadOrders() {
+        try {
+            for (LimitOrder order : storage.load()) {
+                remember(order);
+                if (!order.hasFailed()) {
+                    addToTriggerBook(order);
+                }
+                nextOrderId = Math.max(nextOrderId, order.getId() + 1);
+            }
+        } catch (OrderStorageException exception) {
+            System.out.println(exception.getMessage());
+        }
+    }
+
+    private void saveOrders(Collection<LimitOrder> changedOrders, Collection<Long> removedIds) {
+        try {
+            storage.save(changedOrders, removedIds, orders.values());
+        } catch (OrderStorageException exception) {
+            System.out.println(exception.getMessage());
+        }
+    }
+
+    public synchronized LimitOrder placeBuyOrder(String username, String offeringCode, double limitPrice,
+                                                 double moneyToInvest) {
+        validateLimitPriceIsPositive(limitPrice);
+        if (moneyToInvest <= 0) {
+            throw new IllegalArgumentException(INVALID_INVESTMENT_ERROR);
+        }
+        if (moneyToInvest > userRepository.getUserByUsername(username).getBalance()) {
+            throw new IllegalArgumentException(INSUFFICIENT_FUNDS_ERROR);
+        }
+
+        return place(new LimitOrder(nextOrderId++, username, offeringCode, OrderSide.BUY, limitPrice, moneyToInvest));
+    }
+
+    public synchronized LimitOrder placeSellOrder(String username, String offeringCode, double limitPrice) {
+        validateLimitPriceIsPositive(limitPrice);
+        if (!userRepository.getUserByUsername(username).getUserCryptoCurrencies().contains(offeringCode)) {
+            throw new IllegalArgumentException(CURRENCY_NOT_OWNED_ERROR);
+        }
+
+        return place(new LimitOrder(nextOrderId++, username, offeringCode, OrderSide.SELL, limitPrice, 0));
+    }
+
+    private void validateLimitPriceIsPositive(double limitPrice) {
+        if (limitPrice <= 0) {
+            throw new IllegalArgumentException(INVALID_LIMIT_PRICE_ERROR);
+        }
+    }
+
+    private LimitOrder place(LimitOrder order) {
+        remember(order);
+        addToTriggerBook(order);
+        saveOrders(List.of(order), List.of());
+
+        return order;
+    }
+
+    public synchronized boolean cancel(String username, long orderId) {
+        LimitOrder order = orders.get(orderId);
+        if (order == null || !order.getUsername().equals(username)) {
+            return false;
+        }
+        if (!order.hasFailed() && !removeFromTriggerBook(order)) {
+            return false;
+        }
+
+        forget(order);
+        saveOrders(List.of(), List.of(orderId));
+        return true;
+    }
+
+    public synchronized List<LimitOrder> getOrders(String username) {
+        return new ArrayList<>(ordersPerUser.getOrDefault(username, Set.of()));
+    }
+
+    private void remember(LimitOrder order) {
+        orders.put(order.getId(), order);
+        ordersPerUser.computeIfAbsent(order.getUsername(), username -> new LinkedHashSet<>()).add(order);
+    }
+
+    private void forget(LimitOrder order) {
+        orders.remove(order.getId());
+        Set<LimitOrder> userOrders = ordersPerUser.get(order.getUsername());
+        userOrders.remove(order);
+        if (userOrders.isEmpty()) {
+            ordersPerUser.remove(order.getUsername());
+        }
+    }
+
+    private void addToTriggerBook(LimitOrder order) {
+        int assetIndex = assetRegistry.intern(order.getOfferingCode());
+        triggerBooks.computeIfAbsent(assetIndex, index -> new TriggerBook()).add(order);
+    }
+
+    private boolean removeFromTriggerBook(LimitOrder order) {
+        int assetIndex = assetRegistry.indexOf(order.getOfferingCode());
+        TriggerBook triggerBook = triggerBooks.get(assetIndex);
+        if (triggerBook == null || !triggerBook.remove(order)) {
+            return false;
+        }
+
+        if (triggerBook.isEmpty()) {
+            triggerBooks.remove(assetIndex);
+        }
+        return true;
+    }
+
+    @Override
+    public void onPriceUpdate(int assetIndex, double price, long updateMillis) {
+        List<LimitOrder> crossedOrders = takeCrossedOrders(assetIndex, price);
+        if (crossedOrders.isEmpty()) {
+            return;
+        }
+
+        try {
+            executionThread.execute(() -> executeAll(crossedOrders, price));
+        } catch (RejectedExecutionException exception) {
+            returnToTriggerBooks(crossedOrders);
+        }
+    }
+
+    private synchronized List<LimitOrder> takeCrossedOrders(int assetIndex, double price) {
+        TriggerBook triggerBook = triggerBooks.get(assetIndex);
+        if (triggerBook == null) {
+            return List.of();
+        }
+
+        List<LimitOrder> crossedOrders = triggerBook.pollCrossed(price);
+        if (triggerBook.isEmpty()) {
+            triggerBooks.remove(assetIndex);
+        }
+        return crossedOrders;
+    }
+
+    private synchronized void returnToTriggerBooks(List<LimitOrder> crossedOrders) {
+        for (LimitOrder order : crossedOrders) {
+            addToTriggerBook(order);
+        }
+    }
+
+    private void executeAll(List<LimitOrder> crossedOrders, double price) {
+        for (LimitOrder order : crossedOrders) {
+            execute(order, price);
+        }
+    }
+
+    private void execute(LimitOrder order, double price) {
+        removeTriggeredOrder(order);
+
+        try {
+            if (order.getSide() == OrderSide.BUY) {
+                userRepository.buyCryptocurrency(order.getUsername(), order.getOfferingCode(),
+                        order.getMoneyToInvest(), price);
+            } else {
+                userRepository.sellCryptocurrency(order.getUsername(), order.getOfferingCode(), price);
+            }
+        } catch (RuntimeException exception) {
+            recordFailure(order, exception.getMessage());
+        }
+    }
+
+    private synchronized void removeTriggeredOrder(LimitOrder order) {
+        forget(order);
+        saveOrders(List.of(), List.of(order.getId()));
+    }
+
+    private synchronized void recordFailure(LimitOrder order, String reason) {
+        order.fail(reason == null ? ORDER_EXECUTION_ERROR : reason);
+        remember(order);
+        saveOrders(List.of(order), List.of());
+    }
+
+    public void close() {
+        if (!(executionThread instanceof ExecutorService executorService)) {
+            return;
+        }
+
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.trading;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.OrderStorageException;
+
+import java.nio.file.Path;
+
+public class LimitOrderStorage extends JournaledStorage<LimitOrder> {
+    private static final String ORDER_SAVING_ERROR = "An error occurred while saving the limit orders";
+    private static final String ORDER_LOADING_ERROR =
+            "The limit orders could not be loaded. Open limit orders have been reset.";
+
+    public LimitOrderStorage(Path storagePath) {
+        super(storagePath, LimitOrder.class, LimitOrder::getId);
+    }
+
+    @Override
+    protected RuntimeException loadingError(Exception cause) {
+        return new OrderStorageException(ORDER_LOADING_ERROR, cause);
+    }
+
+    @Override
+    protected RuntimeException savingError(Exception cause) {
+        return new OrderStorageException(ORDER_SAVING_ERROR, cause);
+    }
+}
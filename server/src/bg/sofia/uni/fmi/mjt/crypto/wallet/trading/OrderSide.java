@@ -0,0 +1,6 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.trading;
+
+public enum OrderSide {
+    BUY,
+    SELL
+}
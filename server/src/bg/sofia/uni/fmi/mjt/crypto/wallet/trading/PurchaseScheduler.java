@@ -0,0 +1,233 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.trading;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CoinAPI;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CoinAPIException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.ScheduleStorageException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class PurchaseScheduler {
+    private static final long TICK_MILLIS = 1000;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private static final int WHEEL_SIZE = 512;
+    private static final Duration MIN_INTERVAL = Duration.ofMinutes(1);
+    private static final String INVALID_INVESTMENT_ERROR =
+            String.format("The money to invest must be a positive number.%n");
+    private static final String INVALID_INTERVAL_ERROR =
+            String.format("Recurring purchases must be at least one minute apart.%n");
+
+    private final UserRepository userRepository;
+    private final CoinAPI coinAPI;
+    private final RecurringPurchaseStorage storage;
+    private final Clock clock;
+    private final TimingWheel<RecurringPurchase> timingWheel;
+    private final Map<Long, RecurringPurchase> purchases;
+    private ScheduledExecutorService schedulerThread;
+    private long nextPurchaseId;
+
+    public PurchaseScheduler(UserRepository userRepository, CoinAPI coinAPI, Path storagePath) {
+        this(userRepository, coinAPI, storagePath, Clock.systemUTC());
+    }
+
+    public PurchaseScheduler(UserRepository userRepository, CoinAPI coinAPI, Path storagePath, Clock clock) {
+        this.userRepository = userRepository;
+        this.coinAPI = coinAPI;
+        this.clock = clock;
+        storage = new RecurringPurchaseStorage(storagePath);
+        timingWheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, clock.millis());
+        purchases = new LinkedHashMap<>();
+        nextPurchaseId = 1;
+
+        loadPurchases();
+    }
+
+    private void loadPurchases() {
+        try {
+            for (RecurringPurchase purchase : storage.load()) {
+                purchases.put(purchase.getId(), purchase);
+                timingWheel.schedule(purchase, purchase.getNextRunMillis());
+                nextPurchaseId = Math.max(nextPurchaseId, purchase.getId() + 1);
+            }
+        } catch (ScheduleStorageException exception) {
+            System.out.println(exception.getMessage());
+        }
+    }
+
+    private void savePurchases(Collection<RecurringPurchase> changedPurchases, Collection<Long> removedIds) {
+        storage.save(changedPurchases, removedIds, purchases.values());
+    }
+
+    public synchronized RecurringPurchase schedule(String username, String offeringCode, double moneyToInvest,
+                                                   Duration interval) {
+        if (moneyToInvest <= 0) {
+            throw new IllegalArgumentException(INVALID_INVESTMENT_ERROR);
+        }
+        if (interval.compareTo(MIN_INTERVAL) < 0) {
+            throw new IllegalArgumentException(INVALID_INTERVAL_ERROR);
+        }
+
+        long intervalMillis = interval.toMillis();
+        RecurringPurchase purchase = new RecurringPurchase(nextPurchaseId++, username, offeringCode,
+                moneyToInvest, intervalMillis, clock.millis() + intervalMillis);
+        purchases.put(purchase.getId(), purchase);
+        try {
+            savePurchases(List.of(purchase), List.of());
+        } catch (ScheduleStorageException exception) {
+            purchases.remove(purchase.getId());
+            throw exception;
+        }
+        timingWheel.schedule(purchase, purchase.getNextRunMillis());
+
+        return purchase;
+    }
+
+    public synchronized boolean cancel(String username, long purchaseId) {
+        RecurringPurchase purchase = purchases.get(purchaseId);
+        if (purchase == null || !purchase.getUsername().equals(username)) {
+            return false;
+        }
+
+        purchases.remove(purchaseId);
+        try {
+            savePurchases(List.of(), List.of(purchaseId));
+        } catch (ScheduleStorageException exception) {
+            purchases.put(purchaseId, purchase);
+            throw exception;
+        }
+        return true;
+    }
+
+    public synchronized List<RecurringPurchase> getPurchases(String username) {
+        List<RecurringPurchase> userPurchases = new ArrayList<>();
+        for (RecurringPurchase purchase : purchases.values()) {
+            if (purchase.getUsername().equals(username)) {
+                userPurchases.add(purchase);
+            }
+        }
+
+        return userPurchases;
+    }
+
+    public synchronized void start() {
+        if (schedulerThread != null) {
+            return;
+        }
+
+        schedulerThread = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "purchase-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        schedulerThread.scheduleWithFixedDelay(this::runDuePurchasesSafely, TICK_MILLIS, TICK_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void close() {
+        ScheduledExecutorService runningThread;
+        synchronized (this) {
+            runningThread = schedulerThread;
+            schedulerThread = null;
+        }
+        if (runningThread == null) {
+            return;
+        }
+
+        runningThread.shutdown();
+        try {
+            runningThread.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runDuePurchasesSafely() {
+        try {
+            runDuePurchases();
+        } catch (RuntimeException exception) {
+            System.out.println(exception.getMessage());
+        }
+    }
+
+    public void runDuePurchases() {
+        long currentMillis = clock.millis();
+        Map<String, List<RecurringPurchase>> purchasesPerCurrency = takeDuePurchases(currentMillis);
+        if (purchasesPerCurrency.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<String, List<RecurringPurchase>> currencyPurchases : purchasesPerCurrency.entrySet()) {
+            executePurchases(currencyPurchases.getKey(), currencyPurchases.getValue());
+        }
+    }
+
+    private synchronized Map<String, List<RecurringPurchase>> takeDuePurchases(long currentMillis) {
+        Map<String, List<RecurringPurchase>> purchasesPerCurrency = new LinkedHashMap<>();
+        List<RecurringPurchase> duePurchases = new ArrayList<>();
+        for (RecurringPurchase purchase : timingWheel.advance(currentMillis)) {
+            if (purchases.get(purchase.getId()) == purchase) {
+                purchasesPerCurrency.computeIfAbsent(purchase.getOfferingCode(), code -> new ArrayList<>())
+                        .add(purchase);
+                duePurchases.add(purchase);
+            }
+        }
+        if (duePurchases.isEmpty()) {
+            return purchasesPerCurrency;
+        }
+
+        long[] dueRunMillis = new long[duePurchases.size()];
+        for (int i = 0; i < duePurchases.size(); i++) {
+            dueRunMillis[i] = duePurchases.get(i).getNextRunMillis();
+            duePurchases.get(i).advance(currentMillis);
+        }
+
+        try {
+            savePurchases(duePurchases, List.of());
+        } catch (ScheduleStorageException exception) {
+            for (int i = 0; i < duePurchases.size(); i++) {
+                duePurchases.get(i).setNextRunMillis(dueRunMillis[i]);
+                timingWheel.schedule(duePurchases.get(i), dueRunMillis[i]);
+            }
+            throw exception;
+        }
+
+        for (RecurringPurchase purchase : duePurchases) {
+            timingWheel.schedule(purchase, purchase.getNextRunMillis());
+        }
+
+        return purchasesPerCurrency;
+    }
+
+    private void executePurchases(String offeringCode, List<RecurringPurchase> currencyPurchases) {
+        double currencyPrice;
+        try {
+            currencyPrice = coinAPI.getCoinCurrentPrice(offeringCode);
+        } catch (CoinAPIException exception) {
+            System.out.println(exception.getMessage());
+            return;
+        }
+
+        for (RecurringPurchase purchase : currencyPurchases) {
+            if (!userRepository.isRegistered(purchase.getUsername())) {
+                continue;
+            }
+
+            try {
+                userRepository.buyCryptocurrency(purchase.getUsername(), offeringCode,
+                        purchase.getMoneyToInvest(), currencyPrice);
+            } catch (IllegalArgumentException exception) {
+                System.out.println(exception.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.trading;
+
+public class RecurringPurchase {
+    private final long id;
+    private final String username;
+    private final String offeringCode;
+    private final double moneyToInvest;
+    private final long intervalMillis;
+    private long nextRunMillis;
+
+    public RecurringPurchase(long id, String username, String offeringCode, double moneyToInvest,
+                             long intervalMillis, long nextRunMillis) {
+        this.id = id;
+        this.username = username;
+        this.offeringCode = offeringCode;
+        this.moneyToInvest = moneyToInvest;
+        this.intervalMillis = intervalMillis;
+        this.nextRunMillis = nextRunMillis;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getOfferingCode() {
+        return offeringCode;
+    }
+
+    public double getMoneyToInvest() {
+        return moneyToInvest;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public long getNextRunMillis() {
+        return nextRunMillis;
+    }
+
+    void setNextRunMillis(long nextRunMillis) {
+        this.nextRunMillis = nextRunMillis;
+    }
+
+    void advance(long currentMillis) {
+        nextRunMillis += intervalMillis;
+        if (nextRunMillis <= currentMillis) {
+            nextRunMillis = currentMillis + intervalMillis;
+        }
+    }
+}
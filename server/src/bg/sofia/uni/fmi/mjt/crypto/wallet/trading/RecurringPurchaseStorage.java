@@ -0,0 +1,25 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.trading;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.ScheduleStorageException;
+
+import java.nio.file.Path;
+
+public class RecurringPurchaseStorage extends JournaledStorage<RecurringPurchase> {
+    private static final String SCHEDULE_SAVING_ERROR = "An error occurred while saving the recurring purchases";
+    private static final String SCHEDULE_LOADING_ERROR =
+            "The recurring purchases could not be loaded. Scheduled purchases have been reset.";
+
+    public RecurringPurchaseStorage(Path storagePath) {
+        super(storagePath, RecurringPurchase.class, RecurringPurchase::getId);
+    }
+
+    @Override
+    protected RuntimeException loadingError(Exception cause) {
+        return new ScheduleStorageException(SCHEDULE_LOADING_ERROR, cause);
+    }
+
+    @Override
+    protected RuntimeException savingError(Exception cause) {
+        return new ScheduleStorageException(SCHEDULE_SAVING_ERROR, cause);
+    }
+}
@@ -0,0 +1,59 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.trading;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+class TimingWheel<T> {
+    private final long tickMillis;
+    private final List<List<Timeout<T>>> slots;
+    private long currentTick;
+
+    TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.tickMillis = tickMillis;
+        slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new ArrayList<>());
+        }
+        currentTick = startMillis / tickMillis;
+    }
+
+    void schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        slots.get((int) Math.floorMod(deadlineTick, (long) slots.size())).add(new Timeout<>(item, deadlineTick));
+    }
+
+    List<T> advance(long currentMillis) {
+        long targetTick = currentMillis / tickMillis;
+        List<T> expired = new ArrayList<>();
+
+        long ticksToVisit = Math.min(targetTick - currentTick, slots.size());
+        for (long tick = currentTick + 1; tick <= currentTick + ticksToVisit; tick++) {
+            collectExpired(slots.get((int) Math.floorMod(tick, (long) slots.size())), targetTick, expired);
+        }
+
+        currentTick = Math.max(currentTick, targetTick);
+        return expired;
+    }
+
+    private void collectExpired(List<Timeout<T>> slot, long targetTick, List<T> expired) {
+        Iterator<Timeout<T>> iterator = slot.iterator();
+        while (iterator.hasNext()) {
+            Timeout<T> timeout = iterator.next();
+            if (timeout.deadlineTick <= targetTick) {
+                expired.add(timeout.item);
+                iterator.remove();
+            }
+        }
+    }
+
+    private static class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+
+        Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
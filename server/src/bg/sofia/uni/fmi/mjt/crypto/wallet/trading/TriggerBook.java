@@ -0,0 +1,55 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.trading;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+class TriggerBook {
+    private final NavigableMap<Double, Deque<LimitOrder>> buyOrders;
+    private final NavigableMap<Double, Deque<LimitOrder>> sellOrders;
+
+    TriggerBook() {
+        buyOrders = new TreeMap<>();
+        sellOrders = new TreeMap<>();
+    }
+
+    void add(LimitOrder order) {
+        NavigableMap<Double, Deque<LimitOrder>> orders = order.getSide() == OrderSide.BUY ? buyOrders : sellOrders;
+        orders.computeIfAbsent(order.getLimitPrice(), limitPrice -> new ArrayDeque<>()).addLast(order);
+    }
+
+    boolean remove(LimitOrder order) {
+        NavigableMap<Double, Deque<LimitOrder>> orders = order.getSide() == OrderSide.BUY ? buyOrders : sellOrders;
+        Deque<LimitOrder> level = orders.get(order.getLimitPrice());
+        if (level == null || !level.remove(order)) {
+            return false;
+        }
+
+        if (level.isEmpty()) {
+            orders.remove(order.getLimitPrice());
+        }
+        return true;
+    }
+
+    List<LimitOrder> pollCrossed(double price) {
+        List<LimitOrder> crossedOrders = new ArrayList<>();
+        pollLevels(buyOrders.tailMap(price, true), crossedOrders);
+        pollLevels(sellOrders.headMap(price, true), crossedOrders);
+
+        return crossedOrders;
+    }
+
+    private void pollLevels(NavigableMap<Double, Deque<LimitOrder>> crossedLevels, List<LimitOrder> crossedOrders) {
+        for (Deque<LimitOrder> level : crossedLevels.values()) {
+            crossedOrders.addAll(level);
+        }
+        crossedLevels.clear();
+    }
+
+    boolean isEmpty() {
+        return buyOrders.isEmpty() && sellOrders.isEmpty();
+    }
+}
@@ -0,0 +1,153 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.user;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.AssetRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CompactPortfolio {
+    private static final AssetRegistry ASSET_CODES = AssetRegistry.shared();
+    private static final int[] NO_ASSETS = new int[0];
+    private static final long[] NO_AMOUNTS = new long[0];
+
+    private int[] assetIds;
+    private long[] cryptoUnits;
+    private long[] totalPriceMicros;
+    private int size;
+
+    public CompactPortfolio() {
+        clear();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(String offeringCode) {
+        return indexOf(offeringCode) >= 0;
+    }
+
+    public CryptoCurrency get(String offeringCode) {
+        int index = indexOf(offeringCode);
+        return index < 0 ? null : toCryptoCurrency(index);
+    }
+
+    public void add(String offeringCode, long units, long priceMicros) {
+        int assetId = ASSET_CODES.intern(offeringCode);
+        int index = Arrays.binarySearch(assetIds, 0, size, assetId);
+        if (index >= 0) {
+            long newCryptoUnits = FixedPoint.add(cryptoUnits[index], units);
+            totalPriceMicros[index] = FixedPoint.add(totalPriceMicros[index], priceMicros);
+            cryptoUnits[index] = newCryptoUnits;
+            return;
+        }
+
+        insert(-index - 1, assetId, units, priceMicros);
+    }
+
+    public CryptoCurrency remove(String offeringCode) {
+        int index = indexOf(offeringCode);
+        if (index < 0) {
+            return null;
+        }
+
+        CryptoCurrency removedCurrency = toCryptoCurrency(index);
+        size--;
+        if (size == 0) {
+            clear();
+        } else {
+            System.arraycopy(assetIds, index + 1, assetIds, index, size - index);
+            System.arraycopy(cryptoUnits, index + 1, cryptoUnits, index, size - index);
+            System.arraycopy(totalPriceMicros, index + 1, totalPriceMicros, index, size - index);
+        }
+
+        return removedCurrency;
+    }
+
+    int getAssetId(int index) {
+        return assetIds[index];
+    }
+
+    long getCryptoUnits(int index) {
+        return cryptoUnits[index];
+    }
+
+    long getTotalPriceMicros(int index) {
+        return totalPriceMicros[index];
+    }
+
+    CompactPortfolio copy() {
+        CompactPortfolio copy = new CompactPortfolio();
+        if (size > 0) {
+            copy.assetIds = Arrays.copyOf(assetIds, size);
+            copy.cryptoUnits = Arrays.copyOf(cryptoUnits, size);
+            copy.totalPriceMicros = Arrays.copyOf(totalPriceMicros, size);
+            copy.size = size;
+        }
+
+        return copy;
+    }
+
+    String getCode(int index) {
+        return ASSET_CODES.getCode(assetIds[index]);
+    }
+
+    int[] getHoldingsByCode() {
+        int[] holdings = new int[size];
+        for (int i = 0; i < size; i++) {
+            String code = getCode(i);
+            int position = i;
+            while (position > 0 && getCode(holdings[position - 1]).compareTo(code) > 0) {
+                holdings[position] = holdings[position - 1];
+                position--;
+            }
+            holdings[position] = i;
+        }
+
+        return holdings;
+    }
+
+    public List<CryptoCurrency> toList() {
+        List<CryptoCurrency> currencies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            currencies.add(toCryptoCurrency(i));
+        }
+
+        return currencies;
+    }
+
+    private int indexOf(String offeringCode) {
+        int assetId = ASSET_CODES.indexOf(offeringCode);
+        return assetId < 0 ? -1 : Arrays.binarySearch(assetIds, 0, size, assetId);
+    }
+
+    private CryptoCurrency toCryptoCurrency(int index) {
+        return CryptoCurrency.ofFixedPoint(ASSET_CODES.getCode(assetIds[index]), cryptoUnits[index],
+                totalPriceMicros[index]);
+    }
+
+    private void insert(int index, int assetId, long units, long priceMicros) {
+        if (size == assetIds.length) {
+            int capacity = size + Math.max(1, size >> 1);
+            assetIds = Arrays.copyOf(assetIds, capacity);
+            cryptoUnits = Arrays.copyOf(cryptoUnits, capacity);
+            totalPriceMicros = Arrays.copyOf(totalPriceMicros, capacity);
+        }
+
+        System.arraycopy(assetIds, index, assetIds, index + 1, size - index);
+        System.arraycopy(cryptoUnits, index, cryptoUnits, index + 1, size - index);
+        System.arraycopy(totalPriceMicros, index, totalPriceMicros, index + 1, size - index);
+        assetIds[index] = assetId;
+        cryptoUnits[index] = units;
+        totalPriceMicros[index] = priceMicros;
+        size++;
+    }
+
+    private void clear() {
+        assetIds = NO_ASSETS;
+        cryptoUnits = NO_AMOUNTS;
+        totalPriceMicros = NO_AMOUNTS;
+        size = 0;
+    }
+}
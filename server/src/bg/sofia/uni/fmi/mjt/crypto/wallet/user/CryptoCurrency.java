@@ -2,13 +2,26 @@ package bg.sofia.uni.fmi.mjt.crypto.wallet.user;
 
 public class CryptoCurrency {
     private final String code;
-    private double cryptoAmount;
-    private double totalPrice;
+    private long cryptoUnits;
+    private long totalPriceMicros;
 
     public CryptoCurrency(String code) {
         this.code = code;
-        cryptoAmount = 0;
-        totalPrice = 0;
+        cryptoUnits = 0;
+        totalPriceMicros = 0;
+    }
+
+    public CryptoCurrency(String code, double cryptoAmount, double totalPrice) {
+        this(code);
+        cryptoUnits = FixedPoint.toUnits(cryptoAmount);
+        totalPriceMicros = FixedPoint.toMicros(totalPrice);
+    }
+
+    public static CryptoCurrency ofFixedPoint(String code, long cryptoUnits, long totalPriceMicros) {
+        CryptoCurrency currency = new CryptoCurrency(code);
+        currency.cryptoUnits = cryptoUnits;
+        currency.totalPriceMicros = totalPriceMicros;
+        return currency;
     }
 
     public String getCode() {
@@ -16,15 +29,24 @@ public class CryptoCurrency {
     }
 
     public double getCryptoAmount() {
-        return cryptoAmount;
+        return FixedPoint.toCoins(cryptoUnits);
     }
 
     public double getTotalPrice() {
-        return totalPrice;
+        return FixedPoint.toDollars(totalPriceMicros);
+    }
+
+    public long getCryptoUnits() {
+        return cryptoUnits;
+    }
+
+    public long getTotalPriceMicros() {
+        return totalPriceMicros;
     }
 
-    public void addToCurrency(double amount, double price) {
-        cryptoAmount += amount;
-        totalPrice += price;
+    public void addToCurrency(long units, long priceMicros) {
+        long newCryptoUnits = FixedPoint.add(cryptoUnits, units);
+        totalPriceMicros = FixedPoint.add(totalPriceMicros, priceMicros);
+        cryptoUnits = newCryptoUnits;
     }
 }
@@ -0,0 +1,66 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.user;
+
+public final class FixedPoint {
+    public static final long MICROS_PER_DOLLAR = 1_000_000L;
+    public static final long UNITS_PER_COIN = 100_000_000L;
+    private static final double UNITS_PER_MICRO = (double) UNITS_PER_COIN / MICROS_PER_DOLLAR;
+    private static final double LONG_RANGE_LIMIT = 0x1p63;
+    private static final String AMOUNT_OUT_OF_RANGE_ERROR =
+            String.format("The amount is not a number or is too large to be stored.%n");
+    private static final String OVERFLOW_ERROR =
+            String.format("The operation would exceed the largest amount that can be stored.%n");
+
+    private FixedPoint() {
+    }
+
+    public static long toMicros(double dollars) {
+        return toScaled(dollars * MICROS_PER_DOLLAR);
+    }
+
+    public static double toDollars(long micros) {
+        return (double) micros / MICROS_PER_DOLLAR;
+    }
+
+    public static long toUnits(double coins) {
+        return toScaled(coins * UNITS_PER_COIN);
+    }
+
+    public static double toCoins(long units) {
+        return (double) units / UNITS_PER_COIN;
+    }
+
+    public static long unitsFor(long micros, double price) {
+        return toScaled(micros * UNITS_PER_MICRO / price);
+    }
+
+    public static long microsFor(long units, double price) {
+        return toScaled(units / UNITS_PER_MICRO * price);
+    }
+
+    public static long add(long first, long second) {
+        try {
+            return Math.addExact(first, second);
+        } catch (ArithmeticException exception) {
+            throw new IllegalArgumentException(OVERFLOW_ERROR, exception);
+        }
+    }
+
+    public static long subtract(long first, long second) {
+        try {
+            return Math.subtractExact(first, second);
+        } catch (ArithmeticException exception) {
+            throw new IllegalArgumentException(OVERFLOW_ERROR, exception);
+        }
+    }
+
+    private static long toScaled(double scaledValue) {
+        validateIsInRange(scaledValue);
+        return (long) Math.rint(scaledValue);
+    }
+
+    private static void validateIsInRange(double scaledValue) {
+        if (Double.isNaN(scaledValue) || Math.abs(scaledValue) >= LONG_RANGE_LIMIT) {
+            throw new IllegalArgumentException(AMOUNT_OUT_OF_RANGE_ERROR);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.user;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MarketExposure {
+    private final Map<String, AssetExposure> exposures;
+
+    public MarketExposure() {
+        exposures = new ConcurrentHashMap<>();
+    }
+
+    public void addHoldings(UserProfile user) {
+        for (CryptoCurrency currency : user.getInvestments()) {
+            recordPurchase(currency.getCode(), currency.getCryptoUnits(), currency.getTotalPriceMicros(), true);
+        }
+    }
+
+    public void recordPurchase(String offeringCode, long units, long costBasisMicros, boolean newHolder) {
+        AssetExposure exposure = exposures.computeIfAbsent(offeringCode, code -> new AssetExposure());
+        exposure.units.add(units);
+        exposure.costBasisMicros.add(costBasisMicros);
+        if (newHolder) {
+            exposure.holders.increment();
+        }
+    }
+
+    public void recordSale(String offeringCode, long units, long costBasisMicros) {
+        AssetExposure exposure = exposures.computeIfAbsent(offeringCode, code -> new AssetExposure());
+        exposure.units.add(-units);
+        exposure.costBasisMicros.add(-costBasisMicros);
+        exposure.holders.decrement();
+    }
+
+    public Map<String, AssetExposure> getExposures() {
+        Map<String, AssetExposure> heldAssets = new TreeMap<>();
+        for (Map.Entry<String, AssetExposure> exposure : exposures.entrySet()) {
+            if (exposure.getValue().getHolderCount() > 0) {
+                heldAssets.put(exposure.getKey(), exposure.getValue());
+            }
+        }
+
+        return heldAssets;
+    }
+
+    public static final class AssetExposure {
+        private final LongAdder units;
+        private final LongAdder costBasisMicros;
+        private final LongAdder holders;
+
+        private AssetExposure() {
+            units = new LongAdder();
+            costBasisMicros = new LongAdder();
+            holders = new LongAdder();
+        }
+
+        public double getAmount() {
+            return FixedPoint.toCoins(units.sum());
+        }
+
+        public double getCostBasis() {
+            return FixedPoint.toDollars(costBasisMicros.sum());
+        }
+
+        public long getHolderCount() {
+            return holders.sum();
+        }
+    }
+}
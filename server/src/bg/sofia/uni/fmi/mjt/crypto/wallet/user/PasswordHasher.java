@@ -0,0 +1,148 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.user;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.PasswordEncryptionException;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+public class PasswordHasher {
+    public static final int DEFAULT_ITERATIONS = 210_000;
+    private static final String HASH_SCHEME = "pbkdf2-sha256";
+    private static final String FIELD_SEPARATOR = "$";
+    private static final int HASH_FIELD_COUNT = 4;
+    private static final int SALT_LENGTH = 16;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String LEGACY_DIGEST_ALGORITHM = "SHA-256";
+    private static final int LEGACY_HASH_MIN_LENGTH = 32;
+    private static final byte[] FIRST_BLOCK_INDEX = {0, 0, 0, 1};
+    private static final String PASSWORD_ENCRYPTION_ERROR = "An error occurred while encrypting the password";
+    private static final ThreadLocal<Mac> MACS = ThreadLocal.withInitial(PasswordHasher::createMac);
+    private static final ThreadLocal<MessageDigest> LEGACY_DIGESTS =
+            ThreadLocal.withInitial(PasswordHasher::createLegacyDigest);
+
+    private final int iterations;
+    private final SecureRandom random;
+    private final Base64.Encoder encoder;
+    private final Base64.Decoder decoder;
+
+    public PasswordHasher() {
+        this(DEFAULT_ITERATIONS);
+    }
+
+    public PasswordHasher(int iterations) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("The iteration count must be positive");
+        }
+
+        this.iterations = iterations;
+        random = new SecureRandom();
+        encoder = Base64.getEncoder().withoutPadding();
+        decoder = Base64.getDecoder();
+    }
+
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_LENGTH];
+        random.nextBytes(salt);
+        byte[] derivedKey = deriveKey(password, salt, iterations);
+
+        return String.join(FIELD_SEPARATOR, HASH_SCHEME, Integer.toString(iterations),
+                encoder.encodeToString(salt), encoder.encodeToString(derivedKey));
+    }
+
+    public boolean verify(String password, String storedHash) {
+        if (!isSaltedHash(storedHash)) {
+            return storedHash.equals(legacyHash(password));
+        }
+
+        String[] fields = storedHash.split("\\" + FIELD_SEPARATOR);
+        try {
+            int storedIterations = Integer.parseInt(fields[1]);
+            byte[] derivedKey = deriveKey(password, decoder.decode(fields[2]), storedIterations);
+            return MessageDigest.isEqual(derivedKey, decoder.decode(fields[3]));
+        } catch (IllegalArgumentException exception) {
+            return false;
+        }
+    }
+
+    public boolean needsRehash(String storedHash) {
+        if (!isSaltedHash(storedHash)) {
+            return true;
+        }
+
+        String[] fields = storedHash.split("\\" + FIELD_SEPARATOR);
+        try {
+            return Integer.parseInt(fields[1]) < iterations;
+        } catch (NumberFormatException exception) {
+            return true;
+        }
+    }
+
+    private boolean isSaltedHash(String storedHash) {
+        return storedHash.startsWith(HASH_SCHEME + FIELD_SEPARATOR)
+                && storedHash.split("\\" + FIELD_SEPARATOR).length == HASH_FIELD_COUNT;
+    }
+
+    private static byte[] deriveKey(String password, byte[] salt, int iterations) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("The iteration count must be positive");
+        }
+
+        Mac mac = MACS.get();
+        try {
+            mac.init(new SecretKeySpec(password.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            byte[] block = new byte[mac.getMacLength()];
+            mac.update(salt);
+            mac.update(FIRST_BLOCK_INDEX);
+            mac.doFinal(block, 0);
+
+            byte[] derivedKey = block.clone();
+            for (int i = 1; i < iterations; i++) {
+                mac.update(block);
+                mac.doFinal(block, 0);
+                for (int j = 0; j < derivedKey.length; j++) {
+                    derivedKey[j] ^= block[j];
+                }
+            }
+
+            return derivedKey;
+        } catch (InvalidKeyException | ShortBufferException exception) {
+            throw new PasswordEncryptionException(PASSWORD_ENCRYPTION_ERROR, exception);
+        }
+    }
+
+    private static String legacyHash(String password) {
+        byte[] passwordHashBytes = LEGACY_DIGESTS.get().digest(password.getBytes(StandardCharsets.UTF_8));
+        BigInteger number = new BigInteger(1, passwordHashBytes);
+        StringBuilder hexString = new StringBuilder(number.toString(16));
+        while (hexString.length() < LEGACY_HASH_MIN_LENGTH) {
+            hexString.insert(0, '0');
+        }
+
+        return hexString.toString();
+    }
+
+    private static Mac createMac() {
+        try {
+            return Mac.getInstance(HMAC_ALGORITHM);
+        } catch (GeneralSecurityException exception) {
+            throw new PasswordEncryptionException(PASSWORD_ENCRYPTION_ERROR, exception);
+        }
+    }
+
+    private static MessageDigest createLegacyDigest() {
+        try {
+            return MessageDigest.getInstance(LEGACY_DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new PasswordEncryptionException(PASSWORD_ENCRYPTION_ERROR, exception);
+        }
+    }
+}
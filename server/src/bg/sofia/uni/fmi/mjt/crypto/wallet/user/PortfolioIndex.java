@@ -0,0 +1,204 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.user;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.AssetRegistry;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.PriceTable;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.PriceUpdateListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class PortfolioIndex implements UserUpdateListener, PriceUpdateListener {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final double NO_PRICE = Double.NaN;
+
+    private final AssetRegistry assetRegistry;
+    private final Map<String, Portfolio> portfolios;
+    private final NavigableSet<Portfolio> ranking;
+    private final List<Set<Portfolio>> holdersByAsset;
+    private double[] prices;
+
+    public PortfolioIndex(PriceTable priceTable) {
+        assetRegistry = priceTable.getRegistry();
+        portfolios = new HashMap<>();
+        ranking = new TreeSet<>(PortfolioIndex::compareRanks);
+        holdersByAsset = new ArrayList<>();
+        prices = new double[0];
+
+        ensureCapacity(Math.max(INITIAL_CAPACITY, assetRegistry.size()));
+        for (int assetIndex = 0; assetIndex < assetRegistry.size(); assetIndex++) {
+            prices[assetIndex] = priceTable.getPriceIfUpdated(assetIndex);
+        }
+    }
+
+    private static int compareRanks(Portfolio first, Portfolio second) {
+        int valueComparison = Long.compare(second.getValueMicros(), first.getValueMicros());
+        return valueComparison != 0 ? valueComparison : first.username.compareTo(second.username);
+    }
+
+    private void ensureCapacity(int requiredCapacity) {
+        if (requiredCapacity <= prices.length) {
+            return;
+        }
+
+        int previousCapacity = prices.length;
+        prices = Arrays.copyOf(prices, Math.max(requiredCapacity, previousCapacity * 2));
+        Arrays.fill(prices, previousCapacity, prices.length, NO_PRICE);
+        while (holdersByAsset.size() < prices.length) {
+            holdersByAsset.add(null);
+        }
+    }
+
+    @Override
+    public void onUserUpdate(UserProfile user) {
+        long balanceMicros;
+        int[] assetIds;
+        long[] cryptoUnits;
+        long[] costBasisMicros;
+        synchronized (user) {
+            balanceMicros = user.getBalanceMicros();
+            CompactPortfolio portfolio = user.getPortfolio();
+            assetIds = new int[portfolio.size()];
+            cryptoUnits = new long[portfolio.size()];
+            costBasisMicros = new long[portfolio.size()];
+            for (int i = 0; i < portfolio.size(); i++) {
+                assetIds[i] = portfolio.getAssetId(i);
+                cryptoUnits[i] = portfolio.getCryptoUnits(i);
+                costBasisMicros[i] = portfolio.getTotalPriceMicros(i);
+            }
+        }
+
+        update(user.getUsername(), balanceMicros, assetIds, cryptoUnits, costBasisMicros);
+    }
+
+    private synchronized void update(String username, long balanceMicros, int[] assetIds, long[] cryptoUnits,
+                                     long[] costBasisMicros) {
+        Portfolio portfolio = portfolios.get(username);
+        if (portfolio == null) {
+            portfolio = new Portfolio(username);
+            portfolios.put(username, portfolio);
+        } else {
+            ranking.remove(portfolio);
+            for (int assetIndex : portfolio.assetIds) {
+                removeHolder(assetIndex, portfolio);
+            }
+        }
+
+        portfolio.balanceMicros = balanceMicros;
+        portfolio.assetIds = assetIds;
+        portfolio.cryptoUnits = cryptoUnits;
+        portfolio.costBasisMicros = costBasisMicros;
+        portfolio.valueMicros = new long[assetIds.length];
+        portfolio.holdingsValueMicros = 0;
+        portfolio.totalCostBasisMicros = 0;
+        for (int i = 0; i < assetIds.length; i++) {
+            ensureCapacity(assetIds[i] + 1);
+            Set<Portfolio> holders = holdersByAsset.get(assetIds[i]);
+            if (holders == null) {
+                holders = new HashSet<>();
+                holdersByAsset.set(assetIds[i], holders);
+            }
+            holders.add(portfolio);
+            portfolio.valueMicros[i] = portfolio.valueAt(i, prices[assetIds[i]]);
+            portfolio.holdingsValueMicros += portfolio.valueMicros[i];
+            portfolio.totalCostBasisMicros += costBasisMicros[i];
+        }
+        ranking.add(portfolio);
+    }
+
+    private void removeHolder(int assetIndex, Portfolio portfolio) {
+        Set<Portfolio> holders = holdersByAsset.get(assetIndex);
+        holders.remove(portfolio);
+        if (holders.isEmpty()) {
+            holdersByAsset.set(assetIndex, null);
+        }
+    }
+
+    @Override
+    public synchronized void onPriceUpdate(int assetIndex, double price, long updateMillis) {
+        ensureCapacity(assetIndex + 1);
+        prices[assetIndex] = price;
+
+        Set<Portfolio> holders = holdersByAsset.get(assetIndex);
+        if (holders == null) {
+            return;
+        }
+
+        for (Portfolio holder : holders) {
+            int holding = holder.indexOf(assetIndex);
+            ranking.remove(holder);
+            long valueMicros = holder.valueAt(holding, price);
+            holder.holdingsValueMicros += valueMicros - holder.valueMicros[holding];
+            holder.valueMicros[holding] = valueMicros;
+            ranking.add(holder);
+        }
+    }
+
+    public synchronized List<Map.Entry<String, Double>> getTop(int count) {
+        List<Map.Entry<String, Double>> topUsers = new ArrayList<>(Math.min(count, ranking.size()));
+        Iterator<Portfolio> iterator = ranking.iterator();
+        while (iterator.hasNext() && topUsers.size() < count) {
+            Portfolio portfolio = iterator.next();
+            topUsers.add(Map.entry(portfolio.username, FixedPoint.toDollars(portfolio.getValueMicros())));
+        }
+
+        return topUsers;
+    }
+
+    public synchronized double getUnrealizedPnl(String username) {
+        Portfolio portfolio = portfolios.get(username);
+        return portfolio == null ? 0
+                : FixedPoint.toDollars(portfolio.holdingsValueMicros - portfolio.totalCostBasisMicros);
+    }
+
+    public synchronized int size() {
+        return ranking.size();
+    }
+
+    private static final class Portfolio {
+        private static final int[] NO_ASSETS = new int[0];
+        private static final long[] NO_AMOUNTS = new long[0];
+
+        private final String username;
+        private long balanceMicros;
+        private int[] assetIds;
+        private long[] cryptoUnits;
+        private long[] costBasisMicros;
+        private long[] valueMicros;
+        private long holdingsValueMicros;
+        private long totalCostBasisMicros;
+
+        private Portfolio(String username) {
+            this.username = username;
+            assetIds = NO_ASSETS;
+            cryptoUnits = NO_AMOUNTS;
+            costBasisMicros = NO_AMOUNTS;
+            valueMicros = NO_AMOUNTS;
+        }
+
+        private int indexOf(int assetIndex) {
+            for (int i = 0; i < assetIds.length; i++) {
+                if (assetIds[i] == assetIndex) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+        private long valueAt(int holding, double price) {
+            return Double.isNaN(price) ? costBasisMicros[holding] : FixedPoint.microsFor(cryptoUnits[holding], price);
+        }
+
+        private long getValueMicros() {
+            return balanceMicros + holdingsValueMicros;
+        }
+    }
+}
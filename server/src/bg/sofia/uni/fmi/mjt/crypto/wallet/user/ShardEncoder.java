@@ -0,0 +1,10 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.user;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MappedShard;
+
+import java.util.Collection;
+
+@FunctionalInterface
+public interface ShardEncoder<T> {
+    T encode(Collection<UserProfile> residentUsers, MappedShard mappedUsers, long lsn);
+}
@@ -1,12 +1,17 @@
 package bg.sofia.uni.fmi.mjt.crypto.wallet.user;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 public class UserDTO {
     private String username;
-    private UserProfile profile;
+    private StoredProfile profile;
 
     public UserDTO(String username, UserProfile profile) {
         this.username = username;
-        this.profile = profile;
+        this.profile = new StoredProfile(profile);
     }
 
     public String getUsername() {
@@ -14,6 +19,59 @@ public class UserDTO {
     }
 
     public UserProfile getProfile() {
-        return profile;
+        return profile.toUserProfile();
+    }
+
+    private static final class StoredProfile {
+        private String username;
+        private String password;
+        private Map<String, StoredCurrency> portfolio;
+        private long balanceMicros;
+        private Double balance;
+
+        private StoredProfile(UserProfile user) {
+            username = user.getUsername();
+            password = user.getPassword();
+            portfolio = new LinkedHashMap<>();
+            for (CryptoCurrency currency : user.getInvestments()) {
+                portfolio.put(currency.getCode(), new StoredCurrency(currency));
+            }
+            balanceMicros = user.getBalanceMicros();
+        }
+
+        private UserProfile toUserProfile() {
+            List<CryptoCurrency> investments = new ArrayList<>();
+            if (portfolio != null) {
+                for (StoredCurrency currency : portfolio.values()) {
+                    investments.add(currency.toCryptoCurrency());
+                }
+            }
+
+            long storedBalance = balance != null ? FixedPoint.toMicros(balance) : balanceMicros;
+            return UserProfile.ofFixedPoint(username, password, storedBalance, investments);
+        }
+    }
+
+    private static final class StoredCurrency {
+        private String code;
+        private long cryptoUnits;
+        private long totalPriceMicros;
+        private Double cryptoAmount;
+        private Double totalPrice;
+
+        private StoredCurrency(CryptoCurrency currency) {
+            code = currency.getCode();
+            cryptoUnits = currency.getCryptoUnits();
+            totalPriceMicros = currency.getTotalPriceMicros();
+        }
+
+        private CryptoCurrency toCryptoCurrency() {
+            if (cryptoAmount != null || totalPrice != null) {
+                return new CryptoCurrency(code, cryptoAmount == null ? 0 : cryptoAmount,
+                        totalPrice == null ? 0 : totalPrice);
+            }
+
+            return CryptoCurrency.ofFixedPoint(code, cryptoUnits, totalPriceMicros);
+        }
     }
 }
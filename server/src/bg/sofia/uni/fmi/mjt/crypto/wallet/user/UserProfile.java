@@ -1,8 +1,14 @@
 package bg.sofia.uni.fmi.mjt.crypto.wallet.user;
 
-import java.util.HashMap;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.PriceTable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.IntToDoubleFunction;
 
 public class UserProfile {
     private static final String INVALID_OFFERING_CODE_ERROR =
@@ -11,51 +17,105 @@ public class UserProfile {
             String.format("The money to invest must not be a negative number.%n");
     private static final String INVALID_PRICE_ERROR =
             String.format("The price of the cryptocurrency must not be a negative number.%n");
+    private static final String PURCHASE_TOO_SMALL_ERROR =
+            String.format("The money to invest is too small to buy any of this cryptocurrency.%n");
     private static final String INSUFFICIENT_FUNDS_ERROR =
             String.format("You are attempting to invest more money than you currently own. Please deposit first.%n");
     private static final String CURRENCY_NOT_FOUND_ERROR =
             String.format("You have not invested in the currency you are trying to sell. Please purchase first.%n");
 
     private final String username;
-    private final String password;
-    private final Map<String, CryptoCurrency> portfolio;
-    private double balance;
+    private String password;
+    private final CompactPortfolio portfolio;
+    private long balanceMicros;
+    private transient long snapshotEpoch;
 
     public UserProfile(String username, String password) {
         this.username = username;
         this.password = password;
-        this.balance = 0;
-        portfolio = new HashMap<>();
+        this.balanceMicros = 0;
+        portfolio = new CompactPortfolio();
+    }
+
+    public UserProfile(String username, String password, double balance, Collection<CryptoCurrency> investments) {
+        this(username, password);
+        this.balanceMicros = FixedPoint.toMicros(balance);
+        for (CryptoCurrency currency : investments) {
+            portfolio.add(currency.getCode(), currency.getCryptoUnits(), currency.getTotalPriceMicros());
+        }
+    }
+
+    private UserProfile(String username, String password, long balanceMicros, CompactPortfolio portfolio) {
+        this.username = username;
+        this.password = password;
+        this.balanceMicros = balanceMicros;
+        this.portfolio = portfolio;
+    }
+
+    public static UserProfile ofFixedPoint(String username, String password, long balanceMicros,
+                                           Collection<CryptoCurrency> investments) {
+        UserProfile user = new UserProfile(username, password, 0, investments);
+        user.balanceMicros = balanceMicros;
+        return user;
     }
 
-    public String getPassword() {
+    synchronized UserProfile copy() {
+        return new UserProfile(username, password, balanceMicros, portfolio.copy());
+    }
+
+    CompactPortfolio getPortfolio() {
+        return portfolio;
+    }
+
+    long getSnapshotEpoch() {
+        return snapshotEpoch;
+    }
+
+    void setSnapshotEpoch(long snapshotEpoch) {
+        this.snapshotEpoch = snapshotEpoch;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public synchronized String getPassword() {
         return password;
     }
 
-    public double getBalance() {
-        return balance;
+    synchronized void setPassword(String password) {
+        this.password = password;
     }
 
-    public void depositMoney(double amountToDeposit) {
-        balance += amountToDeposit;
+    public synchronized double getBalance() {
+        return FixedPoint.toDollars(balanceMicros);
     }
 
-    public String buyCryptocurrency(String offeringCode, double moneyToInvest, double currencyPrice) {
+    public synchronized long getBalanceMicros() {
+        return balanceMicros;
+    }
+
+    public synchronized void depositMoney(double amountToDeposit) {
+        balanceMicros = FixedPoint.add(balanceMicros, FixedPoint.toMicros(amountToDeposit));
+    }
+
+    public synchronized String buyCryptocurrency(String offeringCode, double moneyToInvest, double currencyPrice) {
         validateOfferingCodeIsNotEmpty(offeringCode);
         validateInvestmentIsPositive(moneyToInvest);
         validatePriceIsPositive(currencyPrice);
-        validateUserHasSufficientFunds(moneyToInvest);
-
-        balance -= moneyToInvest;
-        double currencyPurchased = moneyToInvest / currencyPrice;
+        long moneyMicros = FixedPoint.toMicros(moneyToInvest);
+        validateUserHasSufficientFunds(moneyMicros);
 
-        if (!portfolio.containsKey(offeringCode)) {
-            portfolio.put(offeringCode, new CryptoCurrency(offeringCode));
+        long unitsPurchased = FixedPoint.unitsFor(moneyMicros, currencyPrice);
+        if (unitsPurchased <= 0) {
+            throw new IllegalArgumentException(PURCHASE_TOO_SMALL_ERROR);
         }
-        portfolio.get(offeringCode).addToCurrency(currencyPurchased, moneyToInvest);
+
+        portfolio.add(offeringCode, unitsPurchased, moneyMicros);
+        balanceMicros -= moneyMicros;
 
         return String.format("Operation successful. You have purchased %.4f %s for $%f.%n",
-                currencyPurchased, offeringCode, moneyToInvest);
+                FixedPoint.toCoins(unitsPurchased), offeringCode, FixedPoint.toDollars(moneyMicros));
     }
 
     private void validateOfferingCodeIsNotEmpty(String offeringCode) {
@@ -70,8 +130,8 @@ public class UserProfile {
         }
     }
 
-    private void validateUserHasSufficientFunds(double moneyToInvest) {
-        if (moneyToInvest > balance) {
+    private void validateUserHasSufficientFunds(long moneyMicros) {
+        if (moneyMicros > balanceMicros) {
             throw new IllegalArgumentException(INSUFFICIENT_FUNDS_ERROR);
         }
     }
@@ -82,36 +142,37 @@ public class UserProfile {
         }
     }
 
-    public String sellCryptocurrency(String offeringCode, double currencyPrice) {
+    public synchronized String sellCryptocurrency(String offeringCode, double currencyPrice) {
         validateOfferingCodeIsNotEmpty(offeringCode);
         validateUserHasInvestedInCurrency(offeringCode);
         validatePriceIsPositive(currencyPrice);
 
-        CryptoCurrency soldCurrency = portfolio.remove(offeringCode);
-        double moneyReceived = soldCurrency.getCryptoAmount() * currencyPrice;
-        balance += moneyReceived;
+        CryptoCurrency soldCurrency = portfolio.get(offeringCode);
+        long moneyReceived = FixedPoint.microsFor(soldCurrency.getCryptoUnits(), currencyPrice);
+        balanceMicros = FixedPoint.add(balanceMicros, moneyReceived);
+        portfolio.remove(offeringCode);
 
         return String.format("Operation successful. You have sold %.4f %s for $%f.%n",
-                soldCurrency.getCryptoAmount(), offeringCode, moneyReceived);
+                soldCurrency.getCryptoAmount(), offeringCode, FixedPoint.toDollars(moneyReceived));
     }
 
     private void validateUserHasInvestedInCurrency(String offeringCode) {
-        if (!portfolio.containsKey(offeringCode)) {
+        if (!portfolio.contains(offeringCode)) {
             throw new IllegalArgumentException(CURRENCY_NOT_FOUND_ERROR);
         }
     }
 
-    public String getWalletSummary() {
+    public synchronized String getWalletSummary() {
         StringBuilder builder = new StringBuilder();
 
         builder.append(String.format("Wallet summary of %s:%n", username));
-        builder.append(String.format("Current balance: $%.4f%n", balance));
+        builder.append(String.format("Current balance: $%.4f%n", FixedPoint.toDollars(balanceMicros)));
         if (portfolio.size() == 0) {
             builder.append(String.format("There are currently no active investments in your account.%n"));
         } else {
             int index = 1;
-            for (CryptoCurrency currency : portfolio.values()) {
-                builder.append(formatCurrencyInvestment(index, currency));
+            for (int holding : portfolio.getHoldingsByCode()) {
+                builder.append(formatCurrencyInvestment(index, holding));
                 builder.append(System.lineSeparator());
                 index++;
             }
@@ -120,28 +181,50 @@ public class UserProfile {
         return builder.toString();
     }
 
-    private String formatCurrencyInvestment(int index, CryptoCurrency currency) {
+    private String formatCurrencyInvestment(int index, int holding) {
         return String.format("%2d) Offering code: %4s, Amount purchased: %.4f, Money invested: $%.4f",
-                index, currency.getCode(), currency.getCryptoAmount(), currency.getTotalPrice());
+                index, portfolio.getCode(holding), FixedPoint.toCoins(portfolio.getCryptoUnits(holding)),
+                FixedPoint.toDollars(portfolio.getTotalPriceMicros(holding)));
+    }
+
+    synchronized CryptoCurrency getInvestment(String offeringCode) {
+        return portfolio.get(offeringCode);
+    }
+
+    public synchronized Set<String> getUserCryptoCurrencies() {
+        Set<String> offeringCodes = new HashSet<>();
+        for (CryptoCurrency currency : portfolio.toList()) {
+            offeringCodes.add(currency.getCode());
+        }
+
+        return Collections.unmodifiableSet(offeringCodes);
     }
 
-    public Set<String> getUserCryptoCurrencies() {
-        return portfolio.keySet();
+    public synchronized Collection<CryptoCurrency> getInvestments() {
+        return Collections.unmodifiableList(portfolio.toList());
     }
 
     public String getWalletOverallSummary(Map<String, Double> currencyPrices) {
+        return getWalletOverallSummary(holding -> currencyPrices.get(portfolio.getCode(holding)));
+    }
+
+    public String getWalletOverallSummary(PriceTable priceTable) {
+        return getWalletOverallSummary(holding -> priceTable.getPrice(portfolio.getAssetId(holding)));
+    }
+
+    private synchronized String getWalletOverallSummary(IntToDoubleFunction priceOf) {
         StringBuilder builder = new StringBuilder();
 
         builder.append(String.format("Complete wallet summary of %s:%n", username));
-        builder.append(String.format("Current balance: $%.4f%n", balance));
+        builder.append(String.format("Current balance: $%.4f%n", FixedPoint.toDollars(balanceMicros)));
         if (portfolio.size() == 0) {
             builder.append(String.format("There are currently no active investments in your account.%n"));
         } else {
             int index = 1;
-            for (CryptoCurrency currency : portfolio.values()) {
-                double price = currencyPrices.get(currency.getCode());
-                builder.append(formatCurrencyInvestment(index, currency));
-                builder.append(formatCurrencyReturn(currency, price));
+            for (int holding : portfolio.getHoldingsByCode()) {
+                double price = priceOf.applyAsDouble(holding);
+                builder.append(formatCurrencyInvestment(index, holding));
+                builder.append(formatCurrencyReturn(holding, price));
                 index++;
             }
         }
@@ -149,9 +232,9 @@ public class UserProfile {
         return builder.toString();
     }
 
-    private String formatCurrencyReturn(CryptoCurrency currency, double price) {
-        double boughtFor = currency.getTotalPrice();
-        double soldFor = currency.getCryptoAmount() * price;
+    private String formatCurrencyReturn(int holding, double price) {
+        double boughtFor = FixedPoint.toDollars(portfolio.getTotalPriceMicros(holding));
+        double soldFor = FixedPoint.toCoins(portfolio.getCryptoUnits(holding)) * price;
 
         double investmentResultUSD = soldFor - boughtFor;
         double investmentResultPercent = soldFor / boughtFor;
@@ -1,41 +1,80 @@
 package bg.sofia.uni.fmi.mjt.crypto.wallet.user;
 
 import bg.sofia.uni.fmi.mjt.crypto.wallet.communication.Response;
-import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.PasswordEncryptionException;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-
-import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.HashMap;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.MutationLogException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MappedShard;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MutationLog;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MutationRecord;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MutationType;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.Transaction;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.TransactionLedger;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.TransactionType;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
 
 public class UserRepository {
+    public static final int SHARD_COUNT = 64;
+    private static final int SHARD_BITS = Integer.numberOfTrailingZeros(SHARD_COUNT);
+    private static final int HASH_SPREAD_MULTIPLIER = 0x9E3779B9;
+    public static final int DEFAULT_RESIDENT_USER_CAPACITY = 50_000;
     private static final String EMPTY_USERNAME_ERROR = "The passed username must not be empty";
     private static final String EMPTY_PASSWORD_ERROR = "The passed password must not be empty";
     private static final String TAKEN_USERNAME_ERROR =
             String.format("This username is already taken, please enter a valid one.%n");
     private static final String ILLEGAL_USERNAME_ERROR =
             String.format("This username contains illegal characters, please enter a valid one.%n");
-    private static final String PASSWORD_ENCRYPTION_ERROR =
-            "An error occurred while encrypting the password during user registration";
     private static final String INVALID_LOGIN_ERROR =
             String.format("The username or password you have entered is incorrect.%n");
     private static final String LOGOUT_ERROR =
             String.format("This account has already logged out completely.%n");
     private static final String SUCCESSFUL_LOGOUT_MESSAGE =
             String.format("You have successfully logged out.%n");
+    private static final String SNAPSHOT_IN_PROGRESS_ERROR = "Another user snapshot is still in progress";
+    private static final String UNKNOWN_USER_ERROR = "There is no registered user with the username %s";
 
-    private final Gson gson;
     private final Map<String, Integer> connectionsPerUser;
-    private Map<String, UserProfile> users;
+    private final List<UserShard> shards;
+    private final int residentUsersPerShard;
+    private final PasswordHasher passwordHasher;
+    private final List<UserUpdateListener> userUpdateListeners;
+    private final MarketExposure marketExposure;
+    private volatile MutationLog mutationLog;
+    private volatile TransactionLedger transactionLedger;
+    private volatile UserSnapshot activeSnapshot;
+    private long lastSnapshotEpoch;
 
     public UserRepository() {
-        gson = new GsonBuilder().setPrettyPrinting().create();
-        connectionsPerUser = new HashMap<>();
-        users = new HashMap<>();
+        this(MutationLog.disabled());
+    }
+
+    public UserRepository(MutationLog mutationLog) {
+        this(mutationLog, DEFAULT_RESIDENT_USER_CAPACITY);
+    }
+
+    public UserRepository(MutationLog mutationLog, int residentUserCapacity) {
+        this(mutationLog, residentUserCapacity, new PasswordHasher());
+    }
+
+    public UserRepository(MutationLog mutationLog, int residentUserCapacity, PasswordHasher passwordHasher) {
+        this.mutationLog = mutationLog;
+        this.passwordHasher = passwordHasher;
+        transactionLedger = TransactionLedger.disabled();
+        userUpdateListeners = new CopyOnWriteArrayList<>();
+        marketExposure = new MarketExposure();
+        connectionsPerUser = new ConcurrentHashMap<>();
+        shards = new ArrayList<>(SHARD_COUNT);
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards.add(new UserShard());
+        }
+        residentUsersPerShard = Math.max(1, residentUserCapacity / SHARD_COUNT);
     }
 
     public Response registerIfValid(String username, String password) {
@@ -49,7 +88,9 @@ public class UserRepository {
             return new Response(false, "guest", ILLEGAL_USERNAME_ERROR);
         }
 
-        registerUser(username, password);
+        if (!registerUser(username, password)) {
+            return new Response(false, "guest", TAKEN_USERNAME_ERROR);
+        }
         logIn(username);
         String successMessage = String.format("User %s has successfully been registered.%n", username);
         return new Response(true, username, successMessage);
@@ -70,7 +111,7 @@ public class UserRepository {
     public boolean isRegistered(String username) {
         validateUsernameIsNotEmpty(username);
 
-        return users.containsKey(username);
+        return getShard(username).contains(username);
     }
 
     private boolean usernameIsValid(String username) {
@@ -79,31 +120,29 @@ public class UserRepository {
         return username.matches(regex);
     }
 
-    private void registerUser(String username, String password) {
-        String passwordHash = encryptPassword(password);
+    private boolean registerUser(String username, String password) {
+        String passwordHash = passwordHasher.hash(password);
         UserProfile newUser = new UserProfile(username, passwordHash);
-
-        users.put(username, newUser);
-    }
-
-    private String encryptPassword(String password) {
-        try {
-            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
-            byte[] passwordHashBytes = messageDigest.digest(password.getBytes(StandardCharsets.UTF_8));
-            return convertByteArrayToString(passwordHashBytes);
-        } catch (NoSuchAlgorithmException exception) {
-            throw new PasswordEncryptionException(PASSWORD_ENCRYPTION_ERROR, exception);
+        UserSnapshot snapshot = activeSnapshot;
+        if (snapshot != null) {
+            snapshot.exclude(newUser);
         }
-    }
 
-    private String convertByteArrayToString(byte[] passwordHashBytes) {
-        BigInteger number = new BigInteger(1, passwordHashBytes);
-        StringBuilder hexString = new StringBuilder(number.toString(16));
-        while (hexString.length() < 32) {
-            hexString.insert(0, '0');
+        UserShard shard = getShard(username);
+        Lock lock = shard.getMutationLock().readLock();
+        lock.lock();
+        try {
+            mutationLog.checkWritable();
+            if (!shard.putIfAbsent(newUser)) {
+                return false;
+            }
+
+            mutationLog.append(MutationRecord.register(username, passwordHash));
+            notifyUserUpdated(newUser);
+            return true;
+        } finally {
+            lock.unlock();
         }
-
-        return hexString.toString();
     }
 
     public Response logInIfValid(String username, String password) {
@@ -124,33 +163,43 @@ public class UserRepository {
             return false;
         }
 
-        String passwordHash = encryptPassword(password);
-        return passwordHash.equals(users.get(username).getPassword());
+        String passwordHash = getShard(username).get(username).getPassword();
+        if (!passwordHasher.verify(password, passwordHash)) {
+            return false;
+        }
+
+        if (passwordHasher.needsRehash(passwordHash)) {
+            rehashPassword(username, password);
+        }
+        return true;
     }
 
-    private void logIn(String username) {
-        if (connectionsPerUser.containsKey(username)) {
-            connectionsPerUser.put(username, connectionsPerUser.get(username) + 1);
-        } else {
-            connectionsPerUser.put(username, 1);
+    private void rehashPassword(String username, String password) {
+        String passwordHash = passwordHasher.hash(password);
+        try {
+            mutateUser(username, MutationRecord.passwordChange(username, passwordHash), user -> {
+                user.setPassword(passwordHash);
+                return passwordHash;
+            });
+        } catch (MutationLogException exception) {
+            System.out.println(exception.getMessage());
         }
     }
 
+    private void logIn(String username) {
+        connectionsPerUser.merge(username, 1, Integer::sum);
+    }
+
     public String logOut(String username) {
         validateUsernameIsNotEmpty(username);
 
-        if (!connectionsPerUser.containsKey(username)) {
-            return LOGOUT_ERROR;
-        }
-
-        int connectionsAfterLogout = connectionsPerUser.get(username) - 1;
-        if (connectionsAfterLogout > 0) {
-            connectionsPerUser.put(username, connectionsAfterLogout);
-        } else {
-            connectionsPerUser.remove(username);
-        }
+        AtomicBoolean wasLoggedIn = new AtomicBoolean(false);
+        connectionsPerUser.computeIfPresent(username, (name, connections) -> {
+            wasLoggedIn.set(true);
+            return connections > 1 ? connections - 1 : null;
+        });
 
-        return SUCCESSFUL_LOGOUT_MESSAGE;
+        return wasLoggedIn.get() ? SUCCESSFUL_LOGOUT_MESSAGE : LOGOUT_ERROR;
     }
 
     public boolean isLoggedIn(String username) {
@@ -162,26 +211,260 @@ public class UserRepository {
     public UserProfile getUserByUsername(String username) {
         validateUsernameIsNotEmpty(username);
 
-        return users.get(username);
+        return getShard(username).get(username);
     }
 
-    public String serializeUsers() {
-        UserDTO[] userWrapper = new UserDTO[users.size()];
+    public static int shardOf(String username) {
+        return (username.hashCode() * HASH_SPREAD_MULTIPLIER) >>> (Integer.SIZE - SHARD_BITS);
+    }
+
+    private UserShard getShard(String username) {
+        return shards.get(shardOf(username));
+    }
+
+    public void markAllShardsDirty() {
+        for (UserShard shard : shards) {
+            shard.markDirty();
+        }
+    }
+
+    public void markShardsDirty(BitSet shardsToMark) {
+        shardsToMark.stream().forEach(shard -> shards.get(shard).markDirty());
+    }
 
-        int index = 0;
-        for (Map.Entry<String, UserProfile> user : users.entrySet()) {
-            userWrapper[index++] = new UserDTO(user.getKey(), user.getValue());
+    public BitSet takeDirtyShards() {
+        BitSet takenShards = new BitSet(SHARD_COUNT);
+        for (int shard = 0; shard < SHARD_COUNT; shard++) {
+            if (shards.get(shard).takeDirty()) {
+                takenShards.set(shard);
+            }
         }
 
-        return gson.toJson(userWrapper);
+        return takenShards;
     }
 
-    public void deserializeUsers(String usersJSON) {
-        Gson gson = new Gson();
+    public <T> T flushShard(int shard, ShardEncoder<T> encoder) {
+        UserShard userShard = shards.get(shard);
+        long lsn;
+        List<UserProfile> residentUsers = new ArrayList<>();
+        MappedShard mappedUsers;
+        Lock lock = userShard.getMutationLock().writeLock();
+        lock.lock();
+        try {
+            lsn = mutationLog.getLastLsn();
+            for (UserProfile user : userShard.getResidentUsers()) {
+                residentUsers.add(user.copy());
+            }
+            mappedUsers = userShard.getMappedUsers();
+            userShard.beginFlush();
+        } finally {
+            lock.unlock();
+        }
 
-        UserDTO[] testUsers = gson.fromJson(usersJSON, UserDTO[].class);
-        for (UserDTO user : testUsers) {
-            users.put(user.getUsername(), user.getProfile());
+        try {
+            return encoder.encode(residentUsers, mappedUsers, lsn);
+        } catch (RuntimeException exception) {
+            userShard.abortFlush();
+            throw exception;
         }
     }
+
+    public void completeShardFlush(int shard, MappedShard writtenUsers) {
+        shards.get(shard).completeFlush(writtenUsers);
+    }
+
+    public void abortShardFlush(int shard) {
+        shards.get(shard).abortFlush();
+    }
+
+    public MappedShard getMappedShard(int shard) {
+        return shards.get(shard).getMappedUsers();
+    }
+
+    public void installMappedShard(int shard, MappedShard mappedUsers) {
+        shards.get(shard).install(mappedUsers);
+    }
+
+    public int evictInactiveUsers() {
+        int evictedUsers = 0;
+        for (UserShard shard : shards) {
+            evictedUsers += shard.evictInactive(residentUsersPerShard, connectionsPerUser::containsKey);
+        }
+
+        return evictedUsers;
+    }
+
+    public boolean isOverResidentCapacity(int shard) {
+        return shards.get(shard).getResidentCount() > residentUsersPerShard;
+    }
+
+    public int evictShard(int shard) {
+        return shards.get(shard).evictInactive(0, connectionsPerUser::containsKey);
+    }
+
+    public int getUserCount() {
+        int userCount = 0;
+        for (UserShard shard : shards) {
+            userCount += shard.size();
+        }
+
+        return userCount;
+    }
+
+    public int getResidentUserCount() {
+        int residentUserCount = 0;
+        for (UserShard shard : shards) {
+            residentUserCount += shard.getResidentCount();
+        }
+
+        return residentUserCount;
+    }
+
+    public double depositMoney(String username, double amountToDeposit) {
+        MutationRecord record = MutationRecord.deposit(username, amountToDeposit);
+        return mutateUser(username, record, user -> {
+            user.depositMoney(amountToDeposit);
+            record.setTransaction(Transaction.deposit(System.currentTimeMillis(), amountToDeposit));
+            return user.getBalance();
+        });
+    }
+
+    public String buyCryptocurrency(String username, String offeringCode, double moneyToInvest,
+                                    double currencyPrice) {
+        MutationRecord record = MutationRecord.buy(username, offeringCode, moneyToInvest, currencyPrice);
+        return mutateUser(username, record, user -> {
+            CryptoCurrency previousHolding = user.getInvestment(offeringCode);
+            long previousUnits = previousHolding == null ? 0 : previousHolding.getCryptoUnits();
+            String result = user.buyCryptocurrency(offeringCode, moneyToInvest, currencyPrice);
+            long unitsPurchased = user.getInvestment(offeringCode).getCryptoUnits() - previousUnits;
+            long moneyMicros = FixedPoint.toMicros(moneyToInvest);
+            marketExposure.recordPurchase(offeringCode, unitsPurchased, moneyMicros, previousHolding == null);
+            record.setTransaction(new Transaction(TransactionType.BUY, System.currentTimeMillis(), offeringCode,
+                    unitsPurchased, moneyMicros, FixedPoint.toMicros(currencyPrice)));
+            return result;
+        });
+    }
+
+    public String sellCryptocurrency(String username, String offeringCode, double currencyPrice) {
+        MutationRecord record = MutationRecord.sell(username, offeringCode, currencyPrice);
+        return mutateUser(username, record, user -> {
+            CryptoCurrency soldCurrency = user.getInvestment(offeringCode);
+            String result = user.sellCryptocurrency(offeringCode, currencyPrice);
+            marketExposure.recordSale(offeringCode, soldCurrency.getCryptoUnits(),
+                    soldCurrency.getTotalPriceMicros());
+            long moneyReceived = FixedPoint.microsFor(soldCurrency.getCryptoUnits(), currencyPrice);
+            record.setTransaction(new Transaction(TransactionType.SELL, System.currentTimeMillis(), offeringCode,
+                    soldCurrency.getCryptoUnits(), moneyReceived, FixedPoint.toMicros(currencyPrice)));
+            return result;
+        });
+    }
+
+    public MarketExposure getMarketExposure() {
+        return marketExposure;
+    }
+
+    public TransactionLedger getTransactionLedger() {
+        return transactionLedger;
+    }
+
+    public void setTransactionLedger(TransactionLedger transactionLedger) {
+        this.transactionLedger = transactionLedger;
+    }
+
+    private <T> T mutateUser(String username, MutationRecord record, Function<UserProfile, T> mutation) {
+        validateUsernameIsNotEmpty(username);
+
+        UserShard shard = getShard(username);
+        Lock lock = shard.getMutationLock().readLock();
+        lock.lock();
+        try {
+            UserProfile user = shard.getForUpdate(username);
+            if (user == null) {
+                throw new IllegalArgumentException(String.format(UNKNOWN_USER_ERROR, username));
+            }
+
+            synchronized (user) {
+                mutationLog.checkWritable();
+                preserveForSnapshot(user);
+                T result = mutation.apply(user);
+                long lsn = mutationLog.append(record);
+                if (record.getTransaction() != null) {
+                    transactionLedger.append(username, record.getTransaction(), lsn);
+                }
+                notifyUserUpdated(user);
+                return result;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void addUserUpdateListener(UserUpdateListener listener) {
+        userUpdateListeners.add(listener);
+    }
+
+    private void notifyUserUpdated(UserProfile user) {
+        for (UserUpdateListener listener : userUpdateListeners) {
+            listener.onUserUpdate(user);
+        }
+    }
+
+    private void preserveForSnapshot(UserProfile user) {
+        UserSnapshot snapshot = activeSnapshot;
+        if (snapshot != null) {
+            snapshot.preserve(user);
+        }
+    }
+
+    public synchronized UserSnapshot beginSnapshot() {
+        if (activeSnapshot != null) {
+            throw new IllegalStateException(SNAPSHOT_IN_PROGRESS_ERROR);
+        }
+
+        List<UserProfile> residentUsers = new ArrayList<>();
+        List<MappedShard> mappedSources = new ArrayList<>();
+        List<String> mappedUsernames = new ArrayList<>();
+        for (UserShard shard : shards) {
+            shard.collectSnapshotSources(residentUsers, mappedSources, mappedUsernames);
+        }
+
+        activeSnapshot = new UserSnapshot(++lastSnapshotEpoch, residentUsers.toArray(new UserProfile[0]),
+                mappedSources.toArray(new MappedShard[0]), mappedUsernames.toArray(new String[0]));
+        return activeSnapshot;
+    }
+
+    public synchronized void endSnapshot(UserSnapshot snapshot) {
+        if (activeSnapshot == snapshot) {
+            activeSnapshot = null;
+        }
+    }
+
+    public void setMutationLog(MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
+    }
+
+    public void applyMutation(MutationRecord record) {
+        UserShard shard = getShard(record.getUsername());
+        if (record.getType() == MutationType.REGISTER) {
+            shard.put(new UserProfile(record.getUsername(), record.getPasswordHash()));
+            return;
+        }
+
+        UserProfile user = shard.getForUpdate(record.getUsername());
+        if (user == null) {
+            return;
+        }
+
+        switch (record.getType()) {
+            case DEPOSIT -> user.depositMoney(record.getAmount());
+            case BUY -> user.buyCryptocurrency(record.getOfferingCode(), record.getAmount(), record.getPrice());
+            case SELL -> user.sellCryptocurrency(record.getOfferingCode(), record.getPrice());
+            case PASSWORD_CHANGE -> user.setPassword(record.getPasswordHash());
+            default -> throw new IllegalArgumentException("Unknown mutation type: " + record.getType());
+        }
+    }
+
+    public void importUser(UserProfile user) {
+        getShard(user.getUsername()).put(user);
+    }
 }
@@ -0,0 +1,164 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.user;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MappedShard;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+class UserShard {
+    private final Map<String, UserProfile> residentUsers;
+    private final ReadWriteLock mutationLock;
+    private Set<String> dirtyUsers;
+    private Set<String> flushingUsers;
+    private MappedShard mappedUsers;
+    private int unmappedUserCount;
+    private boolean dirty;
+
+    UserShard() {
+        residentUsers = new LinkedHashMap<>(16, 0.75f, true);
+        mutationLock = new ReentrantReadWriteLock();
+        dirtyUsers = new HashSet<>();
+        flushingUsers = new HashSet<>();
+        mappedUsers = MappedShard.empty();
+        unmappedUserCount = 0;
+        dirty = false;
+    }
+
+    ReadWriteLock getMutationLock() {
+        return mutationLock;
+    }
+
+    synchronized boolean contains(String username) {
+        return residentUsers.containsKey(username) || mappedUsers.contains(username);
+    }
+
+    synchronized UserProfile get(String username) {
+        UserProfile user = residentUsers.get(username);
+        if (user == null && mappedUsers.contains(username)) {
+            user = mappedUsers.hydrate(username);
+            residentUsers.put(username, user);
+        }
+
+        return user;
+    }
+
+    synchronized UserProfile getForUpdate(String username) {
+        UserProfile user = get(username);
+        if (user != null) {
+            markDirty(username);
+        }
+
+        return user;
+    }
+
+    synchronized boolean putIfAbsent(UserProfile user) {
+        if (contains(user.getUsername())) {
+            return false;
+        }
+
+        put(user);
+        return true;
+    }
+
+    synchronized void put(UserProfile user) {
+        if (!contains(user.getUsername())) {
+            unmappedUserCount++;
+        }
+
+        residentUsers.put(user.getUsername(), user);
+        markDirty(user.getUsername());
+    }
+
+    synchronized void markDirty(String username) {
+        dirtyUsers.add(username);
+        dirty = true;
+    }
+
+    synchronized void markDirty() {
+        dirty = true;
+    }
+
+    synchronized boolean takeDirty() {
+        boolean wasDirty = dirty;
+        dirty = false;
+        return wasDirty;
+    }
+
+    synchronized int size() {
+        return mappedUsers.size() + unmappedUserCount;
+    }
+
+    synchronized int getResidentCount() {
+        return residentUsers.size();
+    }
+
+    synchronized List<UserProfile> getResidentUsers() {
+        return List.copyOf(residentUsers.values());
+    }
+
+    synchronized MappedShard getMappedUsers() {
+        return mappedUsers;
+    }
+
+    synchronized void collectSnapshotSources(List<UserProfile> residentSources, List<MappedShard> mappedSources,
+                                             List<String> mappedUsernames) {
+        residentSources.addAll(residentUsers.values());
+        for (String username : mappedUsers.getUsernames()) {
+            if (!residentUsers.containsKey(username)) {
+                mappedSources.add(mappedUsers);
+                mappedUsernames.add(username);
+            }
+        }
+    }
+
+    synchronized void beginFlush() {
+        flushingUsers.addAll(dirtyUsers);
+        dirtyUsers = new HashSet<>();
+    }
+
+    synchronized void install(MappedShard writtenUsers) {
+        mappedUsers = writtenUsers;
+        flushingUsers = new HashSet<>();
+        dirtyUsers.clear();
+        unmappedUserCount = 0;
+    }
+
+    synchronized void completeFlush(MappedShard writtenUsers) {
+        mappedUsers = writtenUsers;
+        flushingUsers = new HashSet<>();
+        unmappedUserCount = 0;
+        for (String username : residentUsers.keySet()) {
+            if (!writtenUsers.contains(username)) {
+                unmappedUserCount++;
+            }
+        }
+    }
+
+    synchronized void abortFlush() {
+        dirtyUsers.addAll(flushingUsers);
+        flushingUsers = new HashSet<>();
+        dirty = true;
+    }
+
+    synchronized int evictInactive(int maxResidentUsers, Predicate<String> isActive) {
+        int evictedUsers = 0;
+        Iterator<String> usernames = residentUsers.keySet().iterator();
+        while (residentUsers.size() > maxResidentUsers && usernames.hasNext()) {
+            String username = usernames.next();
+            if (!dirtyUsers.contains(username) && !flushingUsers.contains(username)
+                    && mappedUsers.contains(username) && !isActive.test(username)) {
+                usernames.remove();
+                evictedUsers++;
+            }
+        }
+
+        return evictedUsers;
+    }
+}
@@ -0,0 +1,60 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.user;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MappedShard;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+public class UserSnapshot {
+    private final long epoch;
+    private final UserProfile[] users;
+    private final MappedShard[] mappedSources;
+    private final String[] mappedUsernames;
+    private final Map<UserProfile, UserProfile> preservedCopies;
+
+    UserSnapshot(long epoch, UserProfile[] users, MappedShard[] mappedSources, String[] mappedUsernames) {
+        this.epoch = epoch;
+        this.users = users;
+        this.mappedSources = mappedSources;
+        this.mappedUsernames = mappedUsernames;
+        preservedCopies = new IdentityHashMap<>();
+    }
+
+    public int size() {
+        return users.length + mappedUsernames.length;
+    }
+
+    public UserProfile getUser(int index) {
+        if (index >= users.length) {
+            int mappedIndex = index - users.length;
+            return mappedSources[mappedIndex].hydrate(mappedUsernames[mappedIndex]);
+        }
+
+        return getResidentUser(index);
+    }
+
+    private UserProfile getResidentUser(int index) {
+        UserProfile user = users[index];
+        synchronized (user) {
+            synchronized (this) {
+                if (user.getSnapshotEpoch() == epoch) {
+                    return preservedCopies.remove(user);
+                }
+
+                user.setSnapshotEpoch(epoch);
+                return user.copy();
+            }
+        }
+    }
+
+    synchronized void preserve(UserProfile user) {
+        if (user.getSnapshotEpoch() != epoch) {
+            user.setSnapshotEpoch(epoch);
+            preservedCopies.put(user, user.copy());
+        }
+    }
+
+    synchronized void exclude(UserProfile user) {
+        user.setSnapshotEpoch(epoch);
+    }
+}
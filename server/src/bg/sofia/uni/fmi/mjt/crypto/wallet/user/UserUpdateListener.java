@@ -0,0 +1,5 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet.user;
+
+public interface UserUpdateListener {
+    void onUserUpdate(UserProfile user);
+}
@@ -0,0 +1,78 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CallBudget;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CallPriority;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CallBudgetTest {
+    private static final String WRONG_RESULT_ERROR = "The call budget returned an unexpected result";
+    private MutableClock clock;
+    private CallBudget budget;
+
+    @Before
+    public void setUpBudget() {
+        clock = new MutableClock();
+        budget = new CallBudget(10, 4, clock);
+    }
+
+    @Test
+    public void testTradesCanUseTheWholeHourlyAllowance() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(WRONG_RESULT_ERROR, budget.tryAcquire(CallPriority.TRADE));
+        }
+
+        assertFalse(WRONG_RESULT_ERROR, budget.tryAcquire(CallPriority.TRADE));
+        assertEquals(WRONG_RESULT_ERROR, 6, budget.getRemainingDailyCalls());
+        assertEquals(WRONG_RESULT_ERROR, 1, budget.getDeferredCalls(CallPriority.TRADE));
+    }
+
+    @Test
+    public void testLowPriorityCallsAreDeferredFirst() {
+        budget = new CallBudget(10, 10, clock);
+
+        assertEquals(WRONG_RESULT_ERROR, 5, acquireAll(CallPriority.REFRESH_AHEAD));
+        assertEquals(WRONG_RESULT_ERROR, 3, acquireAll(CallPriority.LIST_REFRESH));
+        assertEquals(WRONG_RESULT_ERROR, 2, acquireAll(CallPriority.TRADE));
+    }
+
+    @Test
+    public void testHourlyAllowanceIsRestoredAfterAnHour() {
+        for (int i = 0; i < 4; i++) {
+            budget.tryAcquire(CallPriority.TRADE);
+        }
+
+        clock.advance(Duration.ofMinutes(61));
+
+        assertEquals(WRONG_RESULT_ERROR, 4, budget.getRemainingHourlyCalls());
+        assertEquals(WRONG_RESULT_ERROR, 6, budget.getRemainingDailyCalls());
+        assertTrue(WRONG_RESULT_ERROR, budget.tryAcquire(CallPriority.TRADE));
+    }
+
+    @Test
+    public void testProjectedExhaustionFollowsTheHourlyRate() {
+        assertTrue(WRONG_RESULT_ERROR, budget.getProjectedExhaustion().isEmpty());
+
+        budget.tryAcquire(CallPriority.TRADE);
+        budget.tryAcquire(CallPriority.TRADE);
+
+        Instant expected = clock.instant().plus(Duration.ofHours(4));
+        assertEquals(WRONG_RESULT_ERROR, expected, budget.getProjectedExhaustion().orElseThrow());
+    }
+
+    private int acquireAll(CallPriority priority) {
+        int acquiredCalls = 0;
+        while (budget.tryAcquire(priority)) {
+            acquiredCalls++;
+        }
+
+        return acquiredCalls;
+    }
+}
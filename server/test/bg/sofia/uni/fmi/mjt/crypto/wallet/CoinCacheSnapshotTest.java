@@ -0,0 +1,76 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CachedCurrency;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CoinCacheContents;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CoinCacheSnapshot;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.PriceSnapshotException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CoinCacheSnapshotTest {
+    private static final String WRONG_RESULT_ERROR = "The loaded snapshot does not match the saved one";
+    private Path snapshotPath;
+    private CoinCacheSnapshot snapshot;
+
+    @Before
+    public void setUpSnapshot() throws IOException {
+        snapshotPath = Files.createTempFile("coin-cache", ".dat");
+        Files.delete(snapshotPath);
+        snapshot = new CoinCacheSnapshot(snapshotPath);
+    }
+
+    @After
+    public void deleteSnapshot() throws IOException {
+        Files.deleteIfExists(snapshotPath);
+    }
+
+    @Test
+    public void testLoadWithMissingFile() {
+        assertTrue(WRONG_RESULT_ERROR, snapshot.load().getCurrencies().isEmpty());
+    }
+
+    @Test
+    public void testSaveAndLoadPreservesOfferingsPricesAndTimestamps() {
+        long lastUpdate = System.currentTimeMillis();
+        Map<String, CachedCurrency> currencies = new LinkedHashMap<>();
+        currencies.put("BTC", new CachedCurrency(47012.343, lastUpdate));
+        currencies.put("GME", new CachedCurrency(98.232, lastUpdate - 1000));
+        currencies.put("ETH", new CachedCurrency(2400.245, lastUpdate));
+
+        snapshot.save(new CoinCacheContents(currencies, List.of("BTC", "ETH")));
+        CoinCacheContents loaded = snapshot.load();
+
+        assertEquals(WRONG_RESULT_ERROR, List.of("BTC", "ETH"), loaded.getOfferingCodes());
+        assertEquals(WRONG_RESULT_ERROR, 3, loaded.getCurrencies().size());
+        assertEquals(WRONG_RESULT_ERROR, 47012.343, loaded.getCurrency("BTC").getCurrentPrice(), 0);
+        assertEquals(WRONG_RESULT_ERROR, lastUpdate - 1000, loaded.getCurrency("GME").getLastUpdateMillis());
+    }
+
+    @Test
+    public void testSaveSkipsAssetIdsThatDoNotFitARecord() {
+        Map<String, CachedCurrency> currencies = new LinkedHashMap<>();
+        currencies.put("BTC", new CachedCurrency(1, 0));
+        currencies.put("A_VERY_LONG_ASSET_CODE_INDEED", new CachedCurrency(2, 0));
+
+        snapshot.save(new CoinCacheContents(currencies, List.of()));
+
+        assertEquals(WRONG_RESULT_ERROR, 1, snapshot.load().getCurrencies().size());
+    }
+
+    @Test(expected = PriceSnapshotException.class)
+    public void testLoadWithUnknownFormat() throws IOException {
+        Files.writeString(snapshotPath, "not a snapshot");
+        snapshot.load();
+    }
+}
@@ -0,0 +1,168 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CachedCurrency;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CoinCache;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CoinCacheContents;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CurrencyDTO;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CoinCacheTest {
+    private static final String WRONG_RESULT_ERROR = "The cache returned an unexpected result";
+    private MutableClock clock;
+    private CoinCache cache;
+
+    @Before
+    public void setUpCache() {
+        clock = new MutableClock();
+        cache = new CoinCache(clock, 4);
+    }
+
+    @Test
+    public void testEmptyCacheIsOutOfDate() {
+        assertFalse(WRONG_RESULT_ERROR, cache.hasOfferings());
+        assertTrue(WRONG_RESULT_ERROR, cache.isOutOfDate());
+    }
+
+    @Test
+    public void testOfferingsExpireAfterTimeToLive() {
+        cache.updateOfferings(createOfferings(10));
+        assertFalse(WRONG_RESULT_ERROR, cache.isOutOfDate());
+
+        clock.advance(Duration.ofMinutes(31));
+        assertTrue(WRONG_RESULT_ERROR, cache.isOutOfDate());
+    }
+
+    @Test
+    public void testFewRefreshedCurrenciesDoNotHideOutOfDateOfferings() {
+        cache.updateOfferings(createOfferings(10));
+        clock.advance(Duration.ofMinutes(31));
+
+        cache.updateCurrency("C0", 1);
+        cache.updateCurrency("C1", 1);
+        assertTrue(WRONG_RESULT_ERROR, cache.isOutOfDate());
+    }
+
+    @Test
+    public void testUpdateOfUnknownCurrencyAddsIt() {
+        cache.updateCurrency("NEW", 12.5);
+
+        assertNotNull(WRONG_RESULT_ERROR, cache.getCurrency("NEW"));
+        assertFalse(WRONG_RESULT_ERROR, cache.hasOfferings());
+    }
+
+    @Test
+    public void testReadersKeepTheirContentsAfterAnUpdate() {
+        cache.updateOfferings(createOfferings(3));
+        CoinCacheContents contents = cache.getContents();
+
+        cache.updateCurrency("C0", 1000);
+
+        assertEquals(WRONG_RESULT_ERROR, 0, contents.getCurrency("C0").getCurrentPrice(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 1000, cache.getCurrency("C0").getCurrentPrice(), 0);
+    }
+
+    @Test
+    public void testUpdatesAreBatchedIntoOneSnapshot() {
+        cache.updateCurrency("C0", 1);
+        CoinCacheContents contents = cache.getContents();
+        assertTrue(WRONG_RESULT_ERROR, contents == cache.getContents());
+
+        cache.updateCurrency("C1", 2);
+        cache.updateCurrency("C2", 3);
+        CoinCacheContents updatedContents = cache.getContents();
+
+        assertTrue(WRONG_RESULT_ERROR, contents != updatedContents);
+        assertEquals(WRONG_RESULT_ERROR, 3, updatedContents.getCurrencies().size());
+        assertEquals(WRONG_RESULT_ERROR, 1, contents.getCurrencies().size());
+    }
+
+    @Test
+    public void testRestoreSkipsOutOfDateCurrencies() {
+        long now = clock.millis();
+        CoinCacheContents saved = new CoinCacheContents(Map.of(
+                "FRESH", new CachedCurrency(1, now),
+                "STALE", new CachedCurrency(2, now - Duration.ofHours(1).toMillis())), List.of("FRESH"));
+
+        cache.restore(saved);
+
+        assertNotNull(WRONG_RESULT_ERROR, cache.getCurrency("FRESH"));
+        assertNull(WRONG_RESULT_ERROR, cache.getCurrency("STALE"));
+        assertEquals(WRONG_RESULT_ERROR, "FRESH", cache.getContents().getOfferingCodes().get(0));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedCurrencyIsEvicted() {
+        for (int i = 0; i < 4; i++) {
+            cache.updateCurrency("C" + i, i);
+            clock.advance(Duration.ofSeconds(1));
+        }
+        cache.getFreshCurrency("C0");
+
+        cache.updateCurrency("C4", 4);
+
+        assertNotNull(WRONG_RESULT_ERROR, cache.getCurrency("C0"));
+        assertNull(WRONG_RESULT_ERROR, cache.getCurrency("C1"));
+        assertEquals(WRONG_RESULT_ERROR, 4, cache.getSize());
+        assertEquals(WRONG_RESULT_ERROR, 1, cache.getStatistics().getEvictions());
+    }
+
+    @Test
+    public void testOutOfDateCurrenciesAreEvictedFirst() {
+        cache.updateCurrency("OLD", 1);
+        clock.advance(Duration.ofMinutes(31));
+
+        cache.updateCurrency("NEW", 2);
+
+        assertNull(WRONG_RESULT_ERROR, cache.getCurrency("OLD"));
+        assertEquals(WRONG_RESULT_ERROR, 1, cache.getStatistics().getEvictions());
+    }
+
+    @Test
+    public void testOfferingsAreNeverEvicted() {
+        cache.updateOfferings(createOfferings(4));
+        cache.updateCurrency("EXTRA", 1);
+
+        assertEquals(WRONG_RESULT_ERROR, 4, cache.getSize());
+        assertNull(WRONG_RESULT_ERROR, cache.getCurrency("EXTRA"));
+    }
+
+    @Test
+    public void testFreshCurrencyLookupsAreCounted() {
+        cache.updateCurrency("C0", 1);
+        cache.getFreshCurrency("C0");
+        cache.getFreshCurrency("C1");
+
+        assertEquals(WRONG_RESULT_ERROR, 1, cache.getStatistics().getHits());
+        assertEquals(WRONG_RESULT_ERROR, 1, cache.getStatistics().getMisses());
+    }
+
+    @Test
+    public void testNotFoundCodesExpire() {
+        cache.markNotFound("TYPO");
+        assertTrue(WRONG_RESULT_ERROR, cache.isKnownNotFound("TYPO"));
+
+        clock.advance(Duration.ofMinutes(6));
+        assertFalse(WRONG_RESULT_ERROR, cache.isKnownNotFound("TYPO"));
+        assertEquals(WRONG_RESULT_ERROR, 1, cache.getStatistics().getNegativeHits());
+    }
+
+    private List<CurrencyDTO> createOfferings(int count) {
+        CurrencyDTO[] offerings = new CurrencyDTO[count];
+        for (int i = 0; i < count; i++) {
+            offerings[i] = new CurrencyDTO("C" + i, 1, i);
+        }
+
+        return List.of(offerings);
+    }
+}
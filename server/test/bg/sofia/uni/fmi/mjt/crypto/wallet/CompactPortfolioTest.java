@@ -0,0 +1,68 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.CompactPortfolio;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.CryptoCurrency;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class CompactPortfolioTest {
+    private static final String WRONG_RESULT_ERROR = "The compact portfolio does not match the recorded holdings";
+    private static final String[] OFFERING_CODES = {"BTC", "ETH", "GME", "DOGE", "SOL"};
+
+    private CompactPortfolio portfolio;
+
+    @Before
+    public void setUpPortfolio() {
+        portfolio = new CompactPortfolio();
+    }
+
+    @Test
+    public void testPurchasesOfTheSameAssetAreMerged() {
+        portfolio.add("ETH", 100, 10);
+        portfolio.add("BTC", 5, 50);
+        portfolio.add("ETH", 200, 30);
+
+        CryptoCurrency ether = portfolio.get("ETH");
+        assertEquals(WRONG_RESULT_ERROR, 2, portfolio.size());
+        assertEquals(WRONG_RESULT_ERROR, 300, ether.getCryptoUnits());
+        assertEquals(WRONG_RESULT_ERROR, 40, ether.getTotalPriceMicros());
+    }
+
+    @Test
+    public void testRemoveKeepsTheRemainingHoldings() {
+        for (int i = 0; i < OFFERING_CODES.length; i++) {
+            portfolio.add(OFFERING_CODES[i], i + 1, (i + 1) * 10);
+        }
+
+        CryptoCurrency removed = portfolio.remove("GME");
+
+        assertEquals(WRONG_RESULT_ERROR, 3, removed.getCryptoUnits());
+        assertFalse(WRONG_RESULT_ERROR, portfolio.contains("GME"));
+        assertNull(WRONG_RESULT_ERROR, portfolio.remove("GME"));
+        assertEquals(WRONG_RESULT_ERROR, OFFERING_CODES.length - 1, portfolio.size());
+        assertEquals(WRONG_RESULT_ERROR, 50, portfolio.get("SOL").getTotalPriceMicros());
+        assertEquals(WRONG_RESULT_ERROR, 1, portfolio.get("BTC").getCryptoUnits());
+    }
+
+    @Test
+    public void testRemovingEveryHoldingEmptiesThePortfolio() {
+        portfolio.add("BTC", 1, 1);
+        portfolio.remove("BTC");
+        portfolio.add("ETH", 2, 2);
+
+        assertEquals(WRONG_RESULT_ERROR, List.of("ETH"), portfolio.toList().stream().map(CryptoCurrency::getCode)
+                .toList());
+    }
+
+    @Test
+    public void testUnknownAssetIsNotFound() {
+        assertFalse(WRONG_RESULT_ERROR, portfolio.contains("NEVER-TRADED"));
+        assertNull(WRONG_RESULT_ERROR, portfolio.get("NEVER-TRADED"));
+    }
+}
@@ -0,0 +1,147 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MappedShard;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MutationLog;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.ShardedUserCheckpoint;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.CryptoCurrency;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.PasswordHasher;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserProfile;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConcurrentUserRepositoryTest {
+    private static final String WRONG_RESULT_ERROR = "The concurrent operations did not conserve the user balances";
+    private static final int THREAD_COUNT = 8;
+    private static final int USER_COUNT = 200;
+    private static final int OPERATIONS_PER_THREAD = 5_000;
+    private static final int HASH_ITERATIONS = 1000;
+    private static final long MAINTENANCE_PAUSE_MILLIS = 5;
+    private static final String[] OFFERING_CODES = {"BTC", "ETH", "GME"};
+
+    private UserRepository userRepository;
+    private ShardedUserCheckpoint checkpoint;
+
+    @Before
+    public void setUpRepository() throws IOException {
+        userRepository = new UserRepository(MutationLog.disabled(), UserRepository.SHARD_COUNT,
+                new PasswordHasher(HASH_ITERATIONS));
+        checkpoint = new ShardedUserCheckpoint(Files.createTempDirectory("checkpoint"), UserRepository.SHARD_COUNT);
+        for (int i = 0; i < USER_COUNT; i++) {
+            userRepository.registerIfValid("user" + i, "test");
+            userRepository.logOut("user" + i);
+        }
+    }
+
+    @Test
+    public void testTradesConserveBalancesDuringCheckpointsAndEviction() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT + 1);
+        AtomicBoolean tradingFinished = new AtomicBoolean(false);
+        List<Future<Long>> traders = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            traders.add(executor.submit(createTrader(i)));
+        }
+        Future<?> maintenance = executor.submit(() -> {
+            while (!tradingFinished.get()) {
+                checkpoint.save(userRepository.takeDirtyShards(), userRepository);
+                userRepository.evictInactiveUsers();
+                Thread.sleep(MAINTENANCE_PAUSE_MILLIS);
+            }
+            return null;
+        });
+
+        long totalDeposited = 0;
+        for (Future<Long> trader : traders) {
+            totalDeposited += trader.get();
+        }
+        tradingFinished.set(true);
+        maintenance.get();
+        executor.shutdown();
+
+        assertEquals(WRONG_RESULT_ERROR, totalDeposited, getTotalValue(userRepository), 0);
+
+        checkpoint.save(userRepository.takeDirtyShards(), userRepository);
+        UserRepository restoredRepository = new UserRepository();
+        MappedShard[] mappedShards = checkpoint.map();
+        for (int shard = 0; shard < mappedShards.length; shard++) {
+            restoredRepository.installMappedShard(shard, mappedShards[shard]);
+        }
+        assertEquals(WRONG_RESULT_ERROR, totalDeposited, getTotalValue(restoredRepository), 0);
+    }
+
+    @Test
+    public void testConcurrentRegistrationsOfTheSameUsernameAdmitOnlyOne() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> registrations = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            registrations.add(executor.submit(() -> {
+                start.await();
+                return userRepository.registerIfValid("newcomer", "test").isSuccessful();
+            }));
+        }
+        start.countDown();
+
+        int successfulRegistrations = 0;
+        for (Future<Boolean> registration : registrations) {
+            successfulRegistrations += registration.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(WRONG_RESULT_ERROR, 1, successfulRegistrations);
+        assertEquals(WRONG_RESULT_ERROR, USER_COUNT + 1, userRepository.getUserCount());
+    }
+
+    private Callable<Long> createTrader(int seed) {
+        return () -> {
+            SplittableRandom random = new SplittableRandom(seed);
+            long deposited = 0;
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                String username = "user" + random.nextInt(USER_COUNT);
+                String offeringCode = OFFERING_CODES[random.nextInt(OFFERING_CODES.length)];
+                try {
+                    switch (random.nextInt(3)) {
+                        case 0 -> {
+                            int amount = 1 + random.nextInt(10);
+                            userRepository.depositMoney(username, amount);
+                            deposited += amount;
+                        }
+                        case 1 -> userRepository.buyCryptocurrency(username, offeringCode, 1 + random.nextInt(5), 1);
+                        default -> userRepository.sellCryptocurrency(username, offeringCode, 1);
+                    }
+                } catch (IllegalArgumentException exception) {
+                    continue;
+                }
+            }
+
+            return deposited;
+        };
+    }
+
+    private double getTotalValue(UserRepository repository) {
+        double totalValue = 0;
+        for (int i = 0; i < USER_COUNT; i++) {
+            UserProfile user = repository.getUserByUsername("user" + i);
+            totalValue += user.getBalance();
+            for (CryptoCurrency currency : user.getInvestments()) {
+                totalValue += currency.getCryptoAmount();
+            }
+        }
+
+        return totalValue;
+    }
+}
@@ -1,21 +1,23 @@
 package bg.sofia.uni.fmi.mjt.crypto.wallet;
 
-import bg.sofia.uni.fmi.mjt.crypto.wallet.communication.ClientRequestExecutor;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CoinAPI;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.SyntheticPriceSource;
 import bg.sofia.uni.fmi.mjt.crypto.wallet.communication.CryptoWalletServer;
 import bg.sofia.uni.fmi.mjt.crypto.wallet.communication.Request;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
-import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class CryptoWalletServerTest {
     private static final String WRONG_MESSAGE_ERROR = "The response is incorrect or formatted incorrectly";
@@ -24,9 +26,14 @@ public class CryptoWalletServerTest {
     private static CryptoWalletServer cryptoServer;
 
     @BeforeClass
-    public static void startServer() {
+    public static void startServer() throws IOException {
+        Path snapshotPath = Files.createTempFile("coin-cache", ".dat");
+        Files.delete(snapshotPath);
+        CoinAPI coinAPI = new CoinAPI(new SyntheticPriceSource(100, Duration.ofSeconds(1)), snapshotPath);
+        Path dataDirectory = Files.createTempDirectory("wallet-data");
+
         serverThread = new Thread(() -> {
-            try (CryptoWalletServer server = new CryptoWalletServer(SERVER_PORT)) {
+            try (CryptoWalletServer server = new CryptoWalletServer(SERVER_PORT, coinAPI, dataDirectory)) {
                 cryptoServer = server;
                 cryptoServer.start();
             } catch (Exception e) {
@@ -223,7 +230,7 @@ public class CryptoWalletServerTest {
         assertEquals(WRONG_MESSAGE_ERROR, expected, responses.get(3));
     }
 
-    @Ignore
+    @Test
     public void testBuyWithInvalidCurrency() {
         List<Request> requests = new ArrayList<>();
         requests.add(new Request("guest", "register buyCurrency test"));
@@ -277,7 +284,7 @@ public class CryptoWalletServerTest {
         assertEquals(WRONG_MESSAGE_ERROR, expected, responses.get(2));
     }
 
-    @Ignore
+    @Test
     public void testSellWithInvalidCurrency() {
         List<Request> requests = new ArrayList<>();
         requests.add(new Request("guest", "register sellCurrency test"));
@@ -339,6 +346,82 @@ public class CryptoWalletServerTest {
         assertEquals(WRONG_MESSAGE_ERROR, expected, responses.get(1));
     }
 
+    @Test
+    public void testPriceHistoryAfterPurchase() {
+        List<Request> requests = new ArrayList<>();
+        requests.add(new Request("guest", "register historian test"));
+        requests.add(new Request("historian", "deposit-money 100"));
+        requests.add(new Request("historian", "buy SYN1 10"));
+        requests.add(new Request("historian", "price-history SYN1 1h"));
+        requests.add(new Request("historian", "price-history SYN2 1h"));
+
+        List<String> responses = processRequests(requests);
+        assertNotNull(responses);
+
+        String expectedHeader = String.format("Price history of SYN1 (UTC):%n");
+        assertEquals(WRONG_MESSAGE_ERROR, expectedHeader, responses.get(3).substring(0, expectedHeader.length()));
+        String expectedUnknown =
+                String.format("The currency you have entered could not be found. Please enter again.%n");
+        assertEquals(WRONG_MESSAGE_ERROR, expectedUnknown, responses.get(4));
+    }
+
+    @Test
+    public void testUnrealizedPnlAfterPurchase() {
+        List<Request> requests = new ArrayList<>();
+        requests.add(new Request("guest", "register speculator test"));
+        requests.add(new Request("speculator", "unrealized-pnl"));
+        requests.add(new Request("speculator", "deposit-money 100"));
+        requests.add(new Request("speculator", "buy SYN3 10"));
+        requests.add(new Request("speculator", "unrealized-pnl"));
+
+        List<String> responses = processRequests(requests);
+        assertNotNull(responses);
+
+        String expected = String.format("Unrealized profit/loss of your investments: $%.4f%n", 0.0);
+        assertEquals(WRONG_MESSAGE_ERROR, expected, responses.get(1));
+        String expectedPrefix = "Unrealized profit/loss of your investments: $";
+        assertEquals(WRONG_MESSAGE_ERROR, expectedPrefix, responses.get(4).substring(0, expectedPrefix.length()));
+    }
+
+    @Test
+    public void testTransactionHistoryIsPaged() {
+        List<Request> requests = new ArrayList<>();
+        requests.add(new Request("guest", "register bookkeeper test"));
+        requests.add(new Request("bookkeeper", "get-transactions"));
+        for (int i = 1; i <= 11; i++) {
+            requests.add(new Request("bookkeeper", "deposit-money " + i));
+        }
+        requests.add(new Request("bookkeeper", "get-transactions"));
+        requests.add(new Request("bookkeeper", "get-transactions first"));
+
+        List<String> responses = processRequests(requests);
+        assertNotNull(responses);
+
+        assertEquals(WRONG_MESSAGE_ERROR, String.format("You have no transactions yet.%n"), responses.get(1));
+        String[] firstPage = responses.get(13).split(System.lineSeparator());
+        assertEquals(WRONG_MESSAGE_ERROR, 11, firstPage.length);
+        assertTrue(WRONG_MESSAGE_ERROR, firstPage[0].endsWith(String.format("Deposit $%.4f", 11.0)));
+        assertTrue(WRONG_MESSAGE_ERROR, firstPage[10].startsWith("More transactions: get-transactions "));
+        assertEquals(WRONG_MESSAGE_ERROR, String.format("The page must be a valid page number.%n"), responses.get(14));
+    }
+
+    @Test
+    public void testLeaderboard() {
+        List<Request> requests = new ArrayList<>();
+        requests.add(new Request("guest", "register ranked test"));
+        requests.add(new Request("ranked", "deposit-money 1000000"));
+        requests.add(new Request("ranked", "leaderboard 1"));
+        requests.add(new Request("ranked", "leaderboard 0"));
+
+        List<String> responses = processRequests(requests);
+        assertNotNull(responses);
+
+        String expected = String.format("Top 1 portfolios:%n 1) ranked: $%.4f%n", 1_000_000.0);
+        assertEquals(WRONG_MESSAGE_ERROR, expected, responses.get(2));
+        String expectedError = String.format("The leaderboard size must be a whole number between 1 and 100.%n");
+        assertEquals(WRONG_MESSAGE_ERROR, expectedError, responses.get(3));
+    }
+
     @Test
     public void testQuitAsGuest() {
         Request request = new Request("guest", "quit");
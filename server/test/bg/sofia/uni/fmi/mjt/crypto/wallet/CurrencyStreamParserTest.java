@@ -0,0 +1,85 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CurrencyDTO;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CurrencyStreamParser;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CurrencyStreamParserTest {
+    private static final String WRONG_RESULT_ERROR = "The parsed currencies are incorrect";
+    private final CurrencyStreamParser parser = new CurrencyStreamParser();
+
+    @Test
+    public void testParseOfferingsFiltersInvalidAssets() throws IOException {
+        String json = """
+                [
+                  {"asset_id": "USD", "name": "US Dollar", "type_is_crypto": 0, "price_usd": 1.0},
+                  {"asset_id": "BTC", "type_is_crypto": 1, "price_usd": 47012.343, "volume_1day_usd": 1.5},
+                  {"asset_id": "NOP", "type_is_crypto": 1},
+                  {"asset_id": "NUL", "type_is_crypto": 1, "price_usd": null},
+                  {"price_usd": 2400.245, "data_start": "2015-08-07", "asset_id": "ETH", "type_is_crypto": 1}
+                ]
+                """;
+
+        List<CurrencyDTO> offerings = parser.parseOfferings(toStream(json), 50);
+
+        assertEquals(WRONG_RESULT_ERROR, List.of("BTC", "ETH"), getAssetIds(offerings));
+    }
+
+    @Test
+    public void testParseOfferingsKeepsOnlyTheMostExpensive() throws IOException {
+        Random random = new Random(7);
+        StringBuilder json = new StringBuilder("[");
+        double[] prices = new double[10000];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = random.nextDouble() * 1000;
+            json.append(i == 0 ? "" : ",")
+                    .append(String.format("{\"asset_id\":\"A%d\",\"type_is_crypto\":1,\"price_usd\":%s}",
+                            i, Double.toString(prices[i])));
+        }
+        json.append("]");
+
+        List<CurrencyDTO> offerings = parser.parseOfferings(toStream(json.toString()), 50);
+
+        double[] sortedPrices = prices.clone();
+        Arrays.sort(sortedPrices);
+        assertEquals(WRONG_RESULT_ERROR, 50, offerings.size());
+        for (int i = 0; i < offerings.size(); i++) {
+            assertEquals(WRONG_RESULT_ERROR, sortedPrices[sortedPrices.length - 1 - i],
+                    offerings.get(i).getPriceUSD(), 0);
+        }
+    }
+
+    @Test
+    public void testParseFirstWithEmptyResponse() throws IOException {
+        assertNull(WRONG_RESULT_ERROR, parser.parseFirst(toStream("[]")));
+    }
+
+    @Test
+    public void testParseFirstReturnsTheAsset() throws IOException {
+        CurrencyDTO currency = parser.parseFirst(toStream(
+                "[{\"asset_id\": \"BTC\", \"type_is_crypto\": 1, \"price_usd\": 47012.343}]"));
+
+        assertEquals(WRONG_RESULT_ERROR, "BTC", currency.getAssetId());
+        assertEquals(WRONG_RESULT_ERROR, 47012.343, currency.getPriceUSD(), 0);
+    }
+
+    private InputStream toStream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> getAssetIds(List<CurrencyDTO> currencies) {
+        return currencies.stream().map(CurrencyDTO::getAssetId).collect(Collectors.toList());
+    }
+}
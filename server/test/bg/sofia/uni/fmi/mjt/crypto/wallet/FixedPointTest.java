@@ -0,0 +1,69 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.CryptoCurrency;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.FixedPoint;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserProfile;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FixedPointTest {
+    private static final String WRONG_RESULT_ERROR = "The fixed-point amount is incorrect";
+    private static final int TRADE_COUNT = 10_000;
+
+    private UserProfile user;
+
+    @Before
+    public void setUpUser() {
+        user = new UserProfile("trader", "hash");
+    }
+
+    @Test
+    public void testRepeatedDepositsDoNotDrift() {
+        for (int i = 0; i < TRADE_COUNT; i++) {
+            user.depositMoney(0.1);
+        }
+
+        assertEquals(WRONG_RESULT_ERROR, 1_000 * FixedPoint.MICROS_PER_DOLLAR, user.getBalanceMicros());
+    }
+
+    @Test
+    public void testRepeatedRoundTripsDoNotDrift() {
+        user.depositMoney(100);
+        for (int i = 0; i < TRADE_COUNT; i++) {
+            user.buyCryptocurrency("BTC", 10, 4);
+            user.sellCryptocurrency("BTC", 4);
+        }
+
+        assertEquals(WRONG_RESULT_ERROR, 100 * FixedPoint.MICROS_PER_DOLLAR, user.getBalanceMicros());
+    }
+
+    @Test
+    public void testHoldingsAreStoredInWholeUnits() {
+        user.depositMoney(1);
+        user.buyCryptocurrency("ETH", 1, 3);
+
+        CryptoCurrency investment = user.getInvestments().iterator().next();
+        assertEquals(WRONG_RESULT_ERROR, 33_333_333, investment.getCryptoUnits());
+        assertEquals(WRONG_RESULT_ERROR, FixedPoint.MICROS_PER_DOLLAR, investment.getTotalPriceMicros());
+        assertEquals(WRONG_RESULT_ERROR, 0, user.getBalanceMicros());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBalanceOverflowIsRejected() {
+        user.depositMoney(9e12);
+        user.depositMoney(9e12);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotANumberIsRejected() {
+        user.depositMoney(Double.NaN);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPurchaseTooSmallForOneUnitIsRejected() {
+        user.depositMoney(1);
+        user.buyCryptocurrency("BTC", 0.000001, 1_000_000);
+    }
+}
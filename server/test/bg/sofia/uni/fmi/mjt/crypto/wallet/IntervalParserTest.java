@@ -0,0 +1,35 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.communication.IntervalParser;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+
+public class IntervalParserTest {
+    private static final String WRONG_RESULT_ERROR = "The interval was parsed incorrectly";
+
+    @Test
+    public void testParseSupportedUnits() {
+        assertEquals(WRONG_RESULT_ERROR, Duration.ofSeconds(30), IntervalParser.parse("30s"));
+        assertEquals(WRONG_RESULT_ERROR, Duration.ofMinutes(15), IntervalParser.parse("15m"));
+        assertEquals(WRONG_RESULT_ERROR, Duration.ofHours(1), IntervalParser.parse("1H"));
+        assertEquals(WRONG_RESULT_ERROR, Duration.ofDays(7), IntervalParser.parse("7d"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWithUnknownUnit() {
+        IntervalParser.parse("5w");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWithNonPositiveAmount() {
+        IntervalParser.parse("0m");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWithoutAmount() {
+        IntervalParser.parse("m");
+    }
+}
@@ -0,0 +1,148 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.AssetRegistry;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.trading.LimitOrder;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.trading.LimitOrderBook;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserProfile;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LimitOrderBookTest {
+    private static final String WRONG_RESULT_ERROR = "The limit orders were not executed correctly";
+    private UserRepository userRepository;
+    private AssetRegistry registry;
+    private Path storagePath;
+    private LimitOrderBook orderBook;
+    private UserProfile trader;
+
+    @Before
+    public void setUpOrderBook() throws IOException {
+        userRepository = new UserRepository();
+        userRepository.registerIfValid("trader", "test");
+        trader = userRepository.getUserByUsername("trader");
+        trader.depositMoney(1000);
+
+        registry = AssetRegistry.shared();
+        storagePath = Files.createTempDirectory("wallet-data").resolve("orders.json");
+        orderBook = new LimitOrderBook(userRepository, registry, storagePath, Runnable::run);
+    }
+
+    @Test
+    public void testBuyOrderIsExecutedOnlyOnceThePriceFallsToTheLimit() {
+        orderBook.placeBuyOrder("trader", "BTC", 100, 500);
+        int assetIndex = registry.indexOf("BTC");
+
+        orderBook.onPriceUpdate(assetIndex, 120, 0);
+        assertEquals(WRONG_RESULT_ERROR, 1000, trader.getBalance(), 0);
+
+        orderBook.onPriceUpdate(assetIndex, 100, 0);
+        assertEquals(WRONG_RESULT_ERROR, 500, trader.getBalance(), 0);
+        assertTrue(WRONG_RESULT_ERROR, trader.getUserCryptoCurrencies().contains("BTC"));
+        assertTrue(WRONG_RESULT_ERROR, orderBook.getOrders("trader").isEmpty());
+    }
+
+    @Test
+    public void testSellOrderIsExecutedOnlyOnceThePriceRisesToTheLimit() {
+        trader.buyCryptocurrency("ETH", 1000, 100);
+        orderBook.placeSellOrder("trader", "ETH", 150);
+        int assetIndex = registry.indexOf("ETH");
+
+        orderBook.onPriceUpdate(assetIndex, 149, 0);
+        assertEquals(WRONG_RESULT_ERROR, 0, trader.getBalance(), 0);
+
+        orderBook.onPriceUpdate(assetIndex, 200, 0);
+        assertEquals(WRONG_RESULT_ERROR, 2000, trader.getBalance(), 0);
+        assertFalse(WRONG_RESULT_ERROR, trader.getUserCryptoCurrencies().contains("ETH"));
+    }
+
+    @Test
+    public void testOnlyCrossedOrdersAreExecuted() {
+        orderBook.placeBuyOrder("trader", "BTC", 90, 100);
+        orderBook.placeBuyOrder("trader", "BTC", 100, 100);
+        orderBook.placeBuyOrder("trader", "BTC", 110, 100);
+        orderBook.placeBuyOrder("trader", "ETH", 1000, 100);
+
+        orderBook.onPriceUpdate(registry.indexOf("BTC"), 100, 0);
+
+        assertEquals(WRONG_RESULT_ERROR, 800, trader.getBalance(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 2, orderBook.getOrders("trader").size());
+    }
+
+    @Test
+    public void testOrderFailsVisiblyWhenFundsAreMissingOnExecution() {
+        long orderId = orderBook.placeBuyOrder("trader", "BTC", 100, 1000).getId();
+        trader.buyCryptocurrency("ETH", 600, 10);
+
+        orderBook.onPriceUpdate(registry.indexOf("BTC"), 50, 0);
+
+        assertEquals(WRONG_RESULT_ERROR, 400, trader.getBalance(), 0);
+        assertFalse(WRONG_RESULT_ERROR, trader.getUserCryptoCurrencies().contains("BTC"));
+        List<LimitOrder> orders = orderBook.getOrders("trader");
+        assertEquals(WRONG_RESULT_ERROR, 1, orders.size());
+        assertTrue(WRONG_RESULT_ERROR, orders.get(0).hasFailed());
+
+        orderBook.onPriceUpdate(registry.indexOf("BTC"), 10, 0);
+        assertEquals(WRONG_RESULT_ERROR, 400, trader.getBalance(), 0);
+        assertTrue(WRONG_RESULT_ERROR, orderBook.cancel("trader", orderId));
+        assertTrue(WRONG_RESULT_ERROR, orderBook.getOrders("trader").isEmpty());
+    }
+
+    @Test
+    public void testCancelledOrdersAreNotExecuted() {
+        long orderId = orderBook.placeBuyOrder("trader", "BTC", 100, 500).getId();
+
+        assertFalse(WRONG_RESULT_ERROR, orderBook.cancel("someoneElse", orderId));
+        assertTrue(WRONG_RESULT_ERROR, orderBook.cancel("trader", orderId));
+        orderBook.onPriceUpdate(registry.indexOf("BTC"), 50, 0);
+
+        assertEquals(WRONG_RESULT_ERROR, 1000, trader.getBalance(), 0);
+        assertFalse(WRONG_RESULT_ERROR, orderBook.cancel("trader", orderId));
+    }
+
+    @Test
+    public void testOrdersSurviveARestart() {
+        long cancelledId = orderBook.placeBuyOrder("trader", "BTC", 100, 100).getId();
+        orderBook.placeBuyOrder("trader", "BTC", 100, 500);
+        orderBook.cancel("trader", cancelledId);
+
+        LimitOrderBook restarted = new LimitOrderBook(userRepository, registry, storagePath, Runnable::run);
+        restarted.onPriceUpdate(registry.indexOf("BTC"), 100, 0);
+
+        assertEquals(WRONG_RESULT_ERROR, 500, trader.getBalance(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 3, restarted.placeBuyOrder("trader", "ETH", 1, 1).getId());
+    }
+
+    @Test
+    public void testExecutionIsHandedOffFromThePriceListener() {
+        List<Runnable> executions = new ArrayList<>();
+        orderBook = new LimitOrderBook(userRepository, registry, storagePath, executions::add);
+        orderBook.placeBuyOrder("trader", "BTC", 100, 500);
+
+        orderBook.onPriceUpdate(registry.indexOf("BTC"), 100, 0);
+        assertEquals(WRONG_RESULT_ERROR, 1000, trader.getBalance(), 0);
+
+        executions.forEach(Runnable::run);
+        assertEquals(WRONG_RESULT_ERROR, 500, trader.getBalance(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSellOrderForCurrencyThatIsNotOwned() {
+        orderBook.placeSellOrder("trader", "BTC", 100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuyOrderWithInsufficientFunds() {
+        orderBook.placeBuyOrder("trader", "BTC", 100, 5000);
+    }
+}
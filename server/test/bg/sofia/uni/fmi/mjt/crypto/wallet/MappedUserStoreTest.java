@@ -0,0 +1,99 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MappedShard;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MutationLog;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.ShardedUserCheckpoint;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.PasswordHasher;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MappedUserStoreTest {
+    private static final String WRONG_RESULT_ERROR = "The mapped user store holds unexpected users";
+    private static final int USER_COUNT = 1000;
+    private static final int HASH_ITERATIONS = 1000;
+    private ShardedUserCheckpoint checkpoint;
+
+    @Before
+    public void setUpCheckpoint() throws IOException {
+        checkpoint = new ShardedUserCheckpoint(Files.createTempDirectory("checkpoint"), UserRepository.SHARD_COUNT);
+
+        UserRepository userRepository = new UserRepository(MutationLog.disabled(),
+                UserRepository.DEFAULT_RESIDENT_USER_CAPACITY, new PasswordHasher(HASH_ITERATIONS));
+        for (int i = 0; i < USER_COUNT; i++) {
+            userRepository.registerIfValid("user" + i, "test");
+            userRepository.depositMoney("user" + i, i);
+            userRepository.logOut("user" + i);
+        }
+        checkpoint.save(userRepository.takeDirtyShards(), userRepository);
+    }
+
+    @Test
+    public void testProfilesAreHydratedOnFirstAccess() {
+        UserRepository userRepository = createMappedRepository(UserRepository.SHARD_COUNT);
+
+        assertEquals(WRONG_RESULT_ERROR, USER_COUNT, userRepository.getUserCount());
+        assertTrue(WRONG_RESULT_ERROR, userRepository.isRegistered("user42"));
+        assertEquals(WRONG_RESULT_ERROR, 0, userRepository.getResidentUserCount());
+
+        assertEquals(WRONG_RESULT_ERROR, 42, userRepository.getUserByUsername("user42").getBalance(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 1, userRepository.getResidentUserCount());
+    }
+
+    @Test
+    public void testLoginHydratesTheProfile() {
+        UserRepository userRepository = createMappedRepository(UserRepository.SHARD_COUNT);
+
+        assertTrue(WRONG_RESULT_ERROR, userRepository.logInIfValid("user7", "test").isSuccessful());
+        assertEquals(WRONG_RESULT_ERROR, 1, userRepository.getResidentUserCount());
+    }
+
+    @Test
+    public void testOnlyCleanInactiveProfilesAreEvicted() {
+        UserRepository userRepository = createMappedRepository(UserRepository.SHARD_COUNT);
+        for (int i = 0; i < USER_COUNT; i++) {
+            userRepository.getUserByUsername("user" + i);
+        }
+        userRepository.depositMoney("user1", 10);
+        userRepository.logInIfValid("user2", "test");
+
+        userRepository.evictInactiveUsers();
+
+        assertTrue(WRONG_RESULT_ERROR, userRepository.getResidentUserCount() <= UserRepository.SHARD_COUNT + 2);
+        assertEquals(WRONG_RESULT_ERROR, 11, userRepository.getUserByUsername("user1").getBalance(), 0);
+        assertEquals(WRONG_RESULT_ERROR, USER_COUNT, userRepository.getUserCount());
+    }
+
+    @Test
+    public void testChangedProfilesAreEvictableAfterCheckpoint() {
+        UserRepository userRepository = createMappedRepository(UserRepository.SHARD_COUNT);
+        for (int i = 0; i < USER_COUNT; i++) {
+            userRepository.depositMoney("user" + i, 1);
+        }
+        userRepository.evictInactiveUsers();
+        assertEquals(WRONG_RESULT_ERROR, USER_COUNT, userRepository.getResidentUserCount());
+
+        checkpoint.save(userRepository.takeDirtyShards(), userRepository);
+        userRepository.evictInactiveUsers();
+
+        assertEquals(WRONG_RESULT_ERROR, UserRepository.SHARD_COUNT, userRepository.getResidentUserCount());
+        assertEquals(WRONG_RESULT_ERROR, 501, userRepository.getUserByUsername("user500").getBalance(), 0);
+    }
+
+    private UserRepository createMappedRepository(int residentUserCapacity) {
+        UserRepository userRepository = new UserRepository(MutationLog.disabled(), residentUserCapacity);
+        MappedShard[] mappedShards = checkpoint.map();
+        for (int shard = 0; shard < mappedShards.length; shard++) {
+            userRepository.installMappedShard(shard, mappedShards[shard]);
+        }
+
+        return userRepository;
+    }
+}
@@ -0,0 +1,127 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MutationLog;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.CryptoCurrency;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.MarketExposure;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.PasswordHasher;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserProfile;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MarketExposureTest {
+    private static final String WRONG_RESULT_ERROR = "The market exposure does not match the user portfolios";
+    private static final int HASH_ITERATIONS = 1000;
+    private static final int USER_COUNT = 50;
+    private static final int THREAD_COUNT = 4;
+    private static final int OPERATIONS_PER_THREAD = 2_000;
+    private static final String[] OFFERING_CODES = {"BTC", "ETH", "GME"};
+
+    private UserRepository userRepository;
+
+    @Before
+    public void setUpRepository() {
+        userRepository = new UserRepository(MutationLog.disabled(), UserRepository.DEFAULT_RESIDENT_USER_CAPACITY,
+                new PasswordHasher(HASH_ITERATIONS));
+        for (int i = 0; i < USER_COUNT; i++) {
+            userRepository.registerIfValid("user" + i, "test");
+            userRepository.depositMoney("user" + i, 1_000);
+        }
+    }
+
+    @Test
+    public void testTradesUpdateTheExposure() {
+        userRepository.buyCryptocurrency("user0", "BTC", 100, 10);
+        userRepository.buyCryptocurrency("user0", "BTC", 50, 25);
+        userRepository.buyCryptocurrency("user1", "BTC", 40, 20);
+        userRepository.buyCryptocurrency("user1", "ETH", 30, 3);
+
+        MarketExposure.AssetExposure bitcoin = userRepository.getMarketExposure().getExposures().get("BTC");
+        assertEquals(WRONG_RESULT_ERROR, 2, bitcoin.getHolderCount());
+        assertEquals(WRONG_RESULT_ERROR, 14, bitcoin.getAmount(), 0.0001);
+        assertEquals(WRONG_RESULT_ERROR, 190, bitcoin.getCostBasis(), 0.0001);
+
+        userRepository.sellCryptocurrency("user0", "BTC", 30);
+        userRepository.sellCryptocurrency("user1", "ETH", 4);
+
+        Map<String, MarketExposure.AssetExposure> exposures = userRepository.getMarketExposure().getExposures();
+        assertEquals(WRONG_RESULT_ERROR, 1, exposures.size());
+        assertEquals(WRONG_RESULT_ERROR, 1, exposures.get("BTC").getHolderCount());
+        assertEquals(WRONG_RESULT_ERROR, 2, exposures.get("BTC").getAmount(), 0.0001);
+        assertEquals(WRONG_RESULT_ERROR, 40, exposures.get("BTC").getCostBasis(), 0.0001);
+    }
+
+    @Test
+    public void testConcurrentTradesMatchAScanOfAllPortfolios() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        List<Future<?>> traders = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            int seed = i;
+            traders.add(executor.submit(() -> trade(new SplittableRandom(seed))));
+        }
+        for (Future<?> trader : traders) {
+            trader.get();
+        }
+        executor.shutdown();
+
+        Map<String, MarketExposure.AssetExposure> exposures = userRepository.getMarketExposure().getExposures();
+        for (String offeringCode : OFFERING_CODES) {
+            long holderCount = 0;
+            double amount = 0;
+            double costBasis = 0;
+            for (int i = 0; i < USER_COUNT; i++) {
+                for (CryptoCurrency currency : userRepository.getUserByUsername("user" + i).getInvestments()) {
+                    if (currency.getCode().equals(offeringCode)) {
+                        holderCount++;
+                        amount += currency.getCryptoAmount();
+                        costBasis += currency.getTotalPrice();
+                    }
+                }
+            }
+
+            MarketExposure.AssetExposure exposure = exposures.get(offeringCode);
+            assertEquals(WRONG_RESULT_ERROR, holderCount, exposure == null ? 0 : exposure.getHolderCount());
+            assertEquals(WRONG_RESULT_ERROR, amount, exposure == null ? 0 : exposure.getAmount(), 0.0001);
+            assertEquals(WRONG_RESULT_ERROR, costBasis, exposure == null ? 0 : exposure.getCostBasis(), 0.0001);
+        }
+    }
+
+    @Test
+    public void testHoldingsOfLoadedUsersAreCounted() {
+        MarketExposure marketExposure = new MarketExposure();
+        marketExposure.addHoldings(new UserProfile("loaded", "hash", 0,
+                List.of(new CryptoCurrency("BTC", 2, 30), new CryptoCurrency("ETH", 5, 10))));
+
+        assertTrue(WRONG_RESULT_ERROR, marketExposure.getExposures().containsKey("ETH"));
+        assertEquals(WRONG_RESULT_ERROR, 1, marketExposure.getExposures().get("BTC").getHolderCount());
+        assertEquals(WRONG_RESULT_ERROR, 30, marketExposure.getExposures().get("BTC").getCostBasis(), 0.0001);
+    }
+
+    private void trade(SplittableRandom random) {
+        for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+            String username = "user" + random.nextInt(USER_COUNT);
+            String offeringCode = OFFERING_CODES[random.nextInt(OFFERING_CODES.length)];
+            try {
+                if (random.nextBoolean()) {
+                    double moneyToInvest = 1 + random.nextInt(5);
+                    userRepository.buyCryptocurrency(username, offeringCode, moneyToInvest, 1 + random.nextInt(3));
+                } else {
+                    userRepository.sellCryptocurrency(username, offeringCode, 1 + random.nextInt(3));
+                }
+            } catch (IllegalArgumentException exception) {
+                continue;
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.FileMutationLog;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MutationRecord;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MutationLogTest {
+    private static final String WRONG_RESULT_ERROR = "The mutation log did not restore the expected state";
+    private Path logPath;
+
+    @Before
+    public void setUpLogPath() throws IOException {
+        logPath = Files.createTempFile("users", ".wal");
+    }
+
+    @After
+    public void deleteLog() throws IOException {
+        Files.deleteIfExists(logPath);
+    }
+
+    @Test
+    public void testReplayRestoresRepositoryState() {
+        UserRepository repository = new UserRepository();
+        try (FileMutationLog log = FileMutationLog.open(logPath, (record, lsn) -> { })) {
+            repository.setMutationLog(log);
+            repository.registerIfValid("trader", "test");
+            repository.depositMoney("trader", 1000);
+            repository.buyCryptocurrency("trader", "BTC", 400, 20);
+            repository.buyCryptocurrency("trader", "ETH", 100, 10);
+            repository.sellCryptocurrency("trader", "BTC", 30);
+        }
+
+        UserRepository restored = replayInto(new UserRepository());
+
+        assertTrue(WRONG_RESULT_ERROR, restored.isRegistered("trader"));
+        assertEquals(WRONG_RESULT_ERROR, 1100, restored.getUserByUsername("trader").getBalance(), 0);
+        assertEquals(WRONG_RESULT_ERROR, List.of("ETH"),
+                new ArrayList<>(restored.getUserByUsername("trader").getUserCryptoCurrencies()));
+    }
+
+    @Test
+    public void testTornTailIsDiscarded() throws IOException {
+        UserRepository repository = new UserRepository();
+        try (FileMutationLog log = FileMutationLog.open(logPath, (record, lsn) -> { })) {
+            repository.setMutationLog(log);
+            repository.registerIfValid("trader", "test");
+            repository.depositMoney("trader", 50);
+        }
+        Files.write(logPath, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        List<Long> lsns = new ArrayList<>();
+        try (FileMutationLog log = FileMutationLog.open(logPath, (record, lsn) -> lsns.add(lsn))) {
+            assertEquals(WRONG_RESULT_ERROR, 3, log.append(MutationRecord.deposit("trader", 1)));
+        }
+
+        assertEquals(WRONG_RESULT_ERROR, List.of(1L, 2L), lsns);
+        assertEquals(WRONG_RESULT_ERROR, 51, replayInto(new UserRepository())
+                .getUserByUsername("trader").getBalance(), 0);
+    }
+
+    @Test
+    public void testTruncateDiscardsCheckpointedMutations() {
+        try (FileMutationLog log = FileMutationLog.open(logPath, (record, lsn) -> { })) {
+            log.append(MutationRecord.register("trader", "hash"));
+            log.sync();
+            log.truncateThrough(log.getLastLsn());
+        }
+
+        assertFalse(WRONG_RESULT_ERROR, replayInto(new UserRepository()).isRegistered("trader"));
+    }
+
+    @Test
+    public void testTruncateKeepsMutationsAfterTheCheckpoint() {
+        try (FileMutationLog log = FileMutationLog.open(logPath, (record, lsn) -> { })) {
+            log.append(MutationRecord.register("trader", "hash"));
+            log.append(MutationRecord.deposit("trader", 50));
+            log.sync();
+            log.append(MutationRecord.register("investor", "hash"));
+            log.truncateThrough(2);
+            log.append(MutationRecord.deposit("investor", 20));
+        }
+
+        List<Long> lsns = new ArrayList<>();
+        FileMutationLog.open(logPath, (record, lsn) -> lsns.add(lsn)).close();
+
+        assertEquals(WRONG_RESULT_ERROR, List.of(3L, 4L), lsns);
+    }
+
+    @Test
+    public void testConcurrentAppendsBecomeDurable() throws Exception {
+        int threads = 8;
+        int recordsPerThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try (FileMutationLog log = FileMutationLog.open(logPath, (record, lsn) -> { })) {
+            log.append(MutationRecord.register("trader", "hash"));
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < recordsPerThread; j++) {
+                        log.awaitDurable(log.append(MutationRecord.deposit("trader", 1)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertEquals(WRONG_RESULT_ERROR, 1 + threads * recordsPerThread, log.getDurableLsn());
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(WRONG_RESULT_ERROR, threads * recordsPerThread,
+                replayInto(new UserRepository()).getUserByUsername("trader").getBalance(), 0);
+    }
+
+    private UserRepository replayInto(UserRepository repository) {
+        FileMutationLog.open(logPath, (record, lsn) -> repository.applyMutation(record)).close();
+        return repository;
+    }
+}
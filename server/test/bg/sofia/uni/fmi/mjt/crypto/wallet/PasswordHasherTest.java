@@ -0,0 +1,129 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CoinAPI;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.SyntheticPriceSource;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.communication.ClientRequestExecutor;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.communication.Request;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.communication.Response;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MutationLog;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.PasswordHasher;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserProfile;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+import com.google.gson.Gson;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PasswordHasherTest {
+    private static final String WRONG_RESULT_ERROR = "The password hash is incorrect";
+    private static final int HASH_ITERATIONS = 1000;
+    private static final int STORM_LOGIN_COUNT = 8;
+
+    private PasswordHasher passwordHasher;
+
+    @Before
+    public void setUpHasher() {
+        passwordHasher = new PasswordHasher(HASH_ITERATIONS);
+    }
+
+    @Test
+    public void testHashMatchesTheStandardKeyDerivation() throws Exception {
+        String[] fields = passwordHasher.hash("secret").split("\\$");
+        byte[] salt = Base64.getDecoder().decode(fields[2]);
+        PBEKeySpec keySpec = new PBEKeySpec("secret".toCharArray(), salt, HASH_ITERATIONS, 256);
+        byte[] expected = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(keySpec).getEncoded();
+
+        assertEquals(WRONG_RESULT_ERROR, "pbkdf2-sha256", fields[0]);
+        assertEquals(WRONG_RESULT_ERROR, HASH_ITERATIONS, Integer.parseInt(fields[1]));
+        assertArrayEquals(WRONG_RESULT_ERROR, expected, Base64.getDecoder().decode(fields[3]));
+    }
+
+    @Test
+    public void testVerifyAcceptsOnlyTheCorrectPassword() {
+        String passwordHash = passwordHasher.hash("secret");
+
+        assertTrue(WRONG_RESULT_ERROR, passwordHasher.verify("secret", passwordHash));
+        assertFalse(WRONG_RESULT_ERROR, passwordHasher.verify("Secret", passwordHash));
+        assertFalse(WRONG_RESULT_ERROR, passwordHasher.needsRehash(passwordHash));
+    }
+
+    @Test
+    public void testEachHashUsesItsOwnSalt() {
+        String firstHash = passwordHasher.hash("secret");
+        String secondHash = passwordHasher.hash("secret");
+
+        assertTrue(WRONG_RESULT_ERROR, !firstHash.equals(secondHash));
+        assertTrue(WRONG_RESULT_ERROR, passwordHasher.verify("secret", secondHash));
+    }
+
+    @Test
+    public void testWeakerHashesNeedRehashing() throws NoSuchAlgorithmException {
+        String legacyHash = legacyHash("secret");
+
+        assertTrue(WRONG_RESULT_ERROR, passwordHasher.verify("secret", legacyHash));
+        assertFalse(WRONG_RESULT_ERROR, passwordHasher.verify("other", legacyHash));
+        assertTrue(WRONG_RESULT_ERROR, passwordHasher.needsRehash(legacyHash));
+        assertTrue(WRONG_RESULT_ERROR, new PasswordHasher(HASH_ITERATIONS * 2)
+                .needsRehash(passwordHasher.hash("secret")));
+    }
+
+    @Test
+    public void testLoginRehashesLegacyPasswords() throws NoSuchAlgorithmException {
+        UserRepository userRepository = new UserRepository(MutationLog.disabled(),
+                UserRepository.DEFAULT_RESIDENT_USER_CAPACITY, passwordHasher);
+        userRepository.importUser(new UserProfile("legacy", legacyHash("secret")));
+
+        assertTrue(WRONG_RESULT_ERROR, userRepository.logInIfValid("legacy", "secret").isSuccessful());
+        String passwordHash = userRepository.getUserByUsername("legacy").getPassword();
+        assertTrue(WRONG_RESULT_ERROR, passwordHash.startsWith("pbkdf2-sha256$"));
+        assertTrue(WRONG_RESULT_ERROR, userRepository.logInIfValid("legacy", "secret").isSuccessful());
+        assertFalse(WRONG_RESULT_ERROR, userRepository.logInIfValid("legacy", "other").isSuccessful());
+    }
+
+    @Test
+    public void testLoginStormDoesNotDelayTrading() throws Exception {
+        Path snapshotPath = Files.createTempFile("coin-cache", ".dat");
+        Files.delete(snapshotPath);
+        CoinAPI coinAPI = new CoinAPI(new SyntheticPriceSource(10, Duration.ofSeconds(1)), snapshotPath);
+        ClientRequestExecutor executor = new ClientRequestExecutor(coinAPI, Files.createTempDirectory("wallet-data"));
+        Gson gson = new Gson();
+        executor.processRequest(new Request("guest", "register trader secret"));
+
+        List<CompletableFuture<String>> logins = new ArrayList<>();
+        for (int i = 0; i < STORM_LOGIN_COUNT; i++) {
+            logins.add(executor.processRequestAsync(new Request("guest", "login trader secret")));
+        }
+        CompletableFuture<String> deposit = executor.processRequestAsync(new Request("trader", "deposit-money 100"));
+
+        assertTrue(WRONG_RESULT_ERROR, deposit.isDone());
+        assertTrue(WRONG_RESULT_ERROR, gson.fromJson(deposit.join(), Response.class).isSuccessful());
+        assertFalse(WRONG_RESULT_ERROR, logins.get(STORM_LOGIN_COUNT - 1).isDone());
+        for (CompletableFuture<String> login : logins) {
+            assertTrue(WRONG_RESULT_ERROR, gson.fromJson(login.join(), Response.class).isSuccessful());
+        }
+        executor.close();
+    }
+
+    private String legacyHash(String password) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+        return String.format("%032x", new BigInteger(1, digest));
+    }
+}
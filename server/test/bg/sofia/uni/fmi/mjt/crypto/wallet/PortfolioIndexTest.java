@@ -0,0 +1,127 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.PriceTable;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MutationLog;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.PasswordHasher;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.PortfolioIndex;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserSnapshot;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class PortfolioIndexTest {
+    private static final String WRONG_RESULT_ERROR = "The portfolio index holds unexpected values";
+    private static final int HASH_ITERATIONS = 1000;
+
+    private UserRepository userRepository;
+    private PortfolioIndex portfolioIndex;
+    private int bitcoinIndex;
+
+    @Before
+    public void setUpPortfolioIndex() {
+        PriceTable priceTable = new PriceTable();
+        bitcoinIndex = priceTable.getRegistry().intern("BTC");
+        userRepository = new UserRepository(MutationLog.disabled(), UserRepository.DEFAULT_RESIDENT_USER_CAPACITY,
+                new PasswordHasher(HASH_ITERATIONS));
+        portfolioIndex = new PortfolioIndex(priceTable);
+        portfolioIndex.onPriceUpdate(bitcoinIndex, 10, 0);
+        userRepository.addUserUpdateListener(portfolioIndex);
+
+        for (String username : List.of("alice", "bob", "carol")) {
+            userRepository.registerIfValid(username, "test");
+        }
+    }
+
+    @Test
+    public void testDepositsAndTradesUpdateTheRanking() {
+        userRepository.depositMoney("alice", 100);
+        userRepository.depositMoney("bob", 200);
+        userRepository.depositMoney("carol", 150);
+        userRepository.buyCryptocurrency("alice", "BTC", 100, 10);
+
+        assertRanking(List.of("bob", "carol", "alice"), List.of(200.0, 150.0, 100.0));
+
+        portfolioIndex.onPriceUpdate(bitcoinIndex, 25, 0);
+        assertRanking(List.of("alice", "bob", "carol"), List.of(250.0, 200.0, 150.0));
+
+        userRepository.sellCryptocurrency("alice", "BTC", 12);
+        assertRanking(List.of("bob", "carol", "alice"), List.of(200.0, 150.0, 120.0));
+    }
+
+    @Test
+    public void testTopUsersAreLimitedToTheRequestedCount() {
+        userRepository.depositMoney("carol", 50);
+
+        List<Map.Entry<String, Double>> topUsers = portfolioIndex.getTop(2);
+
+        assertEquals(WRONG_RESULT_ERROR, 2, topUsers.size());
+        assertEquals(WRONG_RESULT_ERROR, "carol", topUsers.get(0).getKey());
+        assertEquals(WRONG_RESULT_ERROR, "alice", topUsers.get(1).getKey());
+        assertEquals(WRONG_RESULT_ERROR, 3, portfolioIndex.getTop(10).size());
+    }
+
+    @Test
+    public void testSnapshotUsersAreIndexed() {
+        userRepository.depositMoney("bob", 100);
+        userRepository.buyCryptocurrency("bob", "BTC", 40, 10);
+        PriceTable priceTable = new PriceTable();
+        PortfolioIndex restoredIndex = new PortfolioIndex(priceTable);
+        restoredIndex.onPriceUpdate(priceTable.getRegistry().intern("BTC"), 20, 0);
+
+        UserSnapshot snapshot = userRepository.beginSnapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            restoredIndex.onUserUpdate(snapshot.getUser(i));
+        }
+        userRepository.endSnapshot(snapshot);
+
+        assertEquals(WRONG_RESULT_ERROR, 3, restoredIndex.size());
+        assertEquals(WRONG_RESULT_ERROR, "bob", restoredIndex.getTop(1).get(0).getKey());
+        assertEquals(WRONG_RESULT_ERROR, 140, restoredIndex.getTop(1).get(0).getValue(), 0.0001);
+    }
+
+    @Test
+    public void testUnrealizedPnlFollowsPriceUpdates() {
+        userRepository.depositMoney("alice", 100);
+        userRepository.buyCryptocurrency("alice", "BTC", 50, 10);
+        userRepository.buyCryptocurrency("alice", "ETH", 20, 4);
+
+        assertEquals(WRONG_RESULT_ERROR, 0, portfolioIndex.getUnrealizedPnl("alice"), 0.0001);
+
+        portfolioIndex.onPriceUpdate(bitcoinIndex, 12, 0);
+        assertEquals(WRONG_RESULT_ERROR, 10, portfolioIndex.getUnrealizedPnl("alice"), 0.0001);
+
+        portfolioIndex.onPriceUpdate(bitcoinIndex, 8, 0);
+        assertEquals(WRONG_RESULT_ERROR, -10, portfolioIndex.getUnrealizedPnl("alice"), 0.0001);
+        assertEquals(WRONG_RESULT_ERROR, 0, portfolioIndex.getUnrealizedPnl("bob"), 0.0001);
+
+        userRepository.sellCryptocurrency("alice", "BTC", 8);
+        assertEquals(WRONG_RESULT_ERROR, 0, portfolioIndex.getUnrealizedPnl("alice"), 0.0001);
+    }
+
+    @Test
+    public void testRepeatedPriceUpdatesDoNotDrift() {
+        userRepository.depositMoney("alice", 100);
+        userRepository.buyCryptocurrency("alice", "BTC", 30, 10);
+
+        for (int i = 0; i < 100_000; i++) {
+            portfolioIndex.onPriceUpdate(bitcoinIndex, 10 + (i % 7) * 0.1, 0);
+        }
+        portfolioIndex.onPriceUpdate(bitcoinIndex, 10, 0);
+
+        assertEquals(WRONG_RESULT_ERROR, 0, portfolioIndex.getUnrealizedPnl("alice"), 0);
+        assertEquals(WRONG_RESULT_ERROR, 100, portfolioIndex.getTop(1).get(0).getValue(), 0);
+    }
+
+    private void assertRanking(List<String> expectedUsers, List<Double> expectedValues) {
+        List<Map.Entry<String, Double>> topUsers = portfolioIndex.getTop(expectedUsers.size());
+        for (int i = 0; i < expectedUsers.size(); i++) {
+            assertEquals(WRONG_RESULT_ERROR, expectedUsers.get(i), topUsers.get(i).getKey());
+            assertEquals(WRONG_RESULT_ERROR, expectedValues.get(i), topUsers.get(i).getValue(), 0.0001);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.PriceCandle;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.PriceHistory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PriceHistoryTest {
+    private static final String WRONG_RESULT_ERROR = "The price history returned unexpected candles";
+    private static final long MINUTE = 60_000;
+    private PriceHistory history;
+
+    @Before
+    public void setUpHistory() {
+        history = new PriceHistory(8);
+    }
+
+    @Test
+    public void testCandlesWithUnknownAsset() {
+        assertTrue(WRONG_RESULT_ERROR, history.getCandles(-1, MINUTE, 10).isEmpty());
+        assertTrue(WRONG_RESULT_ERROR, history.getCandles(100, MINUTE, 10).isEmpty());
+    }
+
+    @Test
+    public void testCandlesAggregateOpenHighLowClose() {
+        history.onPriceUpdate(0, 10, 0);
+        history.onPriceUpdate(0, 14, 10_000);
+        history.onPriceUpdate(0, 9, 20_000);
+        history.onPriceUpdate(0, 11, 30_000);
+        history.onPriceUpdate(0, 12, MINUTE + 5_000);
+
+        List<PriceCandle> candles = history.getCandles(0, MINUTE, 10);
+
+        assertEquals(WRONG_RESULT_ERROR, 2, candles.size());
+        PriceCandle first = candles.get(0);
+        assertEquals(WRONG_RESULT_ERROR, 10, first.getOpen(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 14, first.getHigh(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 9, first.getLow(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 11, first.getClose(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 4, first.getSamples());
+        assertEquals(WRONG_RESULT_ERROR, MINUTE, candles.get(1).getStartMillis());
+    }
+
+    @Test
+    public void testOldestPricesAreOverwrittenWhenFull() {
+        for (int i = 0; i < 20; i++) {
+            history.onPriceUpdate(3, i, i * MINUTE);
+        }
+
+        List<PriceCandle> candles = history.getCandles(3, MINUTE, 100);
+
+        assertEquals(WRONG_RESULT_ERROR, 8, candles.size());
+        assertEquals(WRONG_RESULT_ERROR, 12, candles.get(0).getOpen(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 19, candles.get(7).getClose(), 0);
+    }
+
+    @Test
+    public void testOnlyTheLatestCandlesAreReturned() {
+        for (int i = 0; i < 6; i++) {
+            history.onPriceUpdate(0, i, i * MINUTE);
+        }
+
+        List<PriceCandle> candles = history.getCandles(0, MINUTE, 2);
+
+        assertEquals(WRONG_RESULT_ERROR, 2, candles.size());
+        assertEquals(WRONG_RESULT_ERROR, 4 * MINUTE, candles.get(0).getStartMillis());
+    }
+}
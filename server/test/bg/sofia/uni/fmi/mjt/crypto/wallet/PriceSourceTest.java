@@ -0,0 +1,85 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CurrencyDTO;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.PriceSource;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.RecordingPriceSource;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.ReplayPriceSource;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.SyntheticPriceSource;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CoinAPIException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PriceSourceTest {
+    private static final String WRONG_RESULT_ERROR = "The price source returned an unexpected result";
+    private Path recordingDirectory;
+
+    @Before
+    public void setUpRecordingDirectory() throws IOException {
+        recordingDirectory = Files.createTempDirectory("price-recording");
+    }
+
+    @Test
+    public void testSyntheticOfferingsAreSortedAndLimited() {
+        PriceSource source = new SyntheticPriceSource(1000, Duration.ofMillis(10));
+        List<CurrencyDTO> offerings = source.getOfferings(50);
+
+        assertEquals(WRONG_RESULT_ERROR, 50, offerings.size());
+        for (int i = 1; i < offerings.size(); i++) {
+            assertTrue(WRONG_RESULT_ERROR, offerings.get(i - 1).getPriceUSD() >= offerings.get(i).getPriceUSD());
+        }
+    }
+
+    @Test
+    public void testSyntheticSourceIsDeterministicForTheSameSeed() {
+        Clock clock = Clock.fixed(Instant.EPOCH, ZoneOffset.UTC);
+        PriceSource first = new SyntheticPriceSource(100, Duration.ofSeconds(1), 42, clock);
+        PriceSource second = new SyntheticPriceSource(100, Duration.ofSeconds(1), 42, clock);
+
+        String assetId = SyntheticPriceSource.getAssetId(7);
+        assertEquals(WRONG_RESULT_ERROR, first.getCurrency(assetId).getPriceUSD(),
+                second.getCurrency(assetId).getPriceUSD(), 0);
+    }
+
+    @Test(expected = CoinAPIException.class)
+    public void testSyntheticSourceWithUnknownCurrency() {
+        new SyntheticPriceSource(10, Duration.ofSeconds(1)).getCurrency("SYN10");
+    }
+
+    @Test
+    public void testReplayReturnsRecordedResponsesInOrder() {
+        PriceSource synthetic = new SyntheticPriceSource(10, Duration.ofMillis(1));
+        PriceSource recording = new RecordingPriceSource(synthetic, recordingDirectory);
+
+        String assetId = SyntheticPriceSource.getAssetId(3);
+        double firstPrice = recording.getCurrency(assetId).getPriceUSD();
+        double secondPrice = recording.getCurrency(assetId).getPriceUSD();
+
+        PriceSource replay = new ReplayPriceSource(recordingDirectory);
+        assertEquals(WRONG_RESULT_ERROR, firstPrice, replay.getCurrency(assetId).getPriceUSD(), 0);
+        assertEquals(WRONG_RESULT_ERROR, secondPrice, replay.getCurrency(assetId).getPriceUSD(), 0);
+        assertEquals(WRONG_RESULT_ERROR, secondPrice, replay.getCurrency(assetId).getPriceUSD(), 0);
+    }
+
+    @Test(expected = CoinAPIException.class)
+    public void testReplayReproducesRecordedFailures() {
+        PriceSource recording = new RecordingPriceSource(
+                new SyntheticPriceSource(10, Duration.ofSeconds(1)), recordingDirectory);
+        try {
+            recording.getCurrency("UNKNOWN");
+        } catch (CoinAPIException exception) {
+            new ReplayPriceSource(recordingDirectory).getCurrency("UNKNOWN");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.AssetRegistry;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CoinCache;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.PriceTable;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PriceTableTest {
+    private static final String WRONG_RESULT_ERROR = "The price table returned an unexpected result";
+    private MutableClock clock;
+    private CoinCache cache;
+    private PriceTable priceTable;
+
+    @Before
+    public void setUpPriceTable() {
+        clock = new MutableClock();
+        cache = new CoinCache(clock, 1000);
+        priceTable = cache.getPriceTable();
+    }
+
+    @Test
+    public void testRegistryAssignsDenseStableIndexes() {
+        AssetRegistry registry = AssetRegistry.shared();
+
+        int firstIndex = registry.intern("DENSE-FIRST");
+        assertEquals(WRONG_RESULT_ERROR, firstIndex + 1, registry.intern("DENSE-SECOND"));
+        assertEquals(WRONG_RESULT_ERROR, firstIndex, registry.intern("DENSE-FIRST"));
+        assertEquals(WRONG_RESULT_ERROR, -1, registry.indexOf("DENSE-MISSING"));
+        assertEquals(WRONG_RESULT_ERROR, "DENSE-SECOND", registry.getCode(firstIndex + 1));
+    }
+
+    @Test
+    public void testCacheUpdatesAreMirroredIntoTheTable() {
+        for (int i = 0; i < 200; i++) {
+            cache.updateCurrency("C" + i, i + 0.5);
+        }
+
+        int index = priceTable.indexOf("C150");
+        assertEquals(WRONG_RESULT_ERROR, 150.5, priceTable.getPrice(index), 0);
+        assertEquals(WRONG_RESULT_ERROR, clock.millis(), priceTable.getLastUpdateMillis(index));
+    }
+
+    @Test
+    public void testEvictedCurrenciesLoseTheirPrice() {
+        cache.updateCurrency("OLD", 1);
+        clock.advance(Duration.ofMinutes(31));
+        cache.updateCurrency("NEW", 2);
+
+        assertFalse(WRONG_RESULT_ERROR, priceTable.hasPrice(priceTable.indexOf("OLD")));
+        assertTrue(WRONG_RESULT_ERROR, priceTable.hasPrice(priceTable.indexOf("NEW")));
+    }
+
+    @Test
+    public void testPricesAreReadTogetherWithTheirUpdateTime() {
+        cache.updateCurrency("OLD", 1);
+        clock.advance(Duration.ofMinutes(31));
+        cache.updateCurrency("NEW", 2);
+
+        long[] updateMillis = new long[1];
+        priceTable.readPrice(priceTable.indexOf("NEW"), (index, price, millis) -> updateMillis[0] = millis);
+
+        assertTrue(WRONG_RESULT_ERROR, Double.isNaN(priceTable.getPriceIfUpdated(priceTable.indexOf("OLD"))));
+        assertEquals(WRONG_RESULT_ERROR, 2, priceTable.getPriceIfUpdated(priceTable.indexOf("NEW")), 0);
+        assertEquals(WRONG_RESULT_ERROR, clock.millis(), updateMillis[0]);
+    }
+}
@@ -0,0 +1,198 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CoinAPI;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CurrencyDTO;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.PriceSource;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.SyntheticPriceSource;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.ScheduleStorageException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MutationLog;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.trading.PurchaseScheduler;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.PasswordHasher;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PurchaseSchedulerTest {
+    private static final String WRONG_RESULT_ERROR = "The recurring purchases were not executed correctly";
+    private static final String ASSET = SyntheticPriceSource.getAssetId(1);
+    private static final int HASH_ITERATIONS = 1000;
+    private MutableClock clock;
+    private CountingPriceSource priceSource;
+    private CoinAPI coinAPI;
+    private UserRepository userRepository;
+    private Path storagePath;
+
+    @Before
+    public void setUpScheduler() throws IOException {
+        clock = new MutableClock();
+        priceSource = new CountingPriceSource(new SyntheticPriceSource(10, Duration.ofSeconds(1), 42, clock));
+        Path snapshotPath = Files.createTempFile("coin-cache", ".dat");
+        Files.delete(snapshotPath);
+        coinAPI = new CoinAPI(priceSource, snapshotPath);
+
+        storagePath = Files.createTempFile("schedules", ".json");
+        Files.delete(storagePath);
+        userRepository = new UserRepository(MutationLog.disabled(),
+                UserRepository.DEFAULT_RESIDENT_USER_CAPACITY, new PasswordHasher(HASH_ITERATIONS));
+    }
+
+    @After
+    public void deleteSchedules() throws IOException {
+        Files.deleteIfExists(storagePath);
+        Files.deleteIfExists(storagePath.resolveSibling(storagePath.getFileName() + ".journal"));
+    }
+
+    @Test
+    public void testDuePurchasesForTheSameCurrencyShareOnePriceLookup() {
+        PurchaseScheduler scheduler = new PurchaseScheduler(userRepository, coinAPI, storagePath, clock);
+        for (int i = 0; i < 100; i++) {
+            String username = "saver" + i;
+            userRepository.registerIfValid(username, "test");
+            userRepository.getUserByUsername(username).depositMoney(100);
+            scheduler.schedule(username, ASSET, 10, Duration.ofMinutes(5));
+        }
+
+        clock.advance(Duration.ofMinutes(5));
+        scheduler.runDuePurchases();
+
+        assertEquals(WRONG_RESULT_ERROR, 1, priceSource.getCurrencyCalls());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(WRONG_RESULT_ERROR, 90, userRepository.getUserByUsername("saver" + i).getBalance(), 0);
+        }
+    }
+
+    @Test
+    public void testPurchasesRepeatEveryInterval() {
+        PurchaseScheduler scheduler = new PurchaseScheduler(userRepository, coinAPI, storagePath, clock);
+        userRepository.registerIfValid("saver", "test");
+        userRepository.getUserByUsername("saver").depositMoney(100);
+        scheduler.schedule("saver", ASSET, 10, Duration.ofMinutes(1));
+
+        clock.advance(Duration.ofSeconds(59));
+        scheduler.runDuePurchases();
+        assertEquals(WRONG_RESULT_ERROR, 100, userRepository.getUserByUsername("saver").getBalance(), 0);
+
+        for (int i = 0; i < 3; i++) {
+            clock.advance(Duration.ofMinutes(1));
+            scheduler.runDuePurchases();
+        }
+        assertEquals(WRONG_RESULT_ERROR, 70, userRepository.getUserByUsername("saver").getBalance(), 0);
+    }
+
+    @Test
+    public void testCancelledPurchasesAreNotExecuted() {
+        PurchaseScheduler scheduler = new PurchaseScheduler(userRepository, coinAPI, storagePath, clock);
+        userRepository.registerIfValid("saver", "test");
+        userRepository.getUserByUsername("saver").depositMoney(100);
+        long purchaseId = scheduler.schedule("saver", ASSET, 10, Duration.ofMinutes(1)).getId();
+
+        assertFalse(WRONG_RESULT_ERROR, scheduler.cancel("someoneElse", purchaseId));
+        assertTrue(WRONG_RESULT_ERROR, scheduler.cancel("saver", purchaseId));
+        clock.advance(Duration.ofMinutes(2));
+        scheduler.runDuePurchases();
+
+        assertEquals(WRONG_RESULT_ERROR, 100, userRepository.getUserByUsername("saver").getBalance(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 0, priceSource.getCurrencyCalls());
+    }
+
+    @Test
+    public void testSchedulesSurviveARestart() {
+        new PurchaseScheduler(userRepository, coinAPI, storagePath, clock)
+                .schedule("saver", ASSET, 10, Duration.ofHours(2));
+
+        PurchaseScheduler restarted = new PurchaseScheduler(userRepository, coinAPI, storagePath, clock);
+        userRepository.registerIfValid("saver", "test");
+        userRepository.getUserByUsername("saver").depositMoney(100);
+        clock.advance(Duration.ofHours(2));
+        restarted.runDuePurchases();
+
+        assertEquals(WRONG_RESULT_ERROR, 1, restarted.getPurchases("saver").size());
+        assertEquals(WRONG_RESULT_ERROR, 90, userRepository.getUserByUsername("saver").getBalance(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 2, restarted.schedule("saver", ASSET, 1, Duration.ofHours(1)).getId());
+    }
+
+    @Test
+    public void testExecutedPurchasesAreNotRepeatedAfterARestart() {
+        PurchaseScheduler scheduler = new PurchaseScheduler(userRepository, coinAPI, storagePath, clock);
+        userRepository.registerIfValid("saver", "test");
+        userRepository.getUserByUsername("saver").depositMoney(100);
+        scheduler.schedule("saver", ASSET, 10, Duration.ofMinutes(1));
+        long cancelledId = scheduler.schedule("saver", ASSET, 10, Duration.ofMinutes(1)).getId();
+        scheduler.cancel("saver", cancelledId);
+
+        clock.advance(Duration.ofMinutes(1));
+        scheduler.runDuePurchases();
+        PurchaseScheduler restarted = new PurchaseScheduler(userRepository, coinAPI, storagePath, clock);
+        restarted.runDuePurchases();
+
+        assertEquals(WRONG_RESULT_ERROR, 1, restarted.getPurchases("saver").size());
+        assertEquals(WRONG_RESULT_ERROR, 90, userRepository.getUserByUsername("saver").getBalance(), 0);
+    }
+
+    @Test
+    public void testPurchasesDoNotRunUntilTheirNextRunIsSaved() throws IOException {
+        PurchaseScheduler scheduler = new PurchaseScheduler(userRepository, coinAPI, storagePath, clock);
+        userRepository.registerIfValid("saver", "test");
+        userRepository.getUserByUsername("saver").depositMoney(100);
+        scheduler.schedule("saver", ASSET, 10, Duration.ofMinutes(1));
+
+        Path journalPath = storagePath.resolveSibling(storagePath.getFileName() + ".journal");
+        Files.delete(journalPath);
+        Files.createDirectory(journalPath);
+        clock.advance(Duration.ofMinutes(1));
+        boolean saveFailed = false;
+        try {
+            scheduler.runDuePurchases();
+        } catch (ScheduleStorageException exception) {
+            saveFailed = true;
+        }
+        assertTrue(WRONG_RESULT_ERROR, saveFailed);
+        assertEquals(WRONG_RESULT_ERROR, 100, userRepository.getUserByUsername("saver").getBalance(), 0);
+
+        Files.delete(journalPath);
+        clock.advance(Duration.ofSeconds(1));
+        scheduler.runDuePurchases();
+        assertEquals(WRONG_RESULT_ERROR, 90, userRepository.getUserByUsername("saver").getBalance(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testScheduleWithTooShortInterval() {
+        new PurchaseScheduler(userRepository, coinAPI, storagePath, clock)
+                .schedule("saver", ASSET, 10, Duration.ofSeconds(30));
+    }
+
+    private static class CountingPriceSource implements PriceSource {
+        private final PriceSource source;
+        private int currencyCalls;
+
+        CountingPriceSource(PriceSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public List<CurrencyDTO> getOfferings(int limit) {
+            return source.getOfferings(limit);
+        }
+
+        @Override
+        public CurrencyDTO getCurrency(String offeringCode) {
+            currencyCalls++;
+            return source.getCurrency(offeringCode);
+        }
+
+        int getCurrencyCalls() {
+            return currencyCalls;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.FileTransactionLedger;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.Transaction;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.TransactionLedger;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.TransactionPage;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.TransactionType;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TransactionLedgerTest {
+    private static final String WRONG_RESULT_ERROR = "The transaction ledger returned unexpected transactions";
+    private static final int PAGE_SIZE = 4;
+
+    private Path ledgerDirectory;
+
+    @Before
+    public void setUpLedgerDirectory() throws IOException {
+        ledgerDirectory = Files.createTempDirectory("wallet-data").resolve("ledger");
+    }
+
+    @Test
+    public void testPagesAreServedNewestFirst() {
+        try (FileTransactionLedger ledger = FileTransactionLedger.open(ledgerDirectory)) {
+            for (int i = 1; i <= 10; i++) {
+                ledger.append("trader", Transaction.deposit(i, i), 2L * i);
+                ledger.append("other", Transaction.deposit(i, -i), 2L * i + 1);
+            }
+
+            assertEquals(WRONG_RESULT_ERROR, List.of(10.0, 9.0, 8.0, 7.0, 6.0, 5.0, 4.0, 3.0, 2.0, 1.0),
+                    readAllMoney(ledger, "trader"));
+        }
+    }
+
+    @Test
+    public void testTradesKeepTheirDetails() {
+        try (FileTransactionLedger ledger = FileTransactionLedger.open(ledgerDirectory)) {
+            ledger.append("trader", Transaction.buy(100, "BTC", 0.5, 10, 20), 1);
+            ledger.append("trader", Transaction.sell(200, "VERYLONGOFFERINGCODE", 0.5, 15, 30), 2);
+
+            List<Transaction> transactions =
+                    ledger.readPage("trader", TransactionLedger.FIRST_PAGE, PAGE_SIZE).getTransactions();
+            assertEquals(WRONG_RESULT_ERROR, TransactionType.SELL, transactions.get(0).getType());
+            assertEquals(WRONG_RESULT_ERROR, "VERYLONGOFFERING", transactions.get(0).getOfferingCode());
+            assertEquals(WRONG_RESULT_ERROR, TransactionType.BUY, transactions.get(1).getType());
+            assertEquals(WRONG_RESULT_ERROR, "BTC", transactions.get(1).getOfferingCode());
+            assertEquals(WRONG_RESULT_ERROR, 100, transactions.get(1).getTimestampMillis());
+            assertEquals(WRONG_RESULT_ERROR, 0.5, transactions.get(1).getCryptoAmount(), 0);
+            assertEquals(WRONG_RESULT_ERROR, 10, transactions.get(1).getMoney(), 0);
+            assertEquals(WRONG_RESULT_ERROR, 20, transactions.get(1).getPrice(), 0);
+        }
+    }
+
+    @Test
+    public void testReopeningRestoresTheHistory() throws IOException {
+        try (FileTransactionLedger ledger = FileTransactionLedger.open(ledgerDirectory)) {
+            ledger.append("trader", Transaction.deposit(1, 1), 3);
+            ledger.append("trader", Transaction.deposit(2, 2), 4);
+        }
+        try (FileTransactionLedger ledger = FileTransactionLedger.open(ledgerDirectory)) {
+            ledger.append("trader", Transaction.deposit(3, 3), 5);
+            ledger.append("newcomer", Transaction.deposit(4, 4), 6);
+            ledger.saveIndex();
+            ledger.append("trader", Transaction.deposit(5, 5), 7);
+        }
+        Files.write(ledgerDirectory.resolve("segment-00000.dat"), new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (FileTransactionLedger ledger = FileTransactionLedger.open(ledgerDirectory)) {
+            assertEquals(WRONG_RESULT_ERROR, List.of(5.0, 3.0, 2.0, 1.0), readAllMoney(ledger, "trader"));
+            assertEquals(WRONG_RESULT_ERROR, List.of(4.0), readAllMoney(ledger, "newcomer"));
+        }
+    }
+
+    @Test
+    public void testAppendsAreWrittenWhenTheLedgerIsFlushed() throws IOException {
+        Path segmentPath = ledgerDirectory.resolve("segment-00000.dat");
+        try (FileTransactionLedger ledger = FileTransactionLedger.open(ledgerDirectory)) {
+            ledger.append("trader", Transaction.deposit(1, 1), 8);
+            ledger.append("trader", Transaction.deposit(2, 2), 9);
+
+            assertFalse(WRONG_RESULT_ERROR, Files.exists(segmentPath));
+            ledger.flush();
+            assertEquals(WRONG_RESULT_ERROR, 144, Files.size(segmentPath));
+        }
+    }
+
+    @Test
+    public void testMissingIndexIsRebuiltFromTheSegments() throws IOException {
+        try (FileTransactionLedger ledger = FileTransactionLedger.open(ledgerDirectory)) {
+            ledger.append("trader", Transaction.deposit(1, 1), 10);
+            ledger.append("other", Transaction.deposit(2, 2), 11);
+            ledger.append("trader", Transaction.deposit(3, 3), 12);
+        }
+        Files.delete(ledgerDirectory.resolve("latest-records.idx"));
+
+        try (FileTransactionLedger ledger = FileTransactionLedger.open(ledgerDirectory)) {
+            assertEquals(WRONG_RESULT_ERROR, List.of(3.0, 1.0), readAllMoney(ledger, "trader"));
+        }
+    }
+
+    @Test
+    public void testUnindexedTransactionsAreRecoveredOnlyOnce() {
+        FileTransactionLedger crashedLedger = FileTransactionLedger.open(ledgerDirectory);
+        crashedLedger.append("trader", Transaction.deposit(1, 1), 1);
+        crashedLedger.saveIndex(crashedLedger.getRecordCount(), 1);
+        crashedLedger.append("trader", Transaction.deposit(2, 2), 2);
+        crashedLedger.flush();
+
+        try (FileTransactionLedger ledger = FileTransactionLedger.open(ledgerDirectory)) {
+            ledger.recover("trader", Transaction.deposit(1, 1), 1);
+            ledger.recover("trader", Transaction.deposit(2, 2), 2);
+            ledger.recover("trader", Transaction.deposit(3, 3), 3);
+
+            assertEquals(WRONG_RESULT_ERROR, List.of(3.0, 2.0, 1.0), readAllMoney(ledger, "trader"));
+        }
+        crashedLedger.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCursorOfAnotherUserIsRejected() {
+        try (FileTransactionLedger ledger = FileTransactionLedger.open(ledgerDirectory)) {
+            ledger.append("trader", Transaction.deposit(1, 1), 13);
+            ledger.append("other", Transaction.deposit(2, 2), 14);
+            ledger.append("other", Transaction.deposit(3, 3), 15);
+
+            TransactionPage page = ledger.readPage("other", TransactionLedger.FIRST_PAGE, 1);
+            assertTrue(WRONG_RESULT_ERROR, page.hasNextPage());
+            ledger.readPage("trader", page.getNextCursor(), PAGE_SIZE);
+        }
+    }
+
+    @Test
+    public void testRepositoryRecordsCompletedOperations() {
+        try (FileTransactionLedger ledger = FileTransactionLedger.open(ledgerDirectory)) {
+            UserRepository userRepository = new UserRepository();
+            userRepository.setTransactionLedger(ledger);
+            userRepository.registerIfValid("trader", "test");
+            userRepository.depositMoney("trader", 100);
+            userRepository.buyCryptocurrency("trader", "BTC", 40, 20);
+            userRepository.sellCryptocurrency("trader", "BTC", 30);
+
+            TransactionPage page = ledger.readPage("trader", TransactionLedger.FIRST_PAGE, PAGE_SIZE);
+            assertFalse(WRONG_RESULT_ERROR, page.hasNextPage());
+            assertEquals(WRONG_RESULT_ERROR, 3, page.getTransactions().size());
+            assertEquals(WRONG_RESULT_ERROR, 60, page.getTransactions().get(0).getMoney(), 0.0001);
+            assertEquals(WRONG_RESULT_ERROR, 2, page.getTransactions().get(1).getCryptoAmount(), 0.0001);
+            assertEquals(WRONG_RESULT_ERROR, TransactionType.DEPOSIT, page.getTransactions().get(2).getType());
+        }
+    }
+
+    private List<Double> readAllMoney(TransactionLedger ledger, String username) {
+        List<Double> money = new ArrayList<>();
+        long cursor = TransactionLedger.FIRST_PAGE;
+        do {
+            TransactionPage page = ledger.readPage(username, cursor, PAGE_SIZE);
+            assertTrue(WRONG_RESULT_ERROR, page.getTransactions().size() <= PAGE_SIZE);
+            for (Transaction transaction : page.getTransactions()) {
+                money.add(transaction.getMoney());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != TransactionPage.NO_MORE_PAGES);
+
+        return money;
+    }
+}
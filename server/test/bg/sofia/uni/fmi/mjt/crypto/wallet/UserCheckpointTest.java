@@ -0,0 +1,213 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CoinAPI;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.SyntheticPriceSource;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.communication.ClientRequestExecutor;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.communication.Request;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.exception.CheckpointException;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MappedShard;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.ShardedUserCheckpoint;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.UserCheckpoint;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.CryptoCurrency;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserProfile;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+import com.google.gson.Gson;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UserCheckpointTest {
+    private static final String WRONG_RESULT_ERROR = "The loaded checkpoint does not match the saved state";
+    private Path dataDirectory;
+    private UserCheckpoint checkpoint;
+
+    @Before
+    public void setUpCheckpoint() throws IOException {
+        dataDirectory = Files.createTempDirectory("wallet-data");
+        checkpoint = new UserCheckpoint(dataDirectory.resolve("users.ckpt"));
+    }
+
+    @Test
+    public void testMapWithMissingFile() {
+        MappedShard mappedShard = checkpoint.map();
+
+        assertEquals(WRONG_RESULT_ERROR, 0, mappedShard.getLsn());
+        assertEquals(WRONG_RESULT_ERROR, 0, mappedShard.size());
+    }
+
+    @Test
+    public void testSaveAndLoadAcrossPartitions() {
+        List<UserProfile> users = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            List<CryptoCurrency> investments = List.of(new CryptoCurrency("BTC", i, i * 2.5));
+            users.add(new UserProfile("user" + i, "hash" + i, i * 10.0, investments));
+        }
+
+        checkpoint.save(users, MappedShard.empty(), 42);
+        MappedShard mappedShard = checkpoint.map();
+
+        assertEquals(WRONG_RESULT_ERROR, 42, mappedShard.getLsn());
+        assertEquals(WRONG_RESULT_ERROR, users.size(), mappedShard.size());
+
+        UserProfile user = mappedShard.hydrate("user1234");
+        CryptoCurrency investment = user.getInvestments().iterator().next();
+        assertEquals(WRONG_RESULT_ERROR, "hash1234", user.getPassword());
+        assertEquals(WRONG_RESULT_ERROR, 12340, user.getBalance(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 1234, investment.getCryptoAmount(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 3085, investment.getTotalPrice(), 0);
+    }
+
+    @Test(expected = CheckpointException.class)
+    public void testLoadWithDamagedPartition() throws IOException {
+        checkpoint.save(List.of(new UserProfile("test", "hash", 100, List.of())), MappedShard.empty(), 1);
+
+        Path checkpointPath = dataDirectory.resolve("users.ckpt.1");
+        byte[] bytes = Files.readAllBytes(checkpointPath);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(checkpointPath, bytes);
+
+        checkpoint.map();
+    }
+
+    @Test
+    public void testSaveCopiesUsersThatAreNotResident() {
+        MappedShard previousShard = checkpoint.save(List.of(new UserProfile("first", "hash", 100, List.of()),
+                new UserProfile("second", "hash", 200, List.of())), MappedShard.empty(), 1);
+
+        MappedShard mappedShard = checkpoint.save(List.of(new UserProfile("first", "hash", 150, List.of())),
+                previousShard, 2);
+
+        assertEquals(WRONG_RESULT_ERROR, 2, mappedShard.size());
+        assertEquals(WRONG_RESULT_ERROR, 150, mappedShard.hydrate("first").getBalance(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 200, mappedShard.hydrate("second").getBalance(), 0);
+    }
+
+    @Test
+    public void testSaveWritesANewGenerationWhileThePreviousOneIsMapped() {
+        MappedShard previousShard = checkpoint.save(List.of(new UserProfile("first", "hash", 100, List.of())),
+                MappedShard.empty(), 1);
+        MappedShard mappedShard = checkpoint.save(List.of(new UserProfile("first", "hash", 150, List.of())),
+                previousShard, 2);
+
+        assertEquals(WRONG_RESULT_ERROR, 100, previousShard.hydrate("first").getBalance(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 150, mappedShard.hydrate("first").getBalance(), 0);
+        assertTrue(WRONG_RESULT_ERROR, Files.exists(dataDirectory.resolve("users.ckpt.2")));
+
+        checkpoint.deletePreviousGenerations();
+        assertFalse(WRONG_RESULT_ERROR, Files.exists(dataDirectory.resolve("users.ckpt.1")));
+        assertEquals(WRONG_RESULT_ERROR, 2, checkpoint.map().getLsn());
+    }
+
+    @Test
+    public void testFloatingPointCheckpointIsMigrated() throws IOException {
+        writeFloatingPointCheckpoint(dataDirectory.resolve("users.ckpt"), 7);
+
+        MappedShard legacyShard = checkpoint.map();
+        assertTrue(WRONG_RESULT_ERROR, legacyShard.isFloatingPointFormat());
+        assertEquals(WRONG_RESULT_ERROR, 7, legacyShard.getLsn());
+
+        MappedShard mappedShard = checkpoint.save(List.of(), legacyShard, 8);
+        UserProfile user = mappedShard.hydrate("legacy");
+        CryptoCurrency investment = user.getInvestments().iterator().next();
+        assertFalse(WRONG_RESULT_ERROR, mappedShard.isFloatingPointFormat());
+        assertEquals(WRONG_RESULT_ERROR, 80_000_100_000L, user.getBalanceMicros());
+        assertEquals(WRONG_RESULT_ERROR, 1_124_075_718L, investment.getCryptoUnits());
+        assertEquals(WRONG_RESULT_ERROR, 20_000_000_000L, investment.getTotalPriceMicros());
+    }
+
+    @Test
+    public void testOnlyChangedShardsAreMarkedDirty() {
+        UserRepository userRepository = new UserRepository();
+        userRepository.registerIfValid("trader", "test");
+        userRepository.takeDirtyShards();
+
+        userRepository.depositMoney("trader", 100);
+        BitSet dirtyShards = userRepository.takeDirtyShards();
+
+        assertEquals(WRONG_RESULT_ERROR, 1, dirtyShards.cardinality());
+        assertTrue(WRONG_RESULT_ERROR, dirtyShards.get(UserRepository.shardOf("trader")));
+        assertTrue(WRONG_RESULT_ERROR, userRepository.takeDirtyShards().isEmpty());
+    }
+
+    @Test
+    public void testSaveWritesOnlyDirtyShards() {
+        UserRepository userRepository = new UserRepository();
+        userRepository.registerIfValid("trader", "test");
+        int shard = UserRepository.shardOf("trader");
+        Path shardDirectory = dataDirectory.resolve("checkpoint");
+        ShardedUserCheckpoint shardedCheckpoint = new ShardedUserCheckpoint(shardDirectory, UserRepository.SHARD_COUNT);
+
+        shardedCheckpoint.save(userRepository.takeDirtyShards(), userRepository);
+        MappedShard[] mappedShards = shardedCheckpoint.map();
+
+        assertTrue(WRONG_RESULT_ERROR, Files.exists(shardDirectory.resolve(String.format("shard-%03d.ckpt.1", shard))));
+        assertFalse(WRONG_RESULT_ERROR, Files.exists(shardDirectory.resolve(
+                String.format("shard-%03d.ckpt.1", (shard + 1) % UserRepository.SHARD_COUNT))));
+        assertEquals(WRONG_RESULT_ERROR, 1, mappedShards[shard].getLsn());
+        assertTrue(WRONG_RESULT_ERROR, mappedShards[shard].contains("trader"));
+    }
+
+    @Test
+    public void testRestartReplaysOnlyTheLogTail() {
+        ClientRequestExecutor executor = createExecutor();
+        send(executor, "guest", "register trader test");
+        send(executor, "trader", "deposit-money 100");
+        executor.checkpoint();
+        send(executor, "trader", "deposit-money 50");
+        executor.commitMutations();
+
+        ClientRequestExecutor restarted = createExecutor();
+        send(restarted, "trader", "deposit-money 25");
+        restarted.commitMutations();
+
+        String summary = send(createExecutor(), "trader", "get-wallet-summary");
+        assertTrue(WRONG_RESULT_ERROR, summary.contains(String.format("$%.4f", 175.0)));
+    }
+
+    private void writeFloatingPointCheckpoint(Path path, long lsn) throws IOException {
+        byte[] username = "legacy".getBytes(StandardCharsets.UTF_8);
+        byte[] password = "hash".getBytes(StandardCharsets.UTF_8);
+        byte[] code = "ETH".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer partition = ByteBuffer.allocate(Integer.BYTES * 5 + username.length + password.length
+                + code.length + Double.BYTES * 3);
+        partition.putInt(1).putInt(username.length).put(username).putInt(password.length).put(password)
+                .putDouble(80000.1).putInt(1).putInt(code.length).put(code)
+                .putDouble(11.240757181598621).putDouble(20000.0);
+
+        CRC32 crc = new CRC32();
+        crc.update(partition.array());
+        int headerSize = Integer.BYTES * 4 + Long.BYTES + Long.BYTES + Integer.BYTES * 3;
+        ByteBuffer header = ByteBuffer.allocate(headerSize);
+        header.putInt(0x55534552).putInt(1).putLong(lsn).putInt(1).putInt(1)
+                .putLong(headerSize).putInt(partition.capacity()).putInt(1).putInt((int) crc.getValue());
+
+        Files.write(path, header.array());
+        Files.write(path, partition.array(), StandardOpenOption.APPEND);
+    }
+
+    private ClientRequestExecutor createExecutor() {
+        CoinAPI coinAPI = new CoinAPI(new SyntheticPriceSource(10, Duration.ofSeconds(1)),
+                dataDirectory.resolve("coin-cache.dat"));
+        return new ClientRequestExecutor(coinAPI, dataDirectory);
+    }
+
+    private String send(ClientRequestExecutor executor, String sender, String command) {
+        Gson gson = new Gson();
+        return executor.processRequest(gson.toJson(new Request(sender, command)));
+    }
+}
@@ -0,0 +1,111 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.MutationLog;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.ShardedUserCheckpoint;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.UserJsonImporter;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.CryptoCurrency;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserDTO;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserProfile;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UserJsonImporterTest {
+    private static final String WRONG_RESULT_ERROR = "The imported users do not match the user file";
+    private static final int USER_COUNT = 5000;
+    private Path userFilePath;
+
+    @Before
+    public void setUpUserFile() throws IOException {
+        UserDTO[] users = new UserDTO[USER_COUNT];
+        for (int i = 0; i < USER_COUNT; i++) {
+            List<CryptoCurrency> investments = List.of(new CryptoCurrency("BTC", i, i * 2.0));
+            users[i] = new UserDTO("user" + i, new UserProfile("user" + i, "hash", i, investments));
+        }
+
+        userFilePath = Files.createTempFile("users", ".json");
+        Files.writeString(userFilePath, new GsonBuilder().setPrettyPrinting().create().toJson(users));
+    }
+
+    @Test
+    public void testImportInsertsEveryUser() throws IOException {
+        UserRepository userRepository = new UserRepository();
+
+        int importedUsers = new UserJsonImporter(userRepository, 4).importUsers(userFilePath);
+
+        assertEquals(WRONG_RESULT_ERROR, USER_COUNT, importedUsers);
+        assertEquals(WRONG_RESULT_ERROR, USER_COUNT, userRepository.getUserCount());
+        UserProfile user = userRepository.getUserByUsername("user4321");
+        assertEquals(WRONG_RESULT_ERROR, 4321, user.getBalance(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 8642, user.getInvestments().iterator().next().getTotalPrice(), 0);
+    }
+
+    @Test
+    public void testImportMarksEveryShardDirty() throws IOException {
+        UserRepository userRepository = new UserRepository();
+
+        new UserJsonImporter(userRepository).importUsers(userFilePath);
+
+        assertEquals(WRONG_RESULT_ERROR, UserRepository.SHARD_COUNT, userRepository.takeDirtyShards().cardinality());
+    }
+
+    @Test
+    public void testImportMigratesFloatingPointAmounts() throws IOException {
+        Files.writeString(userFilePath, "[{\"username\": \"test\", \"profile\": {\"username\": \"test\", "
+                + "\"password\": \"hash\", \"portfolio\": {\"ETH\": {\"code\": \"ETH\", "
+                + "\"cryptoAmount\": 11.240757181598621, \"totalPrice\": 20000.0}}, \"balance\": 80000.1}}]");
+        UserRepository userRepository = new UserRepository();
+
+        new UserJsonImporter(userRepository, 2).importUsers(userFilePath);
+
+        UserProfile user = userRepository.getUserByUsername("test");
+        CryptoCurrency investment = user.getInvestments().iterator().next();
+        assertEquals(WRONG_RESULT_ERROR, 80_000_100_000L, user.getBalanceMicros());
+        assertEquals(WRONG_RESULT_ERROR, 1_124_075_718L, investment.getCryptoUnits());
+        assertEquals(WRONG_RESULT_ERROR, 20_000_000_000L, investment.getTotalPriceMicros());
+    }
+
+    @Test
+    public void testImportKeepsOnlyTheResidentCapacityInMemory() throws IOException {
+        Path checkpointDirectory = Files.createTempDirectory("checkpoint");
+        UserRepository userRepository = new UserRepository(MutationLog.disabled(), UserRepository.SHARD_COUNT * 8);
+        ShardedUserCheckpoint userCheckpoint = new ShardedUserCheckpoint(checkpointDirectory,
+                UserRepository.SHARD_COUNT);
+
+        int importedUsers = new UserJsonImporter(userRepository, userCheckpoint, 4).importUsers(userFilePath);
+
+        assertEquals(WRONG_RESULT_ERROR, USER_COUNT, importedUsers);
+        assertEquals(WRONG_RESULT_ERROR, USER_COUNT, userRepository.getUserCount());
+        assertTrue(WRONG_RESULT_ERROR, userRepository.getResidentUserCount() < USER_COUNT / 2);
+        assertEquals(WRONG_RESULT_ERROR, 4321, userRepository.getUserByUsername("user4321").getBalance(), 0);
+    }
+
+    @Test(timeout = 10_000, expected = IOException.class)
+    public void testImportStopsWhenAWorkerFails() throws IOException {
+        UserRepository userRepository = new UserRepository() {
+            @Override
+            public void importUser(UserProfile user) {
+                throw new IllegalStateException("The user could not be stored");
+            }
+        };
+
+        new UserJsonImporter(userRepository, 1).importUsers(userFilePath);
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testImportWithMalformedUser() throws IOException {
+        Files.writeString(userFilePath, "[{\"username\": \"test\", \"profile\": 5}]");
+
+        new UserJsonImporter(new UserRepository(), 2).importUsers(userFilePath);
+    }
+}
@@ -0,0 +1,157 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.communication.UserPartitionedExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UserPartitionedExecutorTest {
+    private static final String WRONG_RESULT_ERROR = "The partitioned requests were not executed as expected";
+    private static final int PARTITION_COUNT = 4;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private UserPartitionedExecutor executor;
+
+    @Before
+    public void setUpExecutor() {
+        executor = new UserPartitionedExecutor(PARTITION_COUNT);
+    }
+
+    @After
+    public void closeExecutor() {
+        executor.close();
+    }
+
+    @Test
+    public void testRequestsOfOneUserRunInOrderOnOneThread() throws InterruptedException {
+        int requestCount = 1000;
+        List<Integer> executionOrder = Collections.synchronizedList(new ArrayList<>());
+        Set<String> threadNames = Collections.synchronizedSet(new HashSet<>());
+        CountDownLatch finished = new CountDownLatch(requestCount);
+
+        for (int i = 0; i < requestCount; i++) {
+            int request = i;
+            executor.execute("trader", () -> {
+                executionOrder.add(request);
+                threadNames.add(Thread.currentThread().getName());
+                finished.countDown();
+            });
+        }
+
+        assertTrue(WRONG_RESULT_ERROR, finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        for (int i = 0; i < requestCount; i++) {
+            assertEquals(WRONG_RESULT_ERROR, i, (int) executionOrder.get(i));
+        }
+        assertEquals(WRONG_RESULT_ERROR, 1, threadNames.size());
+    }
+
+    @Test
+    public void testQueueDepthIsReportedPerPartition() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(4);
+        int partition = executor.getPartition("trader");
+
+        executor.execute("trader", () -> {
+            started.countDown();
+            awaitQuietly(release);
+            finished.countDown();
+        });
+        for (int i = 0; i < 3; i++) {
+            executor.execute("trader", finished::countDown);
+        }
+        assertTrue(WRONG_RESULT_ERROR, started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(WRONG_RESULT_ERROR, 3, executor.getQueueDepth(partition));
+        assertTrue(WRONG_RESULT_ERROR, executor.getStatistics().contains("Peak queued: "));
+        release.countDown();
+        assertTrue(WRONG_RESULT_ERROR, finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(WRONG_RESULT_ERROR, 0, executor.getQueueDepth(partition));
+    }
+
+    @Test
+    public void testFailedRequestsReachTheFailureHandler() throws InterruptedException {
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch finished = new CountDownLatch(2);
+
+        executor.execute("trader", () -> {
+            throw new IllegalStateException("failed");
+        }, exception -> {
+            failures.add(exception.getMessage());
+            finished.countDown();
+        });
+        executor.execute("trader", finished::countDown);
+
+        assertTrue(WRONG_RESULT_ERROR, finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(WRONG_RESULT_ERROR, List.of("failed"), failures);
+    }
+
+    @Test
+    public void testRebalanceMovesAHotUserToTheIdlestPartition() throws InterruptedException {
+        List<String> hotUsers = findUsersOfOnePartition(2);
+        int hotPartition = executor.getPartition(hotUsers.get(0));
+        CountDownLatch finished = new CountDownLatch(200);
+        for (int i = 0; i < 100; i++) {
+            for (String username : hotUsers) {
+                executor.execute(username, finished::countDown);
+            }
+        }
+        assertTrue(WRONG_RESULT_ERROR, finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        waitUntilNoRequestsAreInFlight();
+
+        String movedUser = executor.rebalance();
+
+        assertTrue(WRONG_RESULT_ERROR, hotUsers.contains(movedUser));
+        assertTrue(WRONG_RESULT_ERROR, executor.getPartition(movedUser) != hotPartition);
+    }
+
+    @Test
+    public void testRebalanceKeepsABalancedLoad() throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(400);
+        for (int i = 0; i < 400; i++) {
+            executor.execute("user" + i, finished::countDown);
+        }
+        assertTrue(WRONG_RESULT_ERROR, finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertNull(WRONG_RESULT_ERROR, executor.rebalance());
+    }
+
+    private List<String> findUsersOfOnePartition(int userCount) {
+        List<String> usernames = new ArrayList<>();
+        int partition = executor.getPartition("user0");
+        for (int i = 0; usernames.size() < userCount; i++) {
+            if (executor.getPartition("user" + i) == partition) {
+                usernames.add("user" + i);
+            }
+        }
+
+        return usernames;
+    }
+
+    private void waitUntilNoRequestsAreInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (executor.getUsersInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package bg.sofia.uni.fmi.mjt.crypto.wallet;
 
+import bg.sofia.uni.fmi.mjt.crypto.wallet.coinAPI.CoinCache;
 import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserProfile;
 import org.junit.Before;
 import org.junit.Test;
@@ -91,11 +92,11 @@ public class UserProfileTest {
                 "Current balance: $0,0000" + System.lineSeparator() +
                 " 1) Offering code:  BTC, Amount purchased: 0,2127, Money invested: $10000,0000" +
                 System.lineSeparator() +
-                " 2) Offering code: test, Amount purchased: 155,7099, Money invested: $5000,0000" +
+                " 2) Offering code:  ETH, Amount purchased: 4,1662, Money invested: $10000,0000" +
                 System.lineSeparator() +
-                " 3) Offering code:  ETH, Amount purchased: 4,1662, Money invested: $10000,0000" +
+                " 3) Offering code:  GME, Amount purchased: 50,8999, Money invested: $5000,0000" +
                 System.lineSeparator() +
-                " 4) Offering code:  GME, Amount purchased: 50,8999, Money invested: $5000,0000" +
+                " 4) Offering code: test, Amount purchased: 155,7099, Money invested: $5000,0000" +
                 System.lineSeparator();
 
         assertEquals(WRONG_MESSAGE_ERROR, expected, result);
@@ -132,12 +133,33 @@ public class UserProfileTest {
         String expected = "Complete wallet summary of admin:" + System.lineSeparator() +
                 "Current balance: $0,0000" + System.lineSeparator() +
                 " 1) Offering code:  BTC, Amount purchased: 0,2127, Money invested: $10000,0000, " +
-                "Can sell for: $10638,2386, Gain: 6,382386%" + System.lineSeparator() +
-                " 2) Offering code: test, Amount purchased: 155,7099, Money invested: $5000,0000, " +
-                "Can sell for: $5000,0000, Gain: 0,000000%" + System.lineSeparator() +
-                " 3) Offering code:  ETH, Amount purchased: 4,1662, Money invested: $10000,0000, " +
+                "Can sell for: $10638,2388, Gain: 6,382388%" + System.lineSeparator() +
+                " 2) Offering code:  ETH, Amount purchased: 4,1662, Money invested: $10000,0000, " +
                 "Can sell for: $10415,6213, Gain: 4,156213%" + System.lineSeparator() +
-                " 4) Offering code:  GME, Amount purchased: 50,8999, Money invested: $5000,0000, " +
+                " 3) Offering code:  GME, Amount purchased: 50,8999, Money invested: $5000,0000, " +
+                "Can sell for: $2539,9055, Loss: 49,201889%" + System.lineSeparator() +
+                " 4) Offering code: test, Amount purchased: 155,7099, Money invested: $5000,0000, " +
+                "Can sell for: $5000,0000, Gain: 0,000000%" + System.lineSeparator();
+        assertEquals(WRONG_MESSAGE_ERROR, expected, result);
+    }
+
+    @Test
+    public void testGetOverallWalletSummaryFromPriceTable() {
+        testProfile.depositMoney(20000);
+        testProfile.buyCryptocurrency("BTC", 10000, 47012.343);
+        testProfile.buyCryptocurrency("GME", 5000, 98.232);
+
+        CoinCache cache = new CoinCache();
+        cache.updateCurrency("BTC", 50012.852);
+        cache.updateCurrency("GME", 49.9);
+
+        String result = testProfile.getWalletOverallSummary(cache.getPriceTable());
+
+        String expected = "Complete wallet summary of admin:" + System.lineSeparator() +
+                "Current balance: $5000,0000" + System.lineSeparator() +
+                " 1) Offering code:  BTC, Amount purchased: 0,2127, Money invested: $10000,0000, " +
+                "Can sell for: $10638,2388, Gain: 6,382388%" + System.lineSeparator() +
+                " 2) Offering code:  GME, Amount purchased: 50,8999, Money invested: $5000,0000, " +
                 "Can sell for: $2539,9055, Loss: 49,201889%" + System.lineSeparator();
         assertEquals(WRONG_MESSAGE_ERROR, expected, result);
     }
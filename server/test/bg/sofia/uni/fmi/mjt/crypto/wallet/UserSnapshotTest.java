@@ -0,0 +1,81 @@
+package bg.sofia.uni.fmi.mjt.crypto.wallet;
+
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.UserExporter;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.persistence.UserJsonImporter;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserProfile;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserRepository;
+import bg.sofia.uni.fmi.mjt.crypto.wallet.user.UserSnapshot;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class UserSnapshotTest {
+    private static final String WRONG_RESULT_ERROR = "The snapshot does not match the state at its start";
+    private UserRepository userRepository;
+
+    @Before
+    public void setUpRepository() {
+        userRepository = new UserRepository();
+        userRepository.registerIfValid("first", "test");
+        userRepository.registerIfValid("second", "test");
+        userRepository.depositMoney("first", 100);
+        userRepository.depositMoney("second", 200);
+    }
+
+    @Test
+    public void testSnapshotIgnoresLaterChanges() {
+        UserSnapshot snapshot = userRepository.beginSnapshot();
+        userRepository.depositMoney("first", 50);
+        userRepository.buyCryptocurrency("second", "BTC", 100, 10);
+        userRepository.registerIfValid("third", "test");
+
+        double total = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            UserProfile user = snapshot.getUser(i);
+            total += user.getBalance();
+            assertEquals(WRONG_RESULT_ERROR, Set.of(), user.getUserCryptoCurrencies());
+        }
+        userRepository.endSnapshot(snapshot);
+
+        assertEquals(WRONG_RESULT_ERROR, 2, snapshot.size());
+        assertEquals(WRONG_RESULT_ERROR, 300, total, 0);
+    }
+
+    @Test
+    public void testChangesAfterVisitingAreNotCopied() {
+        UserSnapshot snapshot = userRepository.beginSnapshot();
+        UserProfile visited = snapshot.getUser(0);
+        userRepository.depositMoney(visited.getUsername(), 1000);
+        UserProfile unvisited = snapshot.getUser(1);
+        userRepository.endSnapshot(snapshot);
+
+        double expectedUnvisited = visited.getUsername().equals("first") ? 200 : 100;
+        assertEquals(WRONG_RESULT_ERROR, expectedUnvisited, unvisited.getBalance(), 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOnlyOneSnapshotAtATime() {
+        userRepository.beginSnapshot();
+        userRepository.beginSnapshot();
+    }
+
+    @Test
+    public void testExportWritesImportableUsers() throws Exception {
+        Path exportPath = Files.createTempDirectory("wallet-data").resolve("users.json");
+        UserExporter exporter = new UserExporter(userRepository, exportPath);
+
+        assertEquals(WRONG_RESULT_ERROR, 2, (int) exporter.export().get());
+        exporter.close();
+
+        UserRepository imported = new UserRepository();
+        new UserJsonImporter(imported).importUsers(exportPath);
+        assertEquals(WRONG_RESULT_ERROR, 200, imported.getUserByUsername("second").getBalance(), 0);
+        assertEquals(WRONG_RESULT_ERROR, 2, userRepository.beginSnapshot().size());
+    }
+}